@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+# Czas startu i RSS wariantów uruchomienia: fat JAR, rozpakowany JAR, + AOT, + AppCDS, obraz natywny.
+# Czas startu to czas od uruchomienia procesu do pierwszej odpowiedzi /actuator/health (z uruchomieniem JVM),
+# RSS to VmRSS procesu w tej chwili. Warianty bez zbudowanych artefaktów są pomijane.
+#
+#   ./mvnw -Paot,cds -DskipTests package          # JAR, target/cds i application.jsa
+#   ./mvnw -Pnative -DskipTests native:compile     # opcjonalnie, wymaga GraalVM
+#   scripts/startup-benchmark.sh [liczba uruchomień, domyślnie 5]
+set -euo pipefail
+
+RUNS=${1:-5}
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAR_NAME=weather-backend-0.0.1-SNAPSHOT.jar
+JAVA=${JAVA_HOME:+$JAVA_HOME/bin/}java
+PORT=${PORT:-18080}
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+# Bez zapisu magazynu prognoz w repozytorium; wartości @Value, więc działają także z AOT
+APP_ARGS=(--server.port="$PORT" --open-meteo.store.path="$WORK/forecast-store.bin")
+VECTOR=(--add-modules jdk.incubator.vector)
+
+declare -a NAMES=() DIRS=() COMMANDS=()
+add_variant() {
+  NAMES+=("$1"); DIRS+=("$2"); COMMANDS+=("$3")
+}
+
+[[ -f "$ROOT/target/$JAR_NAME" ]] && add_variant "jar" "$ROOT/target" "$JAVA ${VECTOR[*]} -jar $JAR_NAME"
+if [[ -f "$ROOT/target/cds/$JAR_NAME" ]]; then
+  add_variant "extracted" "$ROOT/target/cds" "$JAVA ${VECTOR[*]} -jar $JAR_NAME"
+  # Nazwy plików w centralnym katalogu ZIP nie są kompresowane
+  if grep -qa "__ApplicationContextInitializer" "$ROOT/target/cds/$JAR_NAME"; then
+    add_variant "extracted+aot" "$ROOT/target/cds" "$JAVA ${VECTOR[*]} -Dspring.aot.enabled=true -jar $JAR_NAME"
+    [[ -f "$ROOT/target/cds/application.jsa" ]] && add_variant "extracted+aot+cds" "$ROOT/target/cds" \
+      "$JAVA ${VECTOR[*]} -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar $JAR_NAME"
+  elif [[ -f "$ROOT/target/cds/application.jsa" ]]; then
+    add_variant "extracted+cds" "$ROOT/target/cds" "$JAVA ${VECTOR[*]} -XX:SharedArchiveFile=application.jsa -jar $JAR_NAME"
+  fi
+fi
+[[ -x "$ROOT/target/weather-backend" ]] && add_variant "native" "$ROOT/target" "./weather-backend"
+
+if [[ ${#NAMES[@]} -eq 0 ]]; then
+  echo "Brak artefaktów - najpierw ./mvnw -Paot,cds -DskipTests package" >&2
+  exit 1
+fi
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'; }
+
+# Jedno uruchomienie: "czas_startu_ms rss_mb"
+measure() {
+  local dir=$1 command=$2
+  local start pid ready rss
+  start=$(now_ms)
+  (cd "$dir" && exec $command "${APP_ARGS[@]}") > "$WORK/app.log" 2>&1 &
+  pid=$!
+  until curl -sf -o /dev/null "http://localhost:$PORT/actuator/health"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Proces zakończył się przed startem, log: " >&2
+      tail -20 "$WORK/app.log" >&2
+      return 1
+    fi
+    sleep 0.01
+  done
+  ready=$(now_ms)
+  rss=$(awk '/VmRSS/ { print int($2 / 1024) }' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$(( ready - start )) $rss"
+}
+
+printf "%-20s %14s %14s %10s\n" "wariant" "start [ms]" "min [ms]" "RSS [MB]"
+for i in "${!NAMES[@]}"; do
+  : > "$WORK/results"
+  for (( run = 0; run < RUNS; run++ )); do
+    measure "${DIRS[$i]}" "${COMMANDS[$i]}" >> "$WORK/results"
+  done
+  printf "%-20s %14s %14s %10s\n" "${NAMES[$i]}" \
+    "$(cut -d' ' -f1 "$WORK/results" | median)" \
+    "$(cut -d' ' -f1 "$WORK/results" | sort -n | head -1)" \
+    "$(cut -d' ' -f2 "$WORK/results" | median)"
+done
@@ -0,0 +1,86 @@
+package com.example.weatherbackend.benchmark;
+
+import com.example.weatherbackend.model.WeatherResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+// Realistyczne odpowiedzi Open-Meteo: 7-16 dni, 24 wartości godzinowe na dzień
+public final class OpenMeteoFixtures {
+
+    private static final LocalDate START = LocalDate.of(2024, 11, 20);
+
+    private OpenMeteoFixtures() {
+    }
+
+    public static byte[] json(int days) {
+        Random random = new Random(days);
+        int hours = days * 24;
+        StringBuilder json = new StringBuilder(16 * 1024);
+        json.append("{\"latitude\":52.23,\"longitude\":21.01,\"generationtime_ms\":0.0889,\"utc_offset_seconds\":3600,")
+                .append("\"timezone\":\"Europe/Warsaw\",\"timezone_abbreviation\":\"CET\",\"elevation\":113.0,")
+                .append("\"daily_units\":{\"time\":\"iso8601\",\"weather_code\":\"wmo code\",\"temperature_2m_min\":\"°C\",")
+                .append("\"temperature_2m_max\":\"°C\",\"sunshine_duration\":\"s\",\"rain_sum\":\"mm\"},\"daily\":{");
+        appendColumn(json, "time", days, i -> "\"" + START.plusDays(i) + "\"");
+        json.append(',');
+        appendColumn(json, "weather_code", days, i -> Integer.toString(random.nextInt(100)));
+        json.append(',');
+        appendColumn(json, "temperature_2m_min", days, i -> decimal(-5 + random.nextDouble() * 10));
+        json.append(',');
+        appendColumn(json, "temperature_2m_max", days, i -> decimal(5 + random.nextDouble() * 15));
+        json.append(',');
+        appendColumn(json, "sunshine_duration", days, i -> decimal(random.nextDouble() * 40000));
+        json.append(',');
+        appendColumn(json, "rain_sum", days, i -> decimal(random.nextDouble() < 0.5 ? 0 : random.nextDouble() * 10));
+        json.append("},\"hourly_units\":{\"time\":\"iso8601\",\"surface_pressure\":\"hPa\"},\"hourly\":{");
+        appendColumn(json, "time", hours, i -> "\"" + START.atStartOfDay().plusHours(i).toString() + "\"");
+        json.append(',');
+        appendColumn(json, "surface_pressure", hours, i -> decimal(990 + random.nextDouble() * 40));
+        json.append("}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static WeatherResponse response(int days) {
+        Random random = new Random(days);
+        int hours = days * 24;
+        String[] time = new String[days];
+        int[] weatherCode = new int[days];
+        double[] temperatureMin = new double[days];
+        double[] temperatureMax = new double[days];
+        double[] sunshineDuration = new double[days];
+        double[] rainSum = new double[days];
+        for (int i = 0; i < days; i++) {
+            time[i] = START.plusDays(i).toString();
+            weatherCode[i] = random.nextInt(100);
+            temperatureMin[i] = -5 + random.nextDouble() * 10;
+            temperatureMax[i] = 5 + random.nextDouble() * 15;
+            sunshineDuration[i] = random.nextDouble() * 40000;
+            rainSum[i] = random.nextDouble() < 0.5 ? 0 : random.nextDouble() * 10;
+        }
+        double[] surfacePressure = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            surfacePressure[i] = 990 + random.nextDouble() * 40;
+        }
+        return new WeatherResponse(
+                new WeatherResponse.Daily(time, weatherCode, temperatureMin, temperatureMax, sunshineDuration, rainSum),
+                new WeatherResponse.Hourly(surfacePressure));
+    }
+
+    private static void appendColumn(StringBuilder json, String name, int size, IntFunction<String> value) {
+        json.append('"').append(name).append("\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(value.apply(i));
+        }
+        json.append(']');
+    }
+
+    private static String decimal(double value) {
+        return String.format(Locale.ROOT, "%.1f", value);
+    }
+}
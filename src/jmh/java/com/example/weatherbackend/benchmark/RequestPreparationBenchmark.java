@@ -0,0 +1,92 @@
+package com.example.weatherbackend.benchmark;
+
+import com.example.weatherbackend.client.OpenMeteoUrlBuilder;
+import com.example.weatherbackend.exceptions.InvalidInputException;
+import com.example.weatherbackend.validation.CoordinateValidator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.util.concurrent.TimeUnit;
+
+// Część żądania bez I/O: parsowanie i walidacja współrzędnych oraz budowa URL-a do Open-Meteo
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestPreparationBenchmark {
+
+    private static final String BASE_URL = "https://api.open-meteo.com/v1/forecast";
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+
+    private CoordinateValidator coordinateValidator;
+    private OpenMeteoUrlBuilder urlBuilder;
+    private DefaultUriBuilderFactory uriBuilderFactory;
+    private String latitude;
+    private String longitude;
+
+    @Setup
+    public void setUp() {
+        coordinateValidator = new CoordinateValidator();
+        urlBuilder = new OpenMeteoUrlBuilder(BASE_URL, DAILY, "surface_pressure", "auto");
+        uriBuilderFactory = new DefaultUriBuilderFactory();
+        latitude = "52.2298";
+        longitude = "21.0118";
+    }
+
+    @Benchmark
+    public double parseAndValidateCoordinate() {
+        return coordinateValidator.parseAndValidateCoordinate(latitude, "Szerokość geograficzna", -90.0, 90.0)
+                + coordinateValidator.parseAndValidateCoordinate(longitude, "Długość geograficzna", -180.0, 180.0);
+    }
+
+    @Benchmark
+    public Object parseAndValidateCoordinate_outOfRange() {
+        try {
+            return coordinateValidator.parseAndValidateCoordinate("190.0", "Długość geograficzna", -180.0, 180.0);
+        } catch (InvalidInputException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public double parseLatitudeLongitude() {
+        return coordinateValidator.parseLatitude(latitude) + coordinateValidator.parseLongitude(longitude);
+    }
+
+    @Benchmark
+    public Object parseLongitude_outOfRange() {
+        try {
+            return coordinateValidator.parseLongitude("190.0");
+        } catch (InvalidInputException e) {
+            return e;
+        }
+    }
+
+    // Dotychczasowa budowa URL-a w OpenMeteoApiClient - punkt odniesienia
+    @Benchmark
+    public String buildUrl_stringFormat() {
+        String string_latitude = String.format("%.6f", 52.2298).replace(",", ".");
+        String string_longitude = String.format("%.6f", 21.0118).replace(",", ".");
+        return String.format(
+                "%s?latitude=%s&longitude=%s&daily=%s&hourly=%s&timezone=%s",
+                BASE_URL, string_latitude, string_longitude, DAILY, "surface_pressure", "auto");
+    }
+
+    // Tak RestTemplate zamieniał String na URI (DefaultUriBuilderFactory) przed tą zmianą
+    @Benchmark
+    public Object buildUri_stringFormatWithTemplateExpansion() {
+        return uriBuilderFactory.expand(buildUrl_stringFormat());
+    }
+
+    @Benchmark
+    public String buildUrl() {
+        return urlBuilder.buildString(52.2298, 21.0118, DAILY, "surface_pressure", "auto");
+    }
+
+    @Benchmark
+    public Object buildUri() {
+        return urlBuilder.build(52.2298, 21.0118, DAILY, "surface_pressure", "auto");
+    }
+}
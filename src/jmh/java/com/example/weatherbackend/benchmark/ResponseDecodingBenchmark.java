@@ -0,0 +1,80 @@
+package com.example.weatherbackend.benchmark;
+
+import com.example.weatherbackend.client.OpenMeteoResponseDecoder;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Dekodowanie strumieniowe do tablic prymitywów vs dotychczasowe wiązanie Jacksona do List<Double>.
+// Alokacje: -Djmh.args="ResponseDecoding -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseDecodingBenchmark {
+
+    // Kształt WeatherResponse sprzed zmiany - tak deserializował RestTemplate.getForObject(..., WeatherResponse.class)
+    public record BoxedWeatherResponse(BoxedDaily daily, BoxedHourly hourly) {
+    }
+
+    public record BoxedDaily(List<String> time, List<Integer> weather_code, List<Double> temperature_2m_min,
+                             List<Double> temperature_2m_max, List<Double> sunshine_duration, List<Double> rain_sum) {
+    }
+
+    public record BoxedHourly(List<Double> surface_pressure) {
+    }
+
+    @Param({"7", "16"})
+    private int days;
+
+    private byte[] payload;
+    private ObjectMapper objectMapper;
+    private OpenMeteoResponseDecoder decoder;
+
+    @Setup
+    public void setUp() {
+        payload = OpenMeteoFixtures.json(days);
+        // Tak jak w MappingJackson2HttpMessageConverter używanym przez RestTemplate
+        objectMapper = new ObjectMapper().disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        decoder = new OpenMeteoResponseDecoder();
+    }
+
+    @Benchmark
+    public void boxedDatabind(Blackhole blackhole) throws IOException {
+        BoxedWeatherResponse response = objectMapper.readValue(new ByteArrayInputStream(payload), BoxedWeatherResponse.class);
+        // Średnia ciśnienia liczona tak jak wcześniej w processWeeklyData
+        blackhole.consume(response.hourly().surface_pressure().stream().mapToDouble(Double::doubleValue).average().orElse(0.0));
+        blackhole.consume(response);
+    }
+
+    @Benchmark
+    public void primitiveDatabind(Blackhole blackhole) throws IOException {
+        WeatherResponse response = objectMapper.readValue(new ByteArrayInputStream(payload), WeatherResponse.class);
+        blackhole.consume(average(response.hourly().surface_pressure()));
+        blackhole.consume(response);
+    }
+
+    @Benchmark
+    public void streamingDecoder(Blackhole blackhole) throws IOException {
+        WeatherResponse response = decoder.decode(new ByteArrayInputStream(payload));
+        blackhole.consume(average(response.hourly().surface_pressure()));
+        blackhole.consume(response);
+    }
+
+    private static double average(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.weatherbackend.benchmark;
+
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.controller.RenderedResponseCache;
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import com.example.weatherbackend.service.WeatherService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Serializacja odpowiedzi kontrolera (Map<String, Object>) tak jak robi to Spring MVC,
+// w porównaniu z odczytem gotowych bajtów z RenderedResponseCache
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"7", "16"})
+    private int days;
+
+    private ObjectMapper objectMapper;
+    private Map<String, Object> forecastResponse;
+    private Map<String, Object> summaryResponse;
+    private RenderedResponseCache renderedResponses;
+    private ForecastKey cell;
+    private WeatherSnapshot cachedResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        WeatherService weatherService = new WeatherService();
+        WeatherResponse response = OpenMeteoFixtures.response(days);
+
+        forecastResponse = new HashMap<>();
+        forecastResponse.put("days", weatherService.processWeatherData(response, 52.23, 21.01, PanelParameters.DEFAULT));
+        forecastResponse.put("daily_units", weatherService.getDailyUnits());
+
+        summaryResponse = new HashMap<>();
+        summaryResponse.put("weekly_summary", weatherService.processWeeklyData(response));
+        summaryResponse.put("weekly_summary_units", weatherService.getWeeklySummaryUnits());
+
+        renderedResponses = new RenderedResponseCache(objectMapper, DataSize.ofMegabytes(16));
+        cell = new ForecastKey(52.23, 21.01, "weather_code", "surface_pressure", "auto");
+        cachedResponse = new WeatherSnapshot(response, Instant.now());
+        renderedResponses.render("forecast", cell, cachedResponse, () -> forecastResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeForecast() throws Exception {
+        return objectMapper.writeValueAsBytes(forecastResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeWeeklySummary() throws Exception {
+        return objectMapper.writeValueAsBytes(summaryResponse);
+    }
+
+    @Benchmark
+    public byte[] renderedForecast() {
+        return renderedResponses.render("forecast", cell, cachedResponse, () -> forecastResponse).json();
+    }
+}
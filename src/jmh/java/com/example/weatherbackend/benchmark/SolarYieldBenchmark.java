@@ -0,0 +1,82 @@
+package com.example.weatherbackend.benchmark;
+
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.service.SolarYieldEngine;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Uzysk PV dla paczki instalacji z 7 dniami danych godzinowych; wynik w dniach-instalacjach na sekundę
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class SolarYieldBenchmark {
+
+    private static final int SITES = 2000;
+    private static final int DAYS = 7;
+
+    @Param({"scalar", "vector"})
+    private String kernel;
+
+    private SolarYieldEngine engine;
+    private List<SolarYieldEngine.Site> sites;
+
+    @Setup
+    public void setUp() {
+        engine = new SolarYieldEngine("vector".equals(kernel));
+        if ("vector".equals(kernel) && !engine.kernel().startsWith("vector")) {
+            throw new IllegalStateException("Vector API niedostępne: " + engine.kernel());
+        }
+        Random random = new Random(SITES);
+        // Instalacje w Polsce - jedna strefa czasowa, więc wspólna oś czasu
+        Instant start = Instant.parse("2024-06-16T22:00:00Z");
+        sites = new ArrayList<>(SITES);
+        for (int i = 0; i < SITES; i++) {
+            PanelParameters panel = new PanelParameters(2 + random.nextInt(9), 15 + random.nextInt(30),
+                    135 + random.nextInt(90), 0.8 + random.nextDouble() * 0.1, -0.004);
+            sites.add(new SolarYieldEngine.Site(49 + random.nextDouble() * 5.8, 14.1 + random.nextDouble() * 10,
+                    panel, hourly(random, start)));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES * DAYS)
+    public List<double[]> batch() {
+        return engine.dailyEnergy(sites);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SITES * DAYS)
+    public double sequential() {
+        double total = 0;
+        for (SolarYieldEngine.Site site : sites) {
+            total += engine.dailyEnergy(site)[0];
+        }
+        return total;
+    }
+
+    private static WeatherResponse.Hourly hourly(Random random, Instant start) {
+        int hours = DAYS * 24;
+        double[] pressure = new double[hours];
+        double[] shortwave = new double[hours];
+        double[] diffuse = new double[hours];
+        double[] temperature = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            int hour = i % 24;
+            double daylight = Math.max(0, Math.sin(Math.PI * (hour - 4) / 17));
+            pressure[i] = 990 + random.nextDouble() * 40;
+            shortwave[i] = daylight * (300 + random.nextDouble() * 600);
+            diffuse[i] = shortwave[i] * (0.2 + random.nextDouble() * 0.6);
+            temperature[i] = 12 + daylight * 12 + random.nextDouble() * 3;
+        }
+        return new WeatherResponse.Hourly(pressure, shortwave, diffuse, temperature, start);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.weatherbackend.benchmark;
+
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.service.WeatherService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Obliczenia prognozy i podsumowania na odpowiedziach 7-16 dni (168-384 wartości godzinowe)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WeatherServiceBenchmark {
+
+    private static final double LATITUDE = 52.23;
+    private static final double LONGITUDE = 21.01;
+
+    @Param({"7", "16"})
+    private int days;
+
+    private WeatherService weatherService;
+    private WeatherResponse response;
+    private double value;
+
+    @Setup
+    public void setUp() {
+        weatherService = new WeatherService();
+        response = OpenMeteoFixtures.response(days);
+        value = 2.5 * (36123.0 / 3600) * 0.2;
+    }
+
+    // Odpowiedź bez promieniowania godzinowego - energia z dziennego usłonecznienia (SolarYieldBenchmark mierzy ścieżkę godzinową)
+    @Benchmark
+    public Object processWeatherData() {
+        return weatherService.processWeatherData(response, LATITUDE, LONGITUDE, PanelParameters.DEFAULT);
+    }
+
+    @Benchmark
+    public Object processWeeklyData() {
+        return weatherService.processWeeklyData(response);
+    }
+
+    @Benchmark
+    public double round() {
+        return WeatherService.round(value, 3);
+    }
+}
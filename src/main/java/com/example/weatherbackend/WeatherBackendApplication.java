@@ -1,10 +1,13 @@
 package com.example.weatherbackend;
 
+import com.example.weatherbackend.config.WeatherRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(WeatherRuntimeHints.class)
 public class WeatherBackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,123 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.Closeable;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.concurrent.locks.LockSupport;
+
+// Co interval odświeża najpopularniejsze komórki, których wpis zniknął lub przekroczy soft TTL przed kolejnym uruchomieniem.
+// Zapytania są rozłożone równo w czasie i nie przekraczają max-requests-per-minute. Cykl działa na własnym wątku
+// (start()), bo odstępy między zapytaniami blokowałyby współdzielony TaskScheduler.
+public class CacheWarmer implements Closeable {
+
+    private final HotCellTracker hotCellTracker;
+    private final ForecastCache forecastCache;
+    private final CachingWeatherApiClient cachingClient;
+    private final Duration softTtl;
+    private final Duration interval;
+    private final int topK;
+    private final int maxRequestsPerRun;
+    private final long pauseNanos;
+    private final LongConsumer pause;
+    private final Clock clock;
+    private final Counter refreshes;
+    private final Counter failures;
+    private ScheduledExecutorService scheduler;
+
+    public CacheWarmer(HotCellTracker hotCellTracker, ForecastCache forecastCache, CachingWeatherApiClient cachingClient,
+                       Duration softTtl, Duration interval, int topK, int maxRequestsPerMinute,
+                       Clock clock, MeterRegistry meterRegistry) {
+        this(hotCellTracker, forecastCache, cachingClient, softTtl, interval, topK, maxRequestsPerMinute,
+                LockSupport::parkNanos, clock, meterRegistry);
+    }
+
+    // pause czeka podaną liczbę nanosekund między zapytaniami - w testach bez czekania
+    public CacheWarmer(HotCellTracker hotCellTracker, ForecastCache forecastCache, CachingWeatherApiClient cachingClient,
+                       Duration softTtl, Duration interval, int topK, int maxRequestsPerMinute,
+                       LongConsumer pause, Clock clock, MeterRegistry meterRegistry) {
+        if (maxRequestsPerMinute <= 0) {
+            throw new IllegalArgumentException("open-meteo.prewarm.max-requests-per-minute musi być dodatnie.");
+        }
+        this.hotCellTracker = hotCellTracker;
+        this.forecastCache = forecastCache;
+        this.cachingClient = cachingClient;
+        this.softTtl = softTtl;
+        this.interval = interval;
+        this.topK = topK;
+        this.maxRequestsPerRun = (int) Math.max(1, maxRequestsPerMinute * interval.toSeconds() / 60);
+        this.pauseNanos = TimeUnit.MINUTES.toNanos(1) / maxRequestsPerMinute;
+        this.pause = pause;
+        this.clock = clock;
+        this.refreshes = Counter.builder("forecast.prewarm.refreshes")
+                .tag("outcome", "success")
+                .description("Komórki odświeżone przed wygaśnięciem")
+                .register(meterRegistry);
+        // Do alertów: rośnie, gdy Open-Meteo odrzuca odświeżenia albo cykl przerwał nieoczekiwany błąd
+        this.failures = Counter.builder("forecast.prewarm.refreshes")
+                .tag("outcome", "error")
+                .description("Nieudane odświeżenia i przerwane cykle odświeżania")
+                .register(meterRegistry);
+    }
+
+    // Pierwszy cykl po interval, kolejne interval po zakończeniu poprzedniego
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("cache-warmer").factory());
+        scheduler.scheduleWithFixedDelay(this::run, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    // Wyjątek z zadania cyklicznego zatrzymałby kolejne cykle
+    private void run() {
+        try {
+            warm();
+        } catch (RuntimeException e) {
+            failures.increment();
+        }
+    }
+
+    // Zwraca liczbę odświeżonych komórek
+    public int warm() {
+        Instant deadline = clock.instant().plus(interval);
+        int refreshed = 0;
+        for (ForecastKey key : hotCellTracker.hottest(topK)) {
+            if (refreshed >= maxRequestsPerRun) {
+                break;
+            }
+            if (!needsRefresh(forecastCache.peek(key), deadline)) {
+                continue;
+            }
+            if (refreshed > 0) {
+                pause.accept(pauseNanos);
+            }
+            try {
+                cachingClient.refresh(key);
+                refreshes.increment();
+                refreshed++;
+            } catch (RuntimeException e) {
+                // Open-Meteo nie odpowiada - nie dokładamy mu zapytań, spróbujemy w kolejnym cyklu
+                failures.increment();
+                break;
+            }
+        }
+        return refreshed;
+    }
+
+    private boolean needsRefresh(WeatherSnapshot cached, Instant deadline) {
+        return cached == null || cached.fetchedAt() == null || !cached.fetchedAt().plus(softTtl).isAfter(deadline);
+    }
+}
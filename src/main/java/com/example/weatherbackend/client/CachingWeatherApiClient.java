@@ -0,0 +1,144 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+public class CachingWeatherApiClient implements WeatherApiClient {
+
+    private final WeatherApiClient delegate;
+    private final ForecastCache forecastCache;
+    private final Duration softTtl;
+    private final Executor refreshExecutor;
+    private final Clock clock;
+    private final Set<ForecastKey> refreshing = ConcurrentHashMap.newKeySet();
+
+    // Bez soft TTL wpisy są zwracane aż do wygaśnięcia w ForecastCache
+    public CachingWeatherApiClient(WeatherApiClient delegate, ForecastCache forecastCache) {
+        this(delegate, forecastCache, null, null, Clock.systemUTC());
+    }
+
+    // Po soft TTL wpis jest nadal zwracany, a nowe dane pobierane w tle na refreshExecutor. Wiek danych klient widzi
+    // w nagłówku Age (fetchedAt).
+    // Jeśli Open-Meteo nie odpowiada, stary wpis zostaje w cache do twardego TTL z ForecastCache.
+    public CachingWeatherApiClient(WeatherApiClient delegate, ForecastCache forecastCache,
+                                   Duration softTtl, Executor refreshExecutor, Clock clock) {
+        this.delegate = delegate;
+        this.forecastCache = forecastCache;
+        this.softTtl = softTtl;
+        this.refreshExecutor = refreshExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        ForecastKey key = forecastCache.keyFor(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+        WeatherSnapshot cached = forecastCache.get(key);
+        if (cached != null) {
+            return revalidate(key, cached);
+        }
+        return fetch(key);
+    }
+
+    // Zakresy dat omijają cache komórek - wpis dotyczy zawsze domyślnego okna prognozy
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        return delegate.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone);
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        List<ForecastKey> keys = new ArrayList<>(locations.size());
+        Map<ForecastKey, WeatherSnapshot> found = new HashMap<>();
+        Map<ForecastKey, Coordinates> missing = new LinkedHashMap<>(); // jedna komórka pobierana tylko raz
+        for (Coordinates location : locations) {
+            ForecastKey key = forecastCache.keyFor(location.latitude(), location.longitude(), dailyParameters, hourlyParameters, timezone);
+            keys.add(key);
+            if (found.containsKey(key) || missing.containsKey(key)) {
+                continue;
+            }
+            WeatherSnapshot cached = forecastCache.get(key);
+            if (cached != null) {
+                found.put(key, revalidate(key, cached));
+            } else {
+                missing.put(key, new Coordinates(key.latitude(), key.longitude()));
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            List<WeatherSnapshot> fetched = delegate.getWeatherDataBatch(new ArrayList<>(missing.values()), dailyParameters, hourlyParameters, timezone);
+            int i = 0;
+            for (ForecastKey key : missing.keySet()) {
+                WeatherSnapshot response = stamped(fetched.get(i++));
+                forecastCache.put(key, response);
+                found.put(key, response);
+            }
+        }
+
+        List<WeatherSnapshot> responses = new ArrayList<>(keys.size());
+        for (ForecastKey key : keys) {
+            responses.add(found.get(key));
+        }
+        return responses;
+    }
+
+    // Pobiera komórkę z pominięciem cache i zapisuje wynik - dla odświeżania w tle i CacheWarmer
+    public WeatherSnapshot refresh(ForecastKey key) {
+        return fetch(key);
+    }
+
+    // Pobieramy dane dla środka komórki, więc każda lokalizacja w komórce dostaje tę samą odpowiedź
+    private WeatherSnapshot fetch(ForecastKey key) {
+        WeatherSnapshot response = delegate.getWeatherData(key.latitude(), key.longitude(),
+                key.dailyParameters(), key.hourlyParameters(), key.timezone());
+        response = stamped(response);
+        forecastCache.put(key, response);
+        return response;
+    }
+
+    // Dane z L2 lub pliku zachowują czas pobrania z Open-Meteo - wiek i TTL są wtedy takie same na wszystkich replikach
+    private WeatherSnapshot stamped(WeatherSnapshot response) {
+        return response.fetchedAt() != null ? response : response.withFetchedAt(clock.instant());
+    }
+
+    private WeatherSnapshot revalidate(ForecastKey key, WeatherSnapshot cached) {
+        if (softTtl == null || cached.fetchedAt() == null
+                || cached.fetchedAt().plus(softTtl).isAfter(clock.instant())) {
+            return cached;
+        }
+        // Jedno odświeżenie na klucz naraz; błąd odświeżenia zostawia stary wpis w cache
+        if (refreshing.add(key)) {
+            try {
+                refreshExecutor.execute(() -> {
+                    try {
+                        fetch(key);
+                    } catch (RuntimeException e) {
+                        // Open-Meteo niedostępne - kolejne żądanie spróbuje ponownie
+                    } finally {
+                        refreshing.remove(key);
+                    }
+                });
+            } catch (RuntimeException e) {
+                refreshing.remove(key);
+            }
+        }
+        return cached;
+    }
+
+    public int refreshingCount() {
+        return refreshing.size();
+    }
+}
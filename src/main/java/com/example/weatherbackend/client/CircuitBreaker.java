@@ -0,0 +1,178 @@
+package com.example.weatherbackend.client;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+// Bezpiecznik na oknie ostatnich windowSize wywołań. Otwiera się, gdy odsetek błędów lub wolnych wywołań
+// przekroczy próg (po co najmniej minimumCalls wywołaniach). Po openDuration przepuszcza halfOpenCalls
+// zapytań próbnych: wszystkie udane zamykają obwód, pierwszy błąd otwiera go ponownie.
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final byte[] window;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoTime;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private volatile State state = State.CLOSED;
+    private int position;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private long openedAt;
+    private int probesStarted;
+    private int probesSucceeded;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold,
+                          Duration slowCallDuration, Duration openDuration, int halfOpenCalls, LongSupplier nanoTime) {
+        if (windowSize <= 0 || minimumCalls <= 0 || minimumCalls > windowSize || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("Wymagane 0 < minimum-calls <= window-size i half-open-calls > 0.");
+        }
+        this.window = new byte[windowSize];
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallDuration.toNanos();
+        this.openNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.nanoTime = nanoTime;
+    }
+
+    // Zamknięty obwód to jeden odczyt volatile; otwarty odrzuca bez żadnego I/O
+    public boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                if (nanoTime.getAsLong() - openedAt < openNanos) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probesStarted = 0;
+                probesSucceeded = 0;
+            }
+            if (state == State.HALF_OPEN) {
+                if (probesStarted >= halfOpenCalls) {
+                    return false;
+                }
+                probesStarted++;
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess(long durationNanos) {
+        record(durationNanos > slowCallNanos ? SLOW : SUCCESS);
+    }
+
+    public void onError() {
+        record(FAILURE);
+    }
+
+    // Wywołanie odrzucone lokalnie - zwalnia miejsce próbne, nie wpływa na statystyki
+    public void onIgnored() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probesStarted > 0) {
+                probesStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public State state() {
+        return state;
+    }
+
+    // Czas do przejścia w stan półotwarty - dla Retry-After
+    public Duration remainingOpenDuration() {
+        lock.lock();
+        try {
+            if (state != State.OPEN) {
+                return Duration.ZERO;
+            }
+            return Duration.ofNanos(Math.max(0, openNanos - (nanoTime.getAsLong() - openedAt)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(byte outcome) {
+        lock.lock();
+        try {
+            switch (state) {
+                case HALF_OPEN -> {
+                    if (outcome == SUCCESS) {
+                        if (++probesSucceeded >= halfOpenCalls) {
+                            close();
+                        }
+                    } else {
+                        open();
+                    }
+                }
+                case CLOSED -> {
+                    if (recorded == window.length) {
+                        forget(window[position]);
+                    } else {
+                        recorded++;
+                    }
+                    window[position] = outcome;
+                    position = (position + 1) % window.length;
+                    if (outcome == FAILURE) {
+                        failures++;
+                    } else if (outcome == SLOW) {
+                        slowCalls++;
+                    }
+                    if (recorded >= minimumCalls
+                            && (failures >= failureRateThreshold * recorded || slowCalls >= slowCallRateThreshold * recorded)) {
+                        open();
+                    }
+                }
+                case OPEN -> {
+                    // Wyniki wywołań rozpoczętych przed otwarciem obwodu
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            failures--;
+        } else if (outcome == SLOW) {
+            slowCalls--;
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = nanoTime.getAsLong();
+    }
+
+    private void close() {
+        position = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+        state = State.CLOSED;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.exceptions.RequestThrottledException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Bezpiecznik przed Open-Meteo oraz osobne bulkheady dla zapytań pojedynczych i zbiorczych,
+// żeby wolne paczki z /batch-forecast nie zajęły wszystkich połączeń potrzebnych pojedynczym prognozom.
+// Przy otwartym obwodzie lub pełnym bulkheadzie zapytanie od razu kończy się RequestThrottledException (503).
+public class CircuitBreakerWeatherApiClient implements WeatherApiClient {
+
+    private static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final WeatherApiClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore singleBulkhead;
+    private final Semaphore batchBulkhead;
+    private final Counter circuitRejected;
+    private final Counter singleRejected;
+    private final Counter batchRejected;
+
+    public CircuitBreakerWeatherApiClient(WeatherApiClient delegate, CircuitBreaker circuitBreaker,
+                                          int singleMaxConcurrent, int batchMaxConcurrent, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.singleBulkhead = new Semaphore(singleMaxConcurrent);
+        this.batchBulkhead = new Semaphore(batchMaxConcurrent);
+        this.circuitRejected = meterRegistry.counter("open-meteo.api.throttled", "reason", "circuit_open");
+        this.singleRejected = meterRegistry.counter("open-meteo.api.throttled", "reason", "bulkhead_single");
+        this.batchRejected = meterRegistry.counter("open-meteo.api.throttled", "reason", "bulkhead_batch");
+        // 0 - zamknięty, 1 - otwarty, 2 - półotwarty
+        Gauge.builder("open-meteo.api.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Stan bezpiecznika przed Open-Meteo")
+                .register(meterRegistry);
+        Gauge.builder("open-meteo.api.bulkhead.available", singleBulkhead, Semaphore::availablePermits)
+                .tag("bulkhead", "single")
+                .register(meterRegistry);
+        Gauge.builder("open-meteo.api.bulkhead.available", batchBulkhead, Semaphore::availablePermits)
+                .tag("bulkhead", "batch")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        return call(singleBulkhead, singleRejected,
+                () -> delegate.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone));
+    }
+
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        return call(singleBulkhead, singleRejected,
+                () -> delegate.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone));
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        return call(batchBulkhead, batchRejected,
+                () -> delegate.getWeatherDataBatch(locations, dailyParameters, hourlyParameters, timezone));
+    }
+
+    private <T> T call(Semaphore bulkhead, Counter bulkheadRejected, Supplier<T> call) {
+        if (!bulkhead.tryAcquire()) {
+            bulkheadRejected.increment();
+            throw new RequestThrottledException("Zbyt wiele równoległych zapytań do API Open-Meteo.", BULKHEAD_RETRY_AFTER);
+        }
+        try {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                circuitRejected.increment();
+                throw new RequestThrottledException("API Open-Meteo jest chwilowo niedostępne.",
+                        circuitBreaker.remainingOpenDuration());
+            }
+            long start = System.nanoTime();
+            boolean success = false;
+            boolean ignored = false;
+            try {
+                T result = call.get();
+                success = true;
+                return result;
+            } catch (RequestThrottledException e) {
+                // Odrzucone przez limity poniżej - Open-Meteo nie miało szansy odpowiedzieć
+                ignored = true;
+                throw e;
+            } finally {
+                // W finally, żeby także Error zwolnił miejsce próbne w stanie półotwartym
+                if (success) {
+                    circuitBreaker.onSuccess(System.nanoTime() - start);
+                } else if (ignored) {
+                    circuitBreaker.onIgnored();
+                } else {
+                    circuitBreaker.onError();
+                }
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.weatherbackend.client;
+
+// Zapis współrzędnej z 6 miejscami po przecinku bez String.format (niezależny od Locale)
+public final class CoordinateFormatter {
+
+    private static final long SCALE = 1_000_000L;
+
+    private CoordinateFormatter() {
+    }
+
+    public static StringBuilder appendFixed6(StringBuilder target, double value) {
+        long micros = Math.round(value * SCALE);
+        if (micros < 0) {
+            target.append('-');
+            micros = -micros;
+        }
+        target.append(micros / SCALE).append('.');
+        long fraction = micros % SCALE;
+        // Uzupełnienie zerami do 6 cyfr
+        for (long digit = SCALE / 10; digit > fraction && digit > 1; digit /= 10) {
+            target.append('0');
+        }
+        return target.append(fraction);
+    }
+
+    public static String formatFixed6(double value) {
+        return appendFixed6(new StringBuilder(12), value).toString();
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+public class ForecastCache implements MeterBinder {
+
+    private static final int INDEX_BUCKET_CELLS = 8; // kubełek indeksu: 8 x 8 komórek siatki
+
+    private final double gridSize;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Cache<ForecastKey, WeatherSnapshot> cache;
+    private final ForecastPointIndex index;
+
+    @Autowired
+    public ForecastCache(@Value("${open-meteo.cache.grid-size}") double gridSize,
+                         @Value("${open-meteo.cache.ttl}") Duration ttl,
+                         @Value("${open-meteo.cache.max-entries}") long maxEntries,
+                         @Value("${open-meteo.cache.max-weight}") long maxWeight) {
+        this(gridSize, ttl, maxEntries, maxWeight, Clock.systemUTC());
+    }
+
+    // clock wyznacza wiek wpisu przy wstawianiu - ten sam co w warstwach ustawiających fetchedAt
+    public ForecastCache(double gridSize, Duration ttl, long maxEntries, long maxWeight, Clock clock) {
+        if (gridSize <= 0) {
+            throw new IllegalArgumentException("open-meteo.cache.grid-size musi być dodatnie.");
+        }
+        this.gridSize = gridSize;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.index = new ForecastPointIndex(gridSize * INDEX_BUCKET_CELLS);
+
+        // Wpis wygasa ttl po pobraniu z Open-Meteo (fetchedAt), także gdy trafił do cache z ForecastStore
+        Caffeine<ForecastKey, WeatherSnapshot> builder = Caffeine.newBuilder()
+                .expireAfter(new Expiry<ForecastKey, WeatherSnapshot>() {
+                    @Override
+                    public long expireAfterCreate(ForecastKey key, WeatherSnapshot response, long currentTime) {
+                        return remainingNanos(response);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(ForecastKey key, WeatherSnapshot response, long currentTime, long currentDuration) {
+                        return remainingNanos(response);
+                    }
+
+                    @Override
+                    public long expireAfterRead(ForecastKey key, WeatherSnapshot response, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                // Wygaśnięcie i wyparcie usuwają komórkę z indeksu przestrzennego synchronicznie
+                .evictionListener((ForecastKey key, WeatherSnapshot response, RemovalCause cause) -> index.remove(key))
+                .recordStats();
+        // max-weight (liczba wartości w odpowiedzi) ma pierwszeństwo przed max-entries
+        if (maxWeight > 0) {
+            builder.maximumWeight(maxWeight)
+                    .weigher((ForecastKey key, WeatherSnapshot response) -> weigh(response.response()));
+        } else {
+            builder.maximumSize(maxEntries);
+        }
+        this.cache = builder.build();
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    // Przyciąga współrzędne do środka komórki siatki, żeby bliskie lokalizacje dzieliły wpis
+    public ForecastKey keyFor(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        return new ForecastKey(snap(latitude), snap(longitude), dailyParameters, hourlyParameters, timezone);
+    }
+
+    public WeatherSnapshot get(ForecastKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    // Odczyt bez wpływu na statystyki trafień i kolejność usuwania - dla zadań w tle
+    public WeatherSnapshot peek(ForecastKey key) {
+        return cache.policy().getIfPresentQuietly(key);
+    }
+
+    // Cache i indeks przestrzenny nie są aktualizowane atomowo: usunięcie z indeksu przez evictionListener może
+    // nastąpić po index.add z ponownego put tego samego klucza. Rozjazd jest nieszkodliwy - komórka bez wpisu
+    // w indeksie nie bierze udziału w interpolacji do kolejnego put, a klucz bez wpisu w cache pomija cellsWithin
+    public void put(ForecastKey key, WeatherSnapshot response) {
+        cache.put(key, response);
+        index.add(key);
+    }
+
+    // Nie nadpisuje świeższego wpisu pobranego w międzyczasie
+    public void putIfAbsent(ForecastKey key, WeatherSnapshot response) {
+        cache.asMap().putIfAbsent(key, response);
+        index.add(key);
+    }
+
+    public void invalidate(ForecastKey key) {
+        cache.invalidate(key);
+        index.remove(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        index.clear();
+    }
+
+    public double gridSize() {
+        return gridSize;
+    }
+
+    // Komórki z cache w promieniu radiusMeters od punktu, bez wpływu na statystyki - do obsługi komórek bez własnego wpisu
+    public Map<ForecastKey, WeatherSnapshot> cellsWithin(double latitude, double longitude, double radiusMeters) {
+        List<ForecastKey> keys = new ArrayList<>();
+        index.forEachWithin(latitude, longitude, radiusMeters, keys::add);
+        Map<ForecastKey, WeatherSnapshot> cells = new HashMap<>();
+        for (ForecastKey key : keys) {
+            WeatherSnapshot response = peek(key);
+            if (response != null) {
+                cells.put(key, response);
+            }
+        }
+        return cells;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // Trafienia, chybienia i usunięcia jako cache.gets / cache.evictions z tagiem cache=forecast
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "forecast");
+    }
+
+    private long remainingNanos(WeatherSnapshot response) {
+        if (response.fetchedAt() == null) {
+            return ttl.toNanos();
+        }
+        Duration age = Duration.between(response.fetchedAt(), clock.instant());
+        return Math.max(0, ttl.minus(age).toNanos());
+    }
+
+    private double snap(double value) {
+        return Math.round(value / gridSize) * gridSize;
+    }
+
+    private static int weigh(WeatherResponse response) {
+        int weight = 1;
+        if (response.daily() != null && response.daily().time() != null) {
+            weight += response.daily().time().length * 6;
+        }
+        if (response.hourly() != null) {
+            weight += length(response.hourly().surface_pressure()) + length(response.hourly().shortwave_radiation())
+                    + length(response.hourly().diffuse_radiation()) + length(response.hourly().temperature_2m());
+        }
+        return weight;
+    }
+
+    private static int length(double[] values) {
+        return values != null ? values.length : 0;
+    }
+}
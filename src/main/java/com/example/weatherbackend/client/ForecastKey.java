@@ -0,0 +1,10 @@
+package com.example.weatherbackend.client;
+
+public record ForecastKey(
+        double latitude,
+        double longitude,
+        String dailyParameters,
+        String hourlyParameters,
+        String timezone
+) {
+}
@@ -0,0 +1,139 @@
+package com.example.weatherbackend.client;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Indeks przestrzenny komórek obecnych w ForecastCache: kubełki bucketSize° x bucketSize°, a w kubełku
+// współrzędne w tablicach prymitywnych. Zapytanie o otoczenie przegląda tylko kubełki pokrywające promień
+// i nie tworzy obiektów dla odrzuconych punktów. Indeks jest podpowiedzią - wynik trzeba sprawdzić w cache.
+public class ForecastPointIndex {
+
+    private static final double METERS_PER_DEGREE = 111_320.0;
+
+    private final double bucketSize;
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public ForecastPointIndex(double bucketSize) {
+        if (bucketSize <= 0) {
+            throw new IllegalArgumentException("bucketSize musi być dodatnie.");
+        }
+        this.bucketSize = bucketSize;
+    }
+
+    public void add(ForecastKey key) {
+        buckets.computeIfAbsent(bucketId(key.latitude(), key.longitude()), id -> new Bucket()).add(key);
+    }
+
+    public void remove(ForecastKey key) {
+        long id = bucketId(key.latitude(), key.longitude());
+        Bucket bucket = buckets.get(id);
+        if (bucket != null && bucket.remove(key)) {
+            buckets.remove(id, bucket);
+        }
+    }
+
+    public void clear() {
+        buckets.clear();
+    }
+
+    // Punkty w odległości do radiusMeters od (latitude, longitude), w dowolnej kolejności
+    public void forEachWithin(double latitude, double longitude, double radiusMeters, Consumer<ForecastKey> action) {
+        double cos = Math.cos(Math.toRadians(latitude));
+        double latitudeSpan = radiusMeters / METERS_PER_DEGREE;
+        double longitudeSpan = cos > 1e-6 ? Math.min(180.0, latitudeSpan / cos) : 180.0;
+        long fromRow = (long) Math.floor((latitude - latitudeSpan) / bucketSize);
+        long toRow = (long) Math.floor((latitude + latitudeSpan) / bucketSize);
+        long fromColumn = (long) Math.floor((longitude - longitudeSpan) / bucketSize);
+        long toColumn = (long) Math.floor((longitude + longitudeSpan) / bucketSize);
+        double maxSquared = (radiusMeters / METERS_PER_DEGREE) * (radiusMeters / METERS_PER_DEGREE);
+
+        for (long row = fromRow; row <= toRow; row++) {
+            for (long column = fromColumn; column <= toColumn; column++) {
+                Bucket bucket = buckets.get(bucketId(row, column));
+                if (bucket != null) {
+                    bucket.forEachWithin(latitude, longitude, cos, maxSquared, action);
+                }
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Bucket bucket : buckets.values()) {
+            size += bucket.size();
+        }
+        return size;
+    }
+
+    // Odległość w stopniach szerokości (przybliżenie równoodległościowe - wystarczające dla kilku kilometrów)
+    static double squaredDegrees(double latitude, double longitude, double pointLatitude, double pointLongitude, double cos) {
+        double dLat = pointLatitude - latitude;
+        double dLon = (pointLongitude - longitude) * cos;
+        return dLat * dLat + dLon * dLon;
+    }
+
+    private long bucketId(double latitude, double longitude) {
+        return bucketId((long) Math.floor(latitude / bucketSize), (long) Math.floor(longitude / bucketSize));
+    }
+
+    private static long bucketId(long row, long column) {
+        return (row << 32) ^ (column & 0xFFFFFFFFL);
+    }
+
+    private static final class Bucket {
+        private double[] latitudes = new double[4];
+        private double[] longitudes = new double[4];
+        private ForecastKey[] keys = new ForecastKey[4];
+        private int size;
+
+        synchronized void add(ForecastKey key) {
+            if (indexOf(key) >= 0) {
+                return;
+            }
+            if (size == keys.length) {
+                latitudes = Arrays.copyOf(latitudes, size * 2);
+                longitudes = Arrays.copyOf(longitudes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            latitudes[size] = key.latitude();
+            longitudes[size] = key.longitude();
+            keys[size++] = key;
+        }
+
+        // true, gdy kubełek jest pusty po usunięciu
+        synchronized boolean remove(ForecastKey key) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                size--;
+                latitudes[index] = latitudes[size];
+                longitudes[index] = longitudes[size];
+                keys[index] = keys[size];
+                keys[size] = null;
+            }
+            return size == 0;
+        }
+
+        synchronized void forEachWithin(double latitude, double longitude, double cos, double maxSquared, Consumer<ForecastKey> action) {
+            for (int i = 0; i < size; i++) {
+                if (squaredDegrees(latitude, longitude, latitudes[i], longitudes[i], cos) <= maxSquared) {
+                    action.accept(keys[i]);
+                }
+            }
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int indexOf(ForecastKey key) {
+            for (int i = 0; i < size; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Plik append-only z odpowiedziami Open-Meteo: rekord = [znacznik][długość][CRC32][klucz komórki][WeatherResponseCodec].
+// Nowszy rekord dla tej samej komórki zastępuje starszy; compact() przepisuje plik, zostawiając tylko aktualne wpisy.
+// append() tylko kolejkuje rekord - zapis na dysk wykonuje writeExecutor, poza ścieżką zapytania.
+public class ForecastStore implements Closeable {
+
+    private static final int RECORD_MAGIC = 0x57464331; // "WFC1" - początek rekordu, pozwala odnaleźć kolejny po uszkodzeniu
+    private static final int HEADER_BYTES = 12;
+    private static final int MAX_RECORD_BYTES = 16 * 1024 * 1024;
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 1000;
+    private static final int MAX_PENDING_RECORDS = 10_000;
+
+    private final Path path;
+    private final Duration maxAge;
+    private final Clock clock;
+    private final Executor writeExecutor;
+    // ReentrantLock zamiast synchronized - nie przypina wątków wirtualnych przy zapisie na dysk
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private FileChannel channel; // otwierany przy pierwszym zapisie
+    private long recordCount;
+    private long liveCount;
+    private boolean corrupted; // load() pominął uszkodzone rekordy - compact() je usunie
+
+    // Zapis w wątku wywołującym - dla testów i narzędzi
+    public ForecastStore(Path path, Duration maxAge, Clock clock) {
+        this(path, maxAge, clock, Runnable::run);
+    }
+
+    public ForecastStore(Path path, Duration maxAge, Clock clock, Executor writeExecutor) {
+        this.path = path;
+        this.maxAge = maxAge;
+        this.clock = clock;
+        this.writeExecutor = writeExecutor;
+    }
+
+    // Przy zapchanej kolejce (dysk nie nadąża) rekord jest pomijany - tracimy tylko ciepły start tej komórki
+    public void append(ForecastKey key, WeatherSnapshot response) {
+        byte[] record = encode(key, response);
+        if (pendingCount.incrementAndGet() > MAX_PENDING_RECORDS) {
+            pendingCount.decrementAndGet();
+            return;
+        }
+        pending.add(record);
+        scheduleWrite();
+    }
+
+    public int pendingCount() {
+        return pendingCount.get();
+    }
+
+    // Jeden zapis naraz; rekordy dodane w trakcie zabiera kolejne zadanie
+    private void scheduleWrite() {
+        if (pending.isEmpty() || !writing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            writeExecutor.execute(this::writePending);
+        } catch (RejectedExecutionException e) {
+            writing.set(false); // executor zamknięty - resztę zapisze close()
+        }
+    }
+
+    private void writePending() {
+        lock.lock();
+        try {
+            flush();
+        } catch (IOException e) {
+            // Błąd dysku nie może zatrzymać zapisów - pominięte rekordy to tylko utracony ciepły start
+        } finally {
+            lock.unlock();
+            writing.set(false);
+        }
+        scheduleWrite();
+    }
+
+    // Wywoływane pod lock: zapisuje zakolejkowane rekordy jednym zapisem wektorowym
+    private void flush() throws IOException {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        byte[] record;
+        while ((record = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            buffers.add(ByteBuffer.wrap(record));
+        }
+        if (buffers.isEmpty()) {
+            return;
+        }
+        if (channel == null) {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        ByteBuffer[] batch = buffers.toArray(ByteBuffer[]::new);
+        while (batch[batch.length - 1].hasRemaining()) {
+            channel.write(batch);
+        }
+        recordCount += batch.length;
+    }
+
+    // Najnowszy rekord dla każdej komórki, pomijając starsze niż maxAge. Uszkodzone rekordy są pomijane - odczyt
+    // wznawia się od następnego znacznika rekordu; urwany koniec pliku (np. po awarii) jest odcinany.
+    public Map<ForecastKey, WeatherSnapshot> load() {
+        return load(maxAge);
+    }
+
+    // Najnowszy rekord dla każdej komórki bez względu na wiek - do odtwarzania nagranych odpowiedzi (replay)
+    public Map<ForecastKey, WeatherSnapshot> loadAll() {
+        return load(null);
+    }
+
+    private Map<ForecastKey, WeatherSnapshot> load(Duration maxAge) {
+        lock.lock();
+        try {
+            flush();
+            Map<ForecastKey, WeatherSnapshot> entries = new LinkedHashMap<>();
+            if (!Files.exists(path)) {
+                return entries;
+            }
+            Instant oldest = maxAge != null ? clock.instant().minus(maxAge) : Instant.MIN;
+            long validEnd = 0;
+            long records = 0;
+            boolean gap = false; // pominięte bajty od ostatniego poprawnego rekordu
+            boolean skipped = false; // uszkodzenie przed poprawnym rekordem - zostaje w pliku do compact()
+            try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (in.size() > Integer.MAX_VALUE) {
+                    throw new IOException("Plik " + path + " jest za duży do wczytania.");
+                }
+                ByteBuffer file = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+                int position = 0;
+                while (position + HEADER_BYTES <= file.limit()) {
+                    byte[] payload = readRecord(file, position);
+                    if (payload == null) {
+                        position = nextMarker(file, position + 1);
+                        gap = true;
+                        continue;
+                    }
+                    position += HEADER_BYTES + payload.length;
+                    skipped |= gap;
+                    gap = false;
+                    try {
+                        DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+                        ForecastKey key = new ForecastKey(record.readDouble(), record.readDouble(),
+                                record.readUTF(), record.readUTF(), record.readUTF());
+                        WeatherSnapshot response = WeatherResponseCodec.read(record);
+                        if (response.fetchedAt() != null && response.fetchedAt().isBefore(oldest)) {
+                            entries.remove(key);
+                        } else {
+                            entries.put(key, response);
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        // Rekord ze zgodną sumą kontrolną, ale nieczytelny (np. nieznana wersja kodeka)
+                        skipped = true;
+                    }
+                    validEnd = position;
+                    records++;
+                }
+            }
+            if (validEnd < Files.size(path)) {
+                try (FileChannel truncate = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                    truncate.truncate(validEnd);
+                }
+            }
+            recordCount = records;
+            liveCount = entries.size();
+            corrupted = skipped;
+            return entries;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Plik urósł do ponad dwukrotności liczby aktualnych wpisów albo zawiera uszkodzone rekordy
+    public boolean needsCompaction() {
+        return corrupted || recordCount > Math.max(MIN_RECORDS_BEFORE_COMPACTION, 2 * liveCount);
+    }
+
+    public void compact() {
+        if (!compacting.compareAndSet(false, true)) {
+            return;
+        }
+        lock.lock();
+        try {
+            Map<ForecastKey, WeatherSnapshot> entries = load();
+            Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                for (Map.Entry<ForecastKey, WeatherSnapshot> entry : entries.entrySet()) {
+                    ByteBuffer buffer = ByteBuffer.wrap(encode(entry.getKey(), entry.getValue()));
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                }
+                out.force(true);
+            }
+            closeChannel();
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            recordCount = entries.size();
+            liveCount = entries.size();
+            corrupted = false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+            compacting.set(false);
+        }
+    }
+
+    public long recordCount() {
+        return recordCount;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    // Zapisuje rekordy czekające w kolejce
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            flush();
+            closeChannel();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static byte[] encode(ForecastKey key, WeatherSnapshot response) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(RECORD_MAGIC);
+            out.writeInt(0); // miejsce na długość
+            out.writeInt(0); // miejsce na CRC32
+            out.writeDouble(key.latitude());
+            out.writeDouble(key.longitude());
+            out.writeUTF(key.dailyParameters());
+            out.writeUTF(key.hourlyParameters());
+            out.writeUTF(key.timezone());
+            WeatherResponseCodec.write(out, response);
+
+            byte[] record = bytes.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(record, HEADER_BYTES, record.length - HEADER_BYTES);
+            ByteBuffer.wrap(record, 4, 8).putInt(record.length - HEADER_BYTES).putInt((int) crc.getValue());
+            return record;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // null, gdy pod position nie zaczyna się poprawny i kompletny rekord
+    private static byte[] readRecord(ByteBuffer file, int position) {
+        if (file.getInt(position) != RECORD_MAGIC) {
+            return null;
+        }
+        int length = file.getInt(position + 4);
+        int checksum = file.getInt(position + 8);
+        if (length <= 0 || length > MAX_RECORD_BYTES || length > file.limit() - position - HEADER_BYTES) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        file.get(position + HEADER_BYTES, payload);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue() == checksum ? payload : null;
+    }
+
+    // Pozycja następnego znacznika rekordu albo koniec pliku
+    private static int nextMarker(ByteBuffer file, int from) {
+        for (int position = from; position + HEADER_BYTES <= file.limit(); position++) {
+            if (file.getInt(position) == RECORD_MAGIC) {
+                return position;
+            }
+        }
+        return file.limit();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.weatherbackend.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Częstość zapytań per komórka siatki: count-min sketch (stała pamięć niezależnie od liczby komórek)
+// plus lista topK najczęstszych komórek. Liczniki są co sampleSize zapytań dzielone przez 2,
+// żeby ranking nadążał za zmianą ruchu w ciągu dnia.
+public class HotCellTracker {
+
+    private static final int DEPTH = 4;
+    private static final long[] SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final int topK;
+    private final int mask;
+    private final AtomicLongArray counters;
+    private final long sampleSize;
+    private final Map<ForecastKey, Long> top = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AtomicLong samples = new AtomicLong();
+    private volatile long topThreshold; // najmniejszy licznik na pełnej liście top
+
+    public HotCellTracker(int topK, int width) {
+        if (topK <= 0 || width <= 0) {
+            throw new IllegalArgumentException("topK i width muszą być dodatnie.");
+        }
+        this.topK = topK;
+        int size = Integer.highestOneBit(Math.max(width, 16) - 1) << 1;
+        this.mask = size - 1;
+        this.counters = new AtomicLongArray(DEPTH * size);
+        this.sampleSize = 10L * size;
+    }
+
+    public void record(ForecastKey key) {
+        int hash = key.hashCode();
+        long minimum = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            minimum = Math.min(minimum, counters.incrementAndGet(index(row, hash)));
+        }
+        long estimate = minimum;
+
+        // Większość zapytań dotyczy komórek już na liście albo zbyt rzadkich - wtedy bez blokady
+        if (top.computeIfPresent(key, (k, count) -> estimate) != null || estimate <= topThreshold) {
+            countSample();
+            return;
+        }
+        lock.lock();
+        try {
+            top.put(key, estimate);
+            if (top.size() > topK) {
+                ForecastKey coldest = null;
+                long coldestCount = Long.MAX_VALUE;
+                for (Map.Entry<ForecastKey, Long> entry : top.entrySet()) {
+                    if (entry.getValue() < coldestCount) {
+                        coldest = entry.getKey();
+                        coldestCount = entry.getValue();
+                    }
+                }
+                top.remove(coldest);
+                topThreshold = coldestCount;
+            }
+        } finally {
+            lock.unlock();
+        }
+        countSample();
+    }
+
+    public long estimate(ForecastKey key) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    // Najczęściej odpytywane komórki, od najpopularniejszej
+    public List<ForecastKey> hottest(int limit) {
+        List<Map.Entry<ForecastKey, Long>> entries = new ArrayList<>(top.entrySet());
+        entries.sort(Map.Entry.<ForecastKey, Long>comparingByValue(Comparator.reverseOrder()));
+        List<ForecastKey> keys = new ArrayList<>(Math.min(limit, entries.size()));
+        for (int i = 0; i < entries.size() && keys.size() < limit; i++) {
+            keys.add(entries.get(i).getKey());
+        }
+        return keys;
+    }
+
+    public int trackedCount() {
+        return top.size();
+    }
+
+    private void countSample() {
+        if (samples.incrementAndGet() < sampleSize) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (samples.get() >= sampleSize) {
+                age();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Wywoływane pod blokadą
+    private void age() {
+        samples.addAndGet(-sampleSize / 2);
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+        top.replaceAll((key, count) -> count >>> 1);
+        topThreshold >>>= 1;
+    }
+
+    private int index(int row, int hash) {
+        long mixed = (hash + SEEDS[row]) * SEEDS[row];
+        return row * (mask + 1) + (int) ((mixed ^ (mixed >>> 32)) & mask);
+    }
+}
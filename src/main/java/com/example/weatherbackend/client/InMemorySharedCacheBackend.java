@@ -0,0 +1,103 @@
+package com.example.weatherbackend.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// L2 w pamięci procesu - do testów i uruchomienia bez Redisa. Kilka "replik" w jednym procesie
+// współdzieli dane i powiadomienia, jeśli dostaną tę samą instancję.
+// Wpisy wygasają w Caffeine po swoim TTL (czas z clock), także te, o które nikt już nie pyta.
+public class InMemorySharedCacheBackend implements SharedCacheBackend {
+
+    private record Entry(byte[] value, Instant expiresAt) {
+    }
+
+    private final Clock clock;
+    private final Cache<String, Entry> entries;
+    private final Map<String, List<Consumer<byte[]>>> listeners = new ConcurrentHashMap<>();
+
+    public InMemorySharedCacheBackend(Clock clock) {
+        this.clock = clock;
+        this.entries = Caffeine.newBuilder()
+                .ticker(() -> TimeUnit.MILLISECONDS.toNanos(clock.millis()))
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry entry, long currentTime) {
+                        return remainingNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+                        return remainingNanos(entry);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    private long remainingNanos(Entry entry) {
+        return Math.max(0, Duration.between(clock.instant(), entry.expiresAt()).toNanos());
+    }
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null || !entry.expiresAt().isAfter(clock.instant())) {
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public List<byte[]> getAll(List<String> keys) {
+        List<byte[]> values = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            values.add(get(key));
+        }
+        return values;
+    }
+
+    @Override
+    public void set(String key, byte[] value, Duration ttl) {
+        entries.put(key, new Entry(value, clock.instant().plus(ttl)));
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        for (Consumer<byte[]> listener : listeners.getOrDefault(channel, List.of())) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    // Liczba wpisów po usunięciu wygasłych
+    public long size() {
+        entries.cleanUp();
+        return entries.estimatedSize();
+    }
+
+    @Override
+    public void close() {
+        entries.invalidateAll();
+        listeners.clear();
+    }
+}
@@ -1,39 +1,187 @@
 package com.example.weatherbackend.client;
 
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
 import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
 import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 public class OpenMeteoApiClient implements WeatherApiClient {
 
-    @Value("${open-meteo.api.base-url}")
-    private String openMeteoBaseUrl;
+    private static final String OUTCOME_SUCCESS = "success";
+    private static final String OUTCOME_EMPTY_BODY = "empty_body";
+    private static final String OUTCOME_CLIENT_ERROR = "rest_client_error";
+    private static final String OUTCOME_RATE_LIMITED = "rate_limited";
+    private static final String OUTCOME_UNAVAILABLE = "unavailable";
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(60);
+    private static final Duration UNAVAILABLE_RETRY_AFTER = Duration.ofSeconds(10);
 
     @Autowired
     private RestTemplate restTemplate;
 
+    @Autowired
+    private OpenMeteoResponseDecoder responseDecoder;
+
+    @Autowired
+    private OpenMeteoUrlBuilder urlBuilder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${open-meteo.api.archive-delay-days}")
+    private int archiveDelayDays;
+
     @Override
-    public WeatherResponse getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_CLIENT_ERROR;
         try {
-            String string_latitude = String.format("%.6f", latitude).replace(",", ".");
-            String string_longitude = String.format("%.6f", longitude).replace(",", ".");
+            // Gotowy URI omija rozwijanie szablonu URL w RestTemplate
+            URI url = urlBuilder.build(latitude, longitude, dailyParameters, hourlyParameters, timezone);
 
-            String url = String.format(
-                    "%s?latitude=%s&longitude=%s&daily=%s&hourly=%s&timezone=%s",
-                    openMeteoBaseUrl, string_latitude, string_longitude, dailyParameters, hourlyParameters, timezone);
+            // Ciało odpowiedzi dekodowane strumieniowo prosto do tablic prymitywów
+            WeatherResponse response = restTemplate.execute(url, HttpMethod.GET, null,
+                    clientResponse -> responseDecoder.decode(clientResponse.getBody()));
+            if (response == null) {
+                outcome = OUTCOME_EMPTY_BODY;
+                throw new WeatherDataNotFoundException("Nie udało się pobrać danych pogodowych z zewnętrznego API.");
+            }
+            outcome = OUTCOME_SUCCESS;
+            return new WeatherSnapshot(response);
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            outcome = OUTCOME_RATE_LIMITED;
+            throw rateLimited(e);
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            outcome = OUTCOME_UNAVAILABLE;
+            throw unavailable();
+        } catch (RestClientException e) {
+            throw new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo: " + e.getMessage());
+        } finally {
+            sample.stop(requestTimer(outcome, hourlyParameters, "single"));
+        }
+    }
+
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_CLIENT_ERROR;
+        try {
+            URI url = urlBuilder.buildWindow(latitude, longitude, window, isArchived(window), dailyParameters, hourlyParameters, timezone);
 
-            WeatherResponse response = restTemplate.getForObject(url, WeatherResponse.class);
+            WeatherResponse response = restTemplate.execute(url, HttpMethod.GET, null,
+                    clientResponse -> responseDecoder.decode(clientResponse.getBody()));
             if (response == null) {
+                outcome = OUTCOME_EMPTY_BODY;
                 throw new WeatherDataNotFoundException("Nie udało się pobrać danych pogodowych z zewnętrznego API.");
             }
+            outcome = OUTCOME_SUCCESS;
             return response;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            outcome = OUTCOME_RATE_LIMITED;
+            throw rateLimited(e);
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            outcome = OUTCOME_UNAVAILABLE;
+            throw unavailable();
+        } catch (RestClientException e) {
+            throw new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo: " + e.getMessage());
+        } finally {
+            sample.stop(requestTimer(outcome, hourlyParameters, "window"));
+        }
+    }
+
+    // Archiwum (reanaliza ERA5) ma dane z kilkudniowym opóźnieniem - nowsze dni są tylko w API prognozy
+    private boolean isArchived(ForecastWindow window) {
+        return window.isRange() && !window.endDate().isAfter(archiveEnd());
+    }
+
+    private LocalDate archiveEnd() {
+        return LocalDate.now(ZoneOffset.UTC).minusDays(archiveDelayDays);
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        if (locations.size() == 1) {
+            Coordinates location = locations.get(0);
+            return List.of(getWeatherData(location.latitude(), location.longitude(), dailyParameters, hourlyParameters, timezone));
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = OUTCOME_CLIENT_ERROR;
+        try {
+            URI url = urlBuilder.buildBatch(locations, dailyParameters, hourlyParameters, timezone);
+
+            List<WeatherResponse> responses = restTemplate.execute(url, HttpMethod.GET, null,
+                    clientResponse -> responseDecoder.decodeAll(clientResponse.getBody()));
+            if (responses == null || responses.size() != locations.size()) {
+                outcome = OUTCOME_EMPTY_BODY;
+                throw new WeatherDataNotFoundException("Nie udało się pobrać danych pogodowych z zewnętrznego API.");
+            }
+            outcome = OUTCOME_SUCCESS;
+            List<WeatherSnapshot> snapshots = new ArrayList<>(responses.size());
+            for (WeatherResponse response : responses) {
+                snapshots.add(new WeatherSnapshot(response));
+            }
+            return snapshots;
+        } catch (HttpClientErrorException.TooManyRequests e) {
+            outcome = OUTCOME_RATE_LIMITED;
+            throw rateLimited(e);
+        } catch (ResourceAccessException | HttpServerErrorException e) {
+            outcome = OUTCOME_UNAVAILABLE;
+            throw unavailable();
         } catch (RestClientException e) {
             throw new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo: " + e.getMessage());
+        } finally {
+            sample.stop(requestTimer(outcome, hourlyParameters, "batch"));
+        }
+    }
+
+    // 429 to przekroczony limit Open-Meteo, a nie brak danych - klient dostaje 503 z Retry-After
+    private static UpstreamUnavailableException rateLimited(HttpClientErrorException e) {
+        Duration retryAfter = DEFAULT_RETRY_AFTER;
+        String header = e.getResponseHeaders() != null ? e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER) : null;
+        if (header != null) {
+            try {
+                retryAfter = Duration.ofSeconds(Long.parseLong(header.trim()));
+            } catch (NumberFormatException ignored) {
+                // Retry-After w formacie daty - zostajemy przy domyślnej wartości
+            }
         }
+        return new UpstreamUnavailableException("Przekroczono limit zapytań do API Open-Meteo.", retryAfter);
+    }
+
+    // Timeout, zerwane połączenie lub 5xx to awaria Open-Meteo, a nie brak danych - klient dostaje 503 z Retry-After
+    private static UpstreamUnavailableException unavailable() {
+        return new UpstreamUnavailableException("API Open-Meteo jest chwilowo niedostępne.", UNAVAILABLE_RETRY_AFTER);
+    }
+
+    // Czas odpowiedzi Open-Meteo z podziałem na wynik i zakres parametrów (tylko dzienne / dzienne + godzinowe)
+    private Timer requestTimer(String outcome, String hourlyParameters, String mode) {
+        return Timer.builder("open-meteo.api.requests")
+                .description("Czas zapytań do API Open-Meteo")
+                .tag("outcome", outcome)
+                .tag("parameters", hourlyParameters.isEmpty() ? "daily" : "daily+hourly")
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
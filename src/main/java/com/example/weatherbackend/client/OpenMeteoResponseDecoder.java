@@ -0,0 +1,229 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Strumieniowy dekoder odpowiedzi Open-Meteo - wypełnia tablice prymitywów bez budowania drzewa ani boxingu
+@Component
+public class OpenMeteoResponseDecoder {
+
+    private static final String[] NO_STRINGS = new String[0];
+    private static final int[] NO_INTS = new int[0];
+    private static final double[] NO_DOUBLES = new double[0];
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public WeatherResponse decode(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            return readResponse(parser);
+        }
+    }
+
+    // Przy wielu współrzędnych Open-Meteo zwraca tablicę odpowiedzi, przy jednej - pojedynczy obiekt
+    public List<WeatherResponse> decodeAll(InputStream body) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            List<WeatherResponse> responses = new ArrayList<>();
+            if (token == JsonToken.START_OBJECT) {
+                responses.add(readResponse(parser));
+            } else if (token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    responses.add(readResponse(parser));
+                }
+            }
+            return responses;
+        }
+    }
+
+    private WeatherResponse readResponse(JsonParser parser) throws IOException {
+        WeatherResponse.Daily daily = null;
+        WeatherResponse.Hourly hourly = null;
+        int utcOffsetSeconds = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("daily".equals(field) && value == JsonToken.START_OBJECT) {
+                daily = readDaily(parser);
+            } else if ("hourly".equals(field) && value == JsonToken.START_OBJECT) {
+                hourly = readHourly(parser);
+            } else if ("utc_offset_seconds".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                utcOffsetSeconds = parser.getIntValue();
+            } else {
+                parser.skipChildren(); // latitude, daily_units itd. nie są potrzebne
+            }
+        }
+        // Godziny są w czasie lokalnym (timezone), a położenie Słońca liczymy w UTC
+        if (hourly != null && hourly.start() != null && utcOffsetSeconds != 0) {
+            hourly = hourly.withStart(hourly.start().minusSeconds(utcOffsetSeconds));
+        }
+        return new WeatherResponse(daily, hourly);
+    }
+
+    private WeatherResponse.Daily readDaily(JsonParser parser) throws IOException {
+        String[] time = NO_STRINGS;
+        // null - kolumny nie było w odpowiedzi (spoza daily-parameters), zostaje pusta
+        int[] weatherCode = null;
+        double[] temperatureMin = null;
+        double[] temperatureMax = null;
+        double[] sunshineDuration = null;
+        double[] rainSum = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "time" -> time = readStrings(parser);
+                case "weather_code" -> weatherCode = readInts(parser);
+                case "temperature_2m_min" -> temperatureMin = readDoubles(parser);
+                case "temperature_2m_max" -> temperatureMax = readDoubles(parser);
+                case "sunshine_duration" -> sunshineDuration = readDoubles(parser);
+                case "rain_sum" -> rainSum = readDoubles(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        // Kolumna krótsza niż "time" skończyłaby się ArrayIndexOutOfBoundsException dopiero przy przetwarzaniu,
+        // a dłuższa - cichym pominięciem dni
+        if (weatherCode != null) {
+            checkLength("daily.weather_code", weatherCode.length, time.length);
+        }
+        checkLength("daily.temperature_2m_min", temperatureMin, time.length);
+        checkLength("daily.temperature_2m_max", temperatureMax, time.length);
+        checkLength("daily.sunshine_duration", sunshineDuration, time.length);
+        checkLength("daily.rain_sum", rainSum, time.length);
+        return new WeatherResponse.Daily(time, weatherCode != null ? weatherCode : NO_INTS, orEmpty(temperatureMin),
+                orEmpty(temperatureMax), orEmpty(sunshineDuration), orEmpty(rainSum));
+    }
+
+    // Kolumny spoza hourly-parameters zostają null; z "time" wystarczy pierwsza godzina - kolejne są co godzinę
+    private WeatherResponse.Hourly readHourly(JsonParser parser) throws IOException {
+        double[] surfacePressure = NO_DOUBLES;
+        double[] shortwaveRadiation = null;
+        double[] diffuseRadiation = null;
+        double[] temperature = null;
+        String firstHour = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "surface_pressure" -> surfacePressure = readDoubles(parser);
+                case "shortwave_radiation" -> shortwaveRadiation = readDoubles(parser);
+                case "diffuse_radiation" -> diffuseRadiation = readDoubles(parser);
+                case "temperature_2m" -> temperature = readDoubles(parser);
+                case "time" -> firstHour = readFirstString(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        // Z "time" czytamy tylko pierwszą godzinę, więc kolumny uzysku porównujemy z pierwszą z nich
+        if (shortwaveRadiation != null) {
+            checkLength("hourly.diffuse_radiation", diffuseRadiation, shortwaveRadiation.length);
+            checkLength("hourly.temperature_2m", temperature, shortwaveRadiation.length);
+        }
+        return new WeatherResponse.Hourly(surfacePressure, shortwaveRadiation, diffuseRadiation, temperature, localStart(firstHour));
+    }
+
+    private static void checkLength(String column, double[] values, int expected) {
+        if (values != null) {
+            checkLength(column, values.length, expected);
+        }
+    }
+
+    private static void checkLength(String column, int length, int expected) {
+        if (length != expected) {
+            throw new WeatherDataNotFoundException(String.format(
+                    "Niespójne dane z API Open-Meteo: kolumna %s ma %d wartości zamiast %d.", column, length, expected));
+        }
+    }
+
+    // Czas lokalny pierwszej godziny jako Instant - przesunięcie strefy odejmuje readResponse
+    private static Instant localStart(String firstHour) {
+        if (firstHour == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(firstHour).toInstant(ZoneOffset.UTC);
+        } catch (DateTimeParseException e) {
+            return null; // np. unixtime zamiast iso8601 - bez uzysku godzinowego
+        }
+    }
+
+    private static double[] orEmpty(double[] values) {
+        return values != null ? values : NO_DOUBLES;
+    }
+
+    private static String readFirstString(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        String first = parser.nextToken() == JsonToken.VALUE_STRING ? parser.getText() : null;
+        if (parser.currentToken() != JsonToken.END_ARRAY) {
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                // pozostałe godziny pomijamy
+            }
+        }
+        return first;
+    }
+
+    private static String[] readStrings(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return NO_STRINGS;
+        }
+        List<String> values = new ArrayList<>(16);
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsString());
+        }
+        return values.toArray(NO_STRINGS);
+    }
+
+    private static int[] readInts(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return NO_INTS;
+        }
+        int[] values = new int[16];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = token == JsonToken.VALUE_NULL ? 0 : parser.getValueAsInt();
+        }
+        return Arrays.copyOf(values, size);
+    }
+
+    private static double[] readDoubles(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return NO_DOUBLES;
+        }
+        double[] values = new double[32];
+        int size = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            // Brakujące wartości (null) jako NaN zamiast NullPointerException przy rozpakowaniu
+            values[size++] = token == JsonToken.VALUE_NULL ? Double.NaN : parser.getDoubleValue();
+        }
+        return Arrays.copyOf(values, size);
+    }
+}
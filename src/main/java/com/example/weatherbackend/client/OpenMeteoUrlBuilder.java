@@ -0,0 +1,99 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.List;
+
+@Component
+public class OpenMeteoUrlBuilder {
+
+    private static final String DEFAULT_ARCHIVE_URL = "https://archive-api.open-meteo.com/v1/archive";
+
+    private final String urlPrefix;
+    private final String archiveUrlPrefix;
+    private final String defaultDailyParameters;
+    private final String defaultHourlyParameters;
+    private final String defaultTimezone;
+    private final String defaultQuerySuffix;
+
+    public OpenMeteoUrlBuilder(String baseUrl, String dailyParameters, String hourlyParameters, String timezone) {
+        this(baseUrl, DEFAULT_ARCHIVE_URL, dailyParameters, hourlyParameters, timezone);
+    }
+
+    // Stałe części URL-a składane raz z właściwości open-meteo.api.*
+    @Autowired
+    public OpenMeteoUrlBuilder(@Value("${open-meteo.api.base-url}") String baseUrl,
+                               @Value("${open-meteo.api.archive-url}") String archiveUrl,
+                               @Value("${open-meteo.api.daily-parameters}") String dailyParameters,
+                               @Value("${open-meteo.api.hourly-parameters}") String hourlyParameters,
+                               @Value("${open-meteo.api.timezone}") String timezone) {
+        this.urlPrefix = baseUrl + "?latitude=";
+        this.archiveUrlPrefix = archiveUrl + "?latitude=";
+        this.defaultDailyParameters = dailyParameters;
+        this.defaultHourlyParameters = hourlyParameters;
+        this.defaultTimezone = timezone;
+        this.defaultQuerySuffix = querySuffix(dailyParameters, hourlyParameters, timezone);
+    }
+
+    public URI build(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        return URI.create(buildString(latitude, longitude, dailyParameters, hourlyParameters, timezone));
+    }
+
+    public String buildString(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        String suffix = suffixFor(dailyParameters, hourlyParameters, timezone);
+        StringBuilder url = new StringBuilder(urlPrefix.length() + 36 + suffix.length());
+        url.append(urlPrefix);
+        CoordinateFormatter.appendFixed6(url, latitude);
+        url.append("&longitude=");
+        CoordinateFormatter.appendFixed6(url, longitude);
+        return url.append(suffix).toString();
+    }
+
+    // forecast_days albo start_date/end_date; dane historyczne z API archiwalnego (ten sam format odpowiedzi)
+    public URI buildWindow(double latitude, double longitude, ForecastWindow window, boolean archive,
+                           String dailyParameters, String hourlyParameters, String timezone) {
+        StringBuilder url = new StringBuilder(128);
+        url.append(archive ? archiveUrlPrefix : urlPrefix);
+        CoordinateFormatter.appendFixed6(url, latitude);
+        url.append("&longitude=");
+        CoordinateFormatter.appendFixed6(url, longitude);
+        url.append(suffixFor(dailyParameters, hourlyParameters, timezone));
+        if (window.isRange()) {
+            url.append("&start_date=").append(window.startDate()).append("&end_date=").append(window.endDate());
+        } else {
+            url.append("&forecast_days=").append(window.forecastDays());
+        }
+        return URI.create(url.toString());
+    }
+
+    // Open-Meteo przyjmuje listy współrzędnych rozdzielone przecinkami
+    public URI buildBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        String suffix = suffixFor(dailyParameters, hourlyParameters, timezone);
+        StringBuilder url = new StringBuilder(urlPrefix.length() + locations.size() * 24 + 12 + suffix.length());
+        url.append(urlPrefix);
+        for (int i = 0; i < locations.size(); i++) {
+            CoordinateFormatter.appendFixed6(i > 0 ? url.append(',') : url, locations.get(i).latitude());
+        }
+        url.append("&longitude=");
+        for (int i = 0; i < locations.size(); i++) {
+            CoordinateFormatter.appendFixed6(i > 0 ? url.append(',') : url, locations.get(i).longitude());
+        }
+        return URI.create(url.append(suffix).toString());
+    }
+
+    private String suffixFor(String dailyParameters, String hourlyParameters, String timezone) {
+        if (dailyParameters.equals(defaultDailyParameters) && hourlyParameters.equals(defaultHourlyParameters) && timezone.equals(defaultTimezone)) {
+            return defaultQuerySuffix;
+        }
+        return querySuffix(dailyParameters, hourlyParameters, timezone);
+    }
+
+    private static String querySuffix(String dailyParameters, String hourlyParameters, String timezone) {
+        return "&daily=" + dailyParameters + "&hourly=" + hourlyParameters + "&timezone=" + timezone;
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientException;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+
+// Nieblokujący odpowiednik OpenMeteoApiClient: ten sam URL i dekoder, ale zapytanie nie zajmuje wątku na czas oczekiwania.
+// Przed WebClient stoją te same limity i bezpiecznik co przed klientem blokującym (ReactiveUpstreamGuard)
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveOpenMeteoApiClient {
+
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofSeconds(60);
+    private static final Duration UNAVAILABLE_RETRY_AFTER = Duration.ofSeconds(10);
+
+    private final WebClient webClient;
+    private final OpenMeteoUrlBuilder urlBuilder;
+    private final OpenMeteoResponseDecoder responseDecoder;
+    private final ReactiveUpstreamGuard guard;
+    private final int maxInMemorySize;
+
+    // Builder z własną ExchangeFunction (testy) ma pierwszeństwo przed konektorem Reactor Netty
+    @Autowired
+    public ReactiveOpenMeteoApiClient(WebClient.Builder webClientBuilder,
+                                      OpenMeteoUrlBuilder urlBuilder,
+                                      OpenMeteoResponseDecoder responseDecoder,
+                                      ReactiveUpstreamGuard guard,
+                                      @Value("${open-meteo.reactive.max-connections}") int maxConnections,
+                                      @Value("${open-meteo.reactive.pending-acquire-timeout}") Duration pendingAcquireTimeout,
+                                      @Value("${open-meteo.reactive.response-timeout}") Duration responseTimeout,
+                                      @Value("${open-meteo.reactive.max-in-memory-size}") DataSize maxInMemorySize) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("open-meteo")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .build();
+        HttpClient httpClient = HttpClient.create(connectionProvider).responseTimeout(responseTimeout);
+        this.webClient = webClientBuilder.clientConnector(new ReactorClientHttpConnector(httpClient)).build();
+        this.urlBuilder = urlBuilder;
+        this.responseDecoder = responseDecoder;
+        this.guard = guard;
+        this.maxInMemorySize = Math.toIntExact(maxInMemorySize.toBytes());
+    }
+
+    public Mono<WeatherResponse> getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        return guard.guard(() -> webClient.get()
+                .uri(urlBuilder.build(latitude, longitude, dailyParameters, hourlyParameters, timezone))
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                // Całe ciało trafia do pamięci przed dekodowaniem, więc jego rozmiar musi być ograniczony
+                .as(body -> DataBufferUtils.join(body, maxInMemorySize))
+                // Ciało jest już w pamięci, więc dekodowanie nie blokuje pętli zdarzeń
+                .map(buffer -> {
+                    try (InputStream body = buffer.asInputStream(true)) {
+                        return responseDecoder.decode(body);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .switchIfEmpty(Mono.error(() -> new WeatherDataNotFoundException("Nie udało się pobrać danych pogodowych z zewnętrznego API.")))
+                .onErrorMap(WebClientResponseException.TooManyRequests.class, ReactiveOpenMeteoApiClient::rateLimited)
+                // Jak w OpenMeteoApiClient: timeout, zerwane połączenie lub 5xx to 503, pozostałe błędy HTTP to 404
+                .onErrorMap(ReactiveOpenMeteoApiClient::isUnavailable,
+                        e -> new UpstreamUnavailableException("API Open-Meteo jest chwilowo niedostępne.", UNAVAILABLE_RETRY_AFTER))
+                .onErrorMap(e -> e instanceof WebClientException || e instanceof DataBufferLimitException,
+                        e -> new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo: " + e.getMessage())));
+    }
+
+    private static boolean isUnavailable(Throwable e) {
+        return e instanceof WebClientRequestException
+                || e instanceof UncheckedIOException
+                || e instanceof WebClientResponseException response && response.getStatusCode().is5xxServerError();
+    }
+
+    private static UpstreamUnavailableException rateLimited(WebClientResponseException e) {
+        Duration retryAfter = DEFAULT_RETRY_AFTER;
+        String header = e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (header != null) {
+            try {
+                retryAfter = Duration.ofSeconds(Long.parseLong(header.trim()));
+            } catch (NumberFormatException ignored) {
+                // Retry-After w formacie daty - zostajemy przy domyślnej wartości
+            }
+        }
+        return new UpstreamUnavailableException("Przekroczono limit zapytań do API Open-Meteo.", retryAfter);
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.exceptions.RequestThrottledException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+// Bulkhead, bezpiecznik, limit tempa i adaptacyjny limit współbieżności przed WebClient w profilu reactive -
+// te same zabezpieczenia co CircuitBreakerWeatherApiClient i ThrottlingWeatherApiClient, w tej samej kolejności.
+// Bez czekania: wątku pętli zdarzeń nie wolno parkować, więc brak miejsca od razu kończy się RequestThrottledException (503).
+// Pusty rateLimiter, concurrencyLimiter lub circuitBreaker (null) - dana ochrona jest wyłączona.
+public class ReactiveUpstreamGuard {
+
+    private static final Duration BULKHEAD_RETRY_AFTER = Duration.ofSeconds(1);
+    private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final Counter bulkheadRejected;
+    private final Counter circuitRejected;
+    private final Counter rateLimited;
+    private final Counter concurrencyLimited;
+
+    public ReactiveUpstreamGuard(TokenBucketRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                 CircuitBreaker circuitBreaker, int maxConcurrent, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.bulkheadRejected = meterRegistry.counter("open-meteo.api.throttled", "reason", "bulkhead_reactive");
+        this.circuitRejected = meterRegistry.counter("open-meteo.api.throttled", "reason", "circuit_open");
+        this.rateLimited = meterRegistry.counter("open-meteo.api.throttled", "reason", "rate_limit");
+        this.concurrencyLimited = meterRegistry.counter("open-meteo.api.throttled", "reason", "concurrency_limit");
+        Gauge.builder("open-meteo.api.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .tag("bulkhead", "reactive")
+                .register(meterRegistry);
+    }
+
+    // Miejsca są zajmowane przy subskrypcji i zwalniane po zakończeniu, błędzie lub anulowaniu wywołania
+    public <T> Mono<T> guard(Supplier<Mono<T>> call) {
+        return Mono.defer(() -> {
+            if (!bulkhead.tryAcquire()) {
+                bulkheadRejected.increment();
+                return Mono.error(new RequestThrottledException("Zbyt wiele równoległych zapytań do API Open-Meteo.", BULKHEAD_RETRY_AFTER));
+            }
+            RequestThrottledException rejection = acquire();
+            if (rejection != null) {
+                bulkhead.release();
+                return Mono.error(rejection);
+            }
+            long start = System.nanoTime();
+            return call.get().doFinally(signal -> release(signal, System.nanoTime() - start));
+        });
+    }
+
+    public int availableBulkheadPermits() {
+        return bulkhead.availablePermits();
+    }
+
+    private RequestThrottledException acquire() {
+        if (circuitBreaker != null && !circuitBreaker.tryAcquirePermission()) {
+            circuitRejected.increment();
+            return new RequestThrottledException("API Open-Meteo jest chwilowo niedostępne.", circuitBreaker.remainingOpenDuration());
+        }
+        if (rateLimiter != null && !rateLimiter.tryAcquire(1, Duration.ZERO)) {
+            ignored();
+            rateLimited.increment();
+            return new RequestThrottledException("Przekroczono limit zapytań do API Open-Meteo.", rateLimiter.timeToNextPermit());
+        }
+        if (concurrencyLimiter != null && !concurrencyLimiter.tryAcquire(Duration.ZERO)) {
+            // Zapytanie nie poszło do Open-Meteo, więc nie zużywa limitu
+            if (rateLimiter != null) {
+                rateLimiter.release(1);
+            }
+            ignored();
+            concurrencyLimited.increment();
+            return new RequestThrottledException("API Open-Meteo jest przeciążone.", CONCURRENCY_RETRY_AFTER);
+        }
+        return null;
+    }
+
+    // Anulowanie (klient się rozłączył) to nie awaria Open-Meteo - nie otwiera obwodu i nie obniża limitu
+    private void release(SignalType signal, long latencyNanos) {
+        boolean failed = signal == SignalType.ON_ERROR;
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.release(latencyNanos, !failed);
+        }
+        if (circuitBreaker != null) {
+            if (signal == SignalType.CANCEL) {
+                circuitBreaker.onIgnored();
+            } else if (failed) {
+                circuitBreaker.onError();
+            } else {
+                circuitBreaker.onSuccess(latencyNanos);
+            }
+        }
+        bulkhead.release();
+    }
+
+    private void ignored() {
+        if (circuitBreaker != null) {
+            circuitBreaker.onIgnored();
+        }
+    }
+}
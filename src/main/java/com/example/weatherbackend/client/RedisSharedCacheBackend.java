@@ -0,0 +1,183 @@
+package com.example.weatherbackend.client;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.lettuce.core.pubsub.RedisPubSubAdapter;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// L2 w Redisie (lub serwerze zgodnym z protokołem Redis) przez Lettuce: jedno współdzielone połączenie
+// dla komend i osobne dla subskrypcji. Lettuce wznawia połączenia i subskrypcje po zerwaniu.
+// Połączenie jest nawiązywane przy pierwszym użyciu, a nie przy starcie - niedostępny Redis nie blokuje uruchomienia.
+// Dopóki połączenia nie ma, L2 zachowuje się jak pusty cache; kolejna próba najwcześniej po retryInterval.
+public class RedisSharedCacheBackend implements SharedCacheBackend {
+
+    private static final RedisCodec<String, byte[]> CODEC = RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE);
+
+    private final RedisClient client;
+    private final long retryIntervalNanos;
+    private final LongSupplier nanoTime;
+    private final ReentrantLock connectLock = new ReentrantLock();
+    private final Map<String, List<Consumer<byte[]>>> listeners = new ConcurrentHashMap<>();
+    private volatile StatefulRedisConnection<String, byte[]> connection;
+    private StatefulRedisPubSubConnection<String, byte[]> pubSubConnection; // pod connectLock
+    private volatile boolean failed;
+    private volatile long retryAt;
+    private volatile boolean closed;
+
+    public RedisSharedCacheBackend(String uri, Duration timeout, Duration retryInterval) {
+        this(client(uri, timeout), retryInterval, System::nanoTime);
+    }
+
+    public RedisSharedCacheBackend(RedisClient client, Duration retryInterval, LongSupplier nanoTime) {
+        this.client = client;
+        this.retryIntervalNanos = retryInterval.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    // Nawiązanie połączenia nie dłużej niż limit komend, a komendy przy zerwanym połączeniu kończą się od razu
+    // błędem zamiast czekać w kolejce na wznowienie
+    private static RedisClient client(String uri, Duration timeout) {
+        RedisURI redisUri = RedisURI.create(uri);
+        redisUri.setTimeout(timeout);
+        RedisClient client = RedisClient.create(redisUri);
+        client.setOptions(ClientOptions.builder()
+                .socketOptions(SocketOptions.builder().connectTimeout(timeout).build())
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .build());
+        return client;
+    }
+
+    @Override
+    public byte[] get(String key) {
+        StatefulRedisConnection<String, byte[]> current = connection();
+        return current != null ? current.sync().get(key) : null;
+    }
+
+    @Override
+    public List<byte[]> getAll(List<String> keys) {
+        StatefulRedisConnection<String, byte[]> current = connection();
+        if (current == null) {
+            return new ArrayList<>(Collections.nCopies(keys.size(), null));
+        }
+        List<KeyValue<String, byte[]>> found = current.sync().mget(keys.toArray(String[]::new));
+        List<byte[]> values = new ArrayList<>(found.size());
+        for (KeyValue<String, byte[]> value : found) {
+            values.add(value.getValueOrElse(null));
+        }
+        return values;
+    }
+
+    @Override
+    public void set(String key, byte[] value, Duration ttl) {
+        StatefulRedisConnection<String, byte[]> current = connection();
+        if (current != null) {
+            current.async().set(key, value, SetArgs.Builder.px(ttl.toMillis()));
+        }
+    }
+
+    @Override
+    public void publish(String channel, byte[] message) {
+        StatefulRedisConnection<String, byte[]> current = connection();
+        if (current != null) {
+            current.async().publish(channel, message);
+        }
+    }
+
+    // Subskrypcja jest zapamiętywana i wysyłana po nawiązaniu połączenia
+    @Override
+    public void subscribe(String channel, Consumer<byte[]> listener) {
+        listeners.computeIfAbsent(channel, key -> new CopyOnWriteArrayList<>()).add(listener);
+        connectLock.lock();
+        try {
+            if (pubSubConnection != null) {
+                pubSubConnection.async().subscribe(channel);
+            }
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    public boolean isConnected() {
+        return connection != null;
+    }
+
+    @Override
+    public void close() {
+        connectLock.lock();
+        try {
+            closed = true;
+            if (pubSubConnection != null) {
+                pubSubConnection.close();
+            }
+            if (connection != null) {
+                connection.close();
+            }
+            client.shutdown();
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    // null - brak połączenia: Redis niedostępny, do kolejnej próby zostało mniej niż retryInterval
+    // albo połączenie nawiązuje właśnie inny wątek
+    private StatefulRedisConnection<String, byte[]> connection() {
+        StatefulRedisConnection<String, byte[]> current = connection;
+        if (current != null || closed || (failed && nanoTime.getAsLong() - retryAt < 0) || !connectLock.tryLock()) {
+            return current;
+        }
+        try {
+            if (connection == null && !closed) {
+                connect();
+            }
+            return connection;
+        } finally {
+            connectLock.unlock();
+        }
+    }
+
+    private void connect() {
+        StatefulRedisPubSubConnection<String, byte[]> pubSub = null;
+        try {
+            pubSub = client.connectPubSub(CODEC);
+            pubSub.addListener(new RedisPubSubAdapter<>() {
+                @Override
+                public void message(String channel, byte[] message) {
+                    for (Consumer<byte[]> listener : listeners.getOrDefault(channel, List.of())) {
+                        listener.accept(message);
+                    }
+                }
+            });
+            if (!listeners.isEmpty()) {
+                pubSub.sync().subscribe(listeners.keySet().toArray(String[]::new));
+            }
+            connection = client.connect(CODEC);
+            pubSubConnection = pubSub;
+            failed = false;
+        } catch (RuntimeException e) {
+            if (pubSub != null) {
+                pubSub.close();
+            }
+            failed = true;
+            retryAt = nanoTime.getAsLong() + retryIntervalNanos;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.util.Map;
+
+// Zastępuje Open-Meteo odpowiedziami zapisanymi w ForecastStore - do testów, benchmarków i pracy offline.
+// Zapytania muszą trafiać w środki komórek siatki, więc klient powinien stać za CachingWeatherApiClient.
+public class ReplayWeatherApiClient implements WeatherApiClient {
+
+    private final Map<ForecastKey, WeatherSnapshot> responses;
+
+    public ReplayWeatherApiClient(Map<ForecastKey, WeatherSnapshot> responses) {
+        this.responses = Map.copyOf(responses);
+    }
+
+    // Nagranie odtwarzane jest w całości - maxAge magazynu dotyczy ciepłego startu cache, nie replay
+    public static ReplayWeatherApiClient fromStore(ForecastStore forecastStore) {
+        return new ReplayWeatherApiClient(forecastStore.loadAll());
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        WeatherSnapshot stored = responses.get(new ForecastKey(latitude, longitude, dailyParameters, hourlyParameters, timezone));
+        if (stored == null) {
+            throw new WeatherDataNotFoundException("Brak zapisanych danych pogodowych dla " + latitude + ", " + longitude + ".");
+        }
+        // Odtwarzana odpowiedź jest traktowana jak świeżo pobrana - czas nada jej CachingWeatherApiClient
+        return new WeatherSnapshot(stored.response());
+    }
+
+    public int size() {
+        return responses.size();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.weatherbackend.client;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Wspólny dla wszystkich replik magazyn bajtów (L2) z kanałem powiadomień między replikami.
+// Implementacje: RedisSharedCacheBackend (protokół Redis) i InMemorySharedCacheBackend (testy, jedna instancja).
+public interface SharedCacheBackend extends Closeable {
+
+    // null, gdy klucza nie ma lub wygasł
+    byte[] get(String key);
+
+    // Wartości w kolejności kluczy, null dla brakujących
+    List<byte[]> getAll(List<String> keys);
+
+    // Zapis może być asynchroniczny - odpowiedź dla użytkownika nie czeka na L2
+    void set(String key, byte[] value, Duration ttl);
+
+    void publish(String channel, byte[] message);
+
+    // Odbiorca dostaje także własne wiadomości repliki
+    void subscribe(String channel, Consumer<byte[]> listener);
+
+    @Override
+    void close();
+}
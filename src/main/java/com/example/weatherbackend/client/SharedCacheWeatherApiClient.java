@@ -0,0 +1,258 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+// Wspólny cache L2 pod lokalnym ForecastCache (L1): chybienie w L1 sprawdza najpierw L2, a dopiero potem Open-Meteo.
+// Każde pobranie z Open-Meteo trafia do L2 (WeatherResponseCodec) i jest ogłaszane pozostałym replikom,
+// które usuwają ze swojego L1 starszą wersję komórki. Awaria L2 oznacza tylko chybienie - nie psuje odpowiedzi.
+public class SharedCacheWeatherApiClient implements WeatherApiClient {
+
+    private static final String KEY_PREFIX = "weather-backend:forecast:v2:";
+
+    private final WeatherApiClient delegate;
+    private final SharedCacheBackend backend;
+    private final ForecastCache localCache;
+    private final String channel;
+    private final Duration softTtl;
+    private final Clock clock;
+    private final String replicaId = UUID.randomUUID().toString();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter staleHits;
+    private final Counter errors;
+    private final Counter invalidations;
+
+    public SharedCacheWeatherApiClient(WeatherApiClient delegate, SharedCacheBackend backend, ForecastCache localCache,
+                                       String channel, Duration softTtl, Clock clock, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.backend = backend;
+        this.localCache = localCache;
+        this.channel = channel;
+        this.softTtl = softTtl;
+        this.clock = clock;
+        this.hits = requests(meterRegistry, "hit");
+        this.misses = requests(meterRegistry, "miss");
+        this.staleHits = requests(meterRegistry, "stale");
+        this.errors = requests(meterRegistry, "error");
+        this.invalidations = Counter.builder("forecast.shared-cache.invalidations")
+                .description("Wpisy L1 usunięte po pobraniu nowszych danych przez inną replikę")
+                .register(meterRegistry);
+        backend.subscribe(channel, this::onMessage);
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        ForecastKey key = new ForecastKey(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+        WeatherSnapshot shared = read(key);
+        if (shared != null && isFresh(shared)) {
+            hits.increment();
+            return shared;
+        }
+        (shared != null ? staleHits : misses).increment();
+        try {
+            return write(key, delegate.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone));
+        } catch (WeatherDataNotFoundException | UpstreamUnavailableException e) {
+            // Open-Meteo niedostępne - starsze dane innej repliki są lepsze niż błąd
+            if (shared != null) {
+                return shared;
+            }
+            throw e;
+        }
+    }
+
+    // Zakresy dat nie trafiają do L2 - tak jak do L1
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        return delegate.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone);
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        List<ForecastKey> keys = new ArrayList<>(locations.size());
+        for (Coordinates location : locations) {
+            keys.add(new ForecastKey(location.latitude(), location.longitude(), dailyParameters, hourlyParameters, timezone));
+        }
+        List<WeatherSnapshot> shared = readAll(keys);
+
+        List<WeatherSnapshot> responses = new ArrayList<>(shared);
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            WeatherSnapshot response = shared.get(i);
+            if (response != null && isFresh(response)) {
+                hits.increment();
+            } else {
+                (response != null ? staleHits : misses).increment();
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return responses;
+        }
+
+        List<Coordinates> toFetch = new ArrayList<>(missing.size());
+        for (int i : missing) {
+            toFetch.add(locations.get(i));
+        }
+        List<WeatherSnapshot> fetched;
+        try {
+            fetched = delegate.getWeatherDataBatch(toFetch, dailyParameters, hourlyParameters, timezone);
+        } catch (WeatherDataNotFoundException | UpstreamUnavailableException e) {
+            for (int i : missing) {
+                if (shared.get(i) == null) {
+                    throw e;
+                }
+                responses.set(i, shared.get(i));
+            }
+            return responses;
+        }
+        for (int j = 0; j < missing.size(); j++) {
+            int i = missing.get(j);
+            responses.set(i, write(keys.get(i), fetched.get(j)));
+        }
+        return responses;
+    }
+
+    public String replicaId() {
+        return replicaId;
+    }
+
+    private WeatherSnapshot read(ForecastKey key) {
+        try {
+            return decode(backend.get(keyString(key)));
+        } catch (RuntimeException e) {
+            errors.increment();
+            return null;
+        }
+    }
+
+    private List<WeatherSnapshot> readAll(List<ForecastKey> keys) {
+        try {
+            List<String> keyStrings = new ArrayList<>(keys.size());
+            for (ForecastKey key : keys) {
+                keyStrings.add(keyString(key));
+            }
+            List<WeatherSnapshot> responses = new ArrayList<>(keys.size());
+            for (byte[] value : backend.getAll(keyStrings)) {
+                responses.add(decode(value));
+            }
+            return responses;
+        } catch (RuntimeException e) {
+            errors.increment();
+            return new ArrayList<>(Collections.nCopies(keys.size(), null));
+        }
+    }
+
+    private WeatherSnapshot write(ForecastKey key, WeatherSnapshot response) {
+        WeatherSnapshot stamped = response.fetchedAt() != null ? response : response.withFetchedAt(clock.instant());
+        try {
+            // W L2 wpis żyje tyle, co w L1: twardy TTL liczony od pobrania z Open-Meteo
+            Duration remaining = localCache.ttl().minus(Duration.between(stamped.fetchedAt(), clock.instant()));
+            if (remaining.isPositive()) {
+                backend.set(keyString(key), encode(stamped), remaining);
+                backend.publish(channel, message(key, stamped.fetchedAt()));
+            }
+        } catch (RuntimeException e) {
+            errors.increment();
+        }
+        return stamped;
+    }
+
+    private boolean isFresh(WeatherSnapshot response) {
+        return response.fetchedAt() != null && response.fetchedAt().plus(softTtl).isAfter(clock.instant());
+    }
+
+    // Inna replika pobrała nowsze dane komórki - starsza kopia w L1 zostaje usunięta, następne zapytanie czyta L2
+    private void onMessage(byte[] message) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(message));
+            if (replicaId.equals(in.readUTF())) {
+                return;
+            }
+            ForecastKey key = new ForecastKey(in.readDouble(), in.readDouble(), in.readUTF(), in.readUTF(), in.readUTF());
+            Instant fetchedAt = Instant.ofEpochMilli(in.readLong());
+            WeatherSnapshot local = localCache.peek(key);
+            if (local != null && (local.fetchedAt() == null || local.fetchedAt().isBefore(fetchedAt))) {
+                localCache.invalidate(key);
+                invalidations.increment();
+            }
+        } catch (IOException e) {
+            // Wiadomość w nieznanym formacie (np. innej wersji aplikacji) - pomijamy
+        }
+    }
+
+    private byte[] message(ForecastKey key, Instant fetchedAt) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeUTF(replicaId);
+            out.writeDouble(key.latitude());
+            out.writeDouble(key.longitude());
+            out.writeUTF(key.dailyParameters());
+            out.writeUTF(key.hourlyParameters());
+            out.writeUTF(key.timezone());
+            out.writeLong(fetchedAt.toEpochMilli());
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] encode(WeatherSnapshot response) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+            WeatherResponseCodec.write(new DataOutputStream(bytes), response);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static WeatherSnapshot decode(byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return WeatherResponseCodec.read(new DataInputStream(new ByteArrayInputStream(value)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Klucz wspólny dla wszystkich replik; wersja w prefiksie zmienia się razem z formatem WeatherResponseCodec
+    private static String keyString(ForecastKey key) {
+        StringBuilder builder = new StringBuilder(160).append(KEY_PREFIX);
+        CoordinateFormatter.appendFixed6(builder, key.latitude()).append(',');
+        CoordinateFormatter.appendFixed6(builder, key.longitude()).append(':');
+        return builder.append(key.timezone()).append(':')
+                .append(key.dailyParameters()).append(':')
+                .append(key.hourlyParameters()).toString();
+    }
+
+    private static Counter requests(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("forecast.shared-cache.requests")
+                .description("Odczyty wspólnego cache L2")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class SingleFlightWeatherApiClient implements WeatherApiClient {
+
+    private final WeatherApiClient delegate;
+    private final ConcurrentMap<ForecastKey, CompletableFuture<WeatherSnapshot>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlightWeatherApiClient(WeatherApiClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        ForecastKey key = new ForecastKey(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+        CompletableFuture<WeatherSnapshot> call = new CompletableFuture<>();
+        CompletableFuture<WeatherSnapshot> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            // Ktoś już pobiera te same dane - czekamy na jego wynik (lub wyjątek)
+            return await(existing);
+        }
+
+        try {
+            WeatherSnapshot response = delegate.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+            call.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Także Error - inaczej czekający nigdy nie dostaliby wyniku
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    // Zapytania o zakresy są rzadkie i różnorodne - bez łączenia
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        return delegate.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone);
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        // Zapytania zbiorcze idą bezpośrednio - dzielenie ich na pojedyncze zniweczyłoby batchowanie
+        return delegate.getWeatherDataBatch(locations, dailyParameters, hourlyParameters, timezone);
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static WeatherSnapshot await(CompletableFuture<WeatherSnapshot> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
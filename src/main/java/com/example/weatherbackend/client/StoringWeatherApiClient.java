@@ -0,0 +1,74 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+// Zapisuje każdą odpowiedź z Open-Meteo do ForecastStore, żeby po restarcie cache startował z danymi
+public class StoringWeatherApiClient implements WeatherApiClient {
+
+    private final WeatherApiClient delegate;
+    private final ForecastStore forecastStore;
+    private final Executor compactionExecutor;
+    private final Clock clock;
+
+    public StoringWeatherApiClient(WeatherApiClient delegate, ForecastStore forecastStore, Executor compactionExecutor, Clock clock) {
+        this.delegate = delegate;
+        this.forecastStore = forecastStore;
+        this.compactionExecutor = compactionExecutor;
+        this.clock = clock;
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        WeatherSnapshot response = delegate.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone).withFetchedAt(clock.instant());
+        store(new ForecastKey(latitude, longitude, dailyParameters, hourlyParameters, timezone), response);
+        return response;
+    }
+
+    // Plik przechowuje tylko domyślne okno prognozy
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        return delegate.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone);
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        List<WeatherSnapshot> responses = delegate.getWeatherDataBatch(locations, dailyParameters, hourlyParameters, timezone);
+        List<WeatherSnapshot> stamped = new ArrayList<>(responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            Coordinates location = locations.get(i);
+            WeatherSnapshot response = responses.get(i).withFetchedAt(clock.instant());
+            store(new ForecastKey(location.latitude(), location.longitude(), dailyParameters, hourlyParameters, timezone), response);
+            stamped.add(response);
+        }
+        return stamped;
+    }
+
+    private void store(ForecastKey key, WeatherSnapshot response) {
+        try {
+            forecastStore.append(key, response);
+        } catch (UncheckedIOException e) {
+            // Błąd dysku nie może zepsuć odpowiedzi - tracimy tylko ciepły start
+            return;
+        }
+        if (forecastStore.needsCompaction()) {
+            compactionExecutor.execute(this::compact);
+        }
+    }
+
+    private void compact() {
+        try {
+            forecastStore.compact();
+        } catch (UncheckedIOException e) {
+            // Spróbujemy przy kolejnym zapisie
+        }
+    }
+}
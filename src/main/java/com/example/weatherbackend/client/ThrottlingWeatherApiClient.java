@@ -0,0 +1,98 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.exceptions.RequestThrottledException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+// Chroni limit zapytań do Open-Meteo (token bucket) i nie dopuszcza do kolejkowania wątków za przeciążonym API
+// (adaptacyjny limit współbieżności). Po przekroczeniu maxWait zapytanie kończy się RequestThrottledException (503).
+// Paczki lokalizacji (batch) i paczki zakresu dat (/range) czekają do batchMaxWait - kolejne paczki jednego zapytania
+// przekraczają burst i muszą poczekać na uzupełnienie żetonów zamiast kończyć się 503 w połowie strumienia.
+public class ThrottlingWeatherApiClient implements WeatherApiClient {
+
+    private static final Duration CONCURRENCY_RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final WeatherApiClient delegate;
+    private final TokenBucketRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final Duration maxWait;
+    private final Duration batchMaxWait;
+    private final Counter rateLimited;
+    private final Counter concurrencyLimited;
+
+    public ThrottlingWeatherApiClient(WeatherApiClient delegate, TokenBucketRateLimiter rateLimiter,
+                                      AdaptiveConcurrencyLimiter concurrencyLimiter, Duration maxWait,
+                                      MeterRegistry meterRegistry) {
+        this(delegate, rateLimiter, concurrencyLimiter, maxWait, maxWait, meterRegistry);
+    }
+
+    public ThrottlingWeatherApiClient(WeatherApiClient delegate, TokenBucketRateLimiter rateLimiter,
+                                      AdaptiveConcurrencyLimiter concurrencyLimiter, Duration maxWait,
+                                      Duration batchMaxWait, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.maxWait = maxWait;
+        this.batchMaxWait = batchMaxWait;
+        this.rateLimited = meterRegistry.counter("open-meteo.api.throttled", "reason", "rate_limit");
+        this.concurrencyLimited = meterRegistry.counter("open-meteo.api.throttled", "reason", "concurrency_limit");
+        Gauge.builder("open-meteo.api.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Aktualny limit równoległych zapytań do Open-Meteo")
+                .register(meterRegistry);
+        Gauge.builder("open-meteo.api.concurrency.in-flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::inFlight)
+                .description("Zapytania do Open-Meteo objęte limitem współbieżności")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        return throttle(1, maxWait, () -> delegate.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone));
+    }
+
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        // Open-Meteo liczy każde rozpoczęte 14 dni danych jako osobne wywołanie
+        int permits = Math.max(1, (window.length() + 13) / 14);
+        // Zakres dat jest pobierany paczkami jak batch; okno forecastDays to pojedyncze zapytanie
+        Duration wait = window.isRange() ? batchMaxWait : maxWait;
+        return throttle(permits, wait, () -> delegate.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone));
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        // Open-Meteo liczy zapytanie o wiele lokalizacji jako wiele wywołań
+        return throttle(locations.size(), batchMaxWait, () -> delegate.getWeatherDataBatch(locations, dailyParameters, hourlyParameters, timezone));
+    }
+
+    private <T> T throttle(int permits, Duration wait, Supplier<T> call) {
+        if (!rateLimiter.tryAcquire(permits, wait)) {
+            rateLimited.increment();
+            throw new RequestThrottledException("Przekroczono limit zapytań do API Open-Meteo.",
+                    rateLimiter.timeToPermits(permits));
+        }
+        if (!concurrencyLimiter.tryAcquire(wait)) {
+            // Zapytanie nie poszło do Open-Meteo, więc nie zużywa limitu
+            rateLimiter.release(permits);
+            concurrencyLimited.increment();
+            throw new RequestThrottledException("API Open-Meteo jest przeciążone.", CONCURRENCY_RETRY_AFTER);
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            concurrencyLimiter.release(System.nanoTime() - start, success);
+        }
+    }
+}
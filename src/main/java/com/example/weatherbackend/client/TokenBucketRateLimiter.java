@@ -0,0 +1,71 @@
+package com.example.weatherbackend.client;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Token bucket w wariancie GCRA: zamiast licznika żetonów trzymamy teoretyczny czas kolejnego zapytania,
+// więc pobranie żetonu to jeden CAS bez blokad i bez wątku uzupełniającego.
+public class TokenBucketRateLimiter {
+
+    private final long intervalNanos; // odstęp między żetonami
+    private final long burstNanos; // ile zapytań można wykonać naraz ponad średnie tempo
+    private final int burst;
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        if (permitsPerSecond <= 0 || burst <= 0) {
+            throw new IllegalArgumentException("permitsPerSecond i burst muszą być dodatnie.");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.burstNanos = intervalNanos * (burst - 1);
+        this.burst = burst;
+    }
+
+    // Czeka na żetony najwyżej maxWait; przy maxWait = 0 od razu odmawia.
+    // Zapytanie o więcej żetonów niż burst pobiera cały burst - inaczej nigdy by się nie zmieściło.
+    public boolean tryAcquire(int permits, Duration maxWait) {
+        permits = Math.min(permits, burst);
+        long now = System.nanoTime();
+        long wait;
+        while (true) {
+            long previous = theoreticalArrival.get();
+            long start = previous == Long.MIN_VALUE ? now : Math.max(previous, now);
+            long next = start + intervalNanos * permits;
+            wait = next - intervalNanos - burstNanos - now;
+            if (wait > maxWait.toNanos()) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(previous, next)) {
+                break;
+            }
+        }
+        if (wait > 0) {
+            LockSupport.parkNanos(wait);
+        }
+        return true;
+    }
+
+    // Oddaje żetony zapytania, które ostatecznie nie trafiło do Open-Meteo. Czas przesunięty poniżej teraz
+    // nie daje dodatkowego zapasu - tryAcquire liczy od max(previous, now)
+    public void release(int permits) {
+        long refund = intervalNanos * Math.min(permits, burst);
+        theoreticalArrival.updateAndGet(previous -> previous == Long.MIN_VALUE ? previous : previous - refund);
+    }
+
+    // Za ile zwolni się kolejny żeton - dla nagłówka Retry-After
+    public Duration timeToNextPermit() {
+        return timeToPermits(1);
+    }
+
+    // Za ile będzie dostępnych permits żetonów naraz (najwyżej burst, jak w tryAcquire)
+    public Duration timeToPermits(int permits) {
+        long previous = theoreticalArrival.get();
+        if (previous == Long.MIN_VALUE) {
+            return Duration.ZERO;
+        }
+        long extra = intervalNanos * (Math.min(permits, burst) - 1);
+        return Duration.ofNanos(Math.max(0, previous + extra - burstNanos - System.nanoTime()));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.util.List;
+
+// Zlicza zapytania per komórka siatki w HotCellTracker, zanim trafią do cache
+public class TrackingWeatherApiClient implements WeatherApiClient {
+
+    private final WeatherApiClient delegate;
+    private final ForecastCache forecastCache;
+    private final HotCellTracker hotCellTracker;
+
+    public TrackingWeatherApiClient(WeatherApiClient delegate, ForecastCache forecastCache, HotCellTracker hotCellTracker) {
+        this.delegate = delegate;
+        this.forecastCache = forecastCache;
+        this.hotCellTracker = hotCellTracker;
+    }
+
+    @Override
+    public WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        hotCellTracker.record(forecastCache.keyFor(latitude, longitude, dailyParameters, hourlyParameters, timezone));
+        return delegate.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+    }
+
+    // Zakresy dat nie są liczone do popularności komórek - odświeżanie w tle dotyczy domyślnego okna
+    @Override
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        return delegate.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone);
+    }
+
+    @Override
+    public List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        for (Coordinates location : locations) {
+            hotCellTracker.record(forecastCache.keyFor(location.latitude(), location.longitude(), dailyParameters, hourlyParameters, timezone));
+        }
+        return delegate.getWeatherDataBatch(locations, dailyParameters, hourlyParameters, timezone);
+    }
+}
@@ -1,7 +1,29 @@
 package com.example.weatherbackend.client;
 
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
 import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public interface WeatherApiClient {
-    WeatherResponse getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone);
-}
\ No newline at end of file
+    WeatherSnapshot getWeatherData(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone);
+
+    // Prognoza na zadaną liczbę dni albo zakres dat (także historyczny); domyślnie nieobsługiwana,
+    // np. przy odtwarzaniu z pliku, który przechowuje tylko domyślne okno prognozy
+    default WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window, String dailyParameters, String hourlyParameters, String timezone) {
+        throw new WeatherDataNotFoundException("Zakresy dat nie są dostępne dla tego źródła danych pogodowych.");
+    }
+
+    // Odpowiedzi w kolejności lokalizacji; domyślnie jedno zapytanie na lokalizację
+    default List<WeatherSnapshot> getWeatherDataBatch(List<Coordinates> locations, String dailyParameters, String hourlyParameters, String timezone) {
+        List<WeatherSnapshot> responses = new ArrayList<>(locations.size());
+        for (Coordinates location : locations) {
+            responses.add(getWeatherData(location.latitude(), location.longitude(), dailyParameters, hourlyParameters, timezone));
+        }
+        return responses;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.weatherbackend.client;
+
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Instant;
+
+// Zwarty format binarny WeatherSnapshot (czas pobrania + WeatherResponse): kolumny zapisywane jako długość + surowe wartości, null jako długość -1.
+// Wersja 2 dodaje godzinowe promieniowanie i temperaturę; pliki w wersji 1 są nadal czytane.
+public final class WeatherResponseCodec {
+
+    private static final byte VERSION = 2;
+    private static final byte VERSION_PRESSURE_ONLY = 1;
+    private static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+    private WeatherResponseCodec() {
+    }
+
+    public static void write(DataOutput out, WeatherSnapshot snapshot) throws IOException {
+        out.writeByte(VERSION);
+        out.writeLong(snapshot.fetchedAt() != null ? snapshot.fetchedAt().toEpochMilli() : NO_TIMESTAMP);
+
+        WeatherResponse response = snapshot.response();
+        WeatherResponse.Daily daily = response.daily();
+        out.writeBoolean(daily != null);
+        if (daily != null) {
+            writeStrings(out, daily.time());
+            writeInts(out, daily.weather_code());
+            writeDoubles(out, daily.temperature_2m_min());
+            writeDoubles(out, daily.temperature_2m_max());
+            writeDoubles(out, daily.sunshine_duration());
+            writeDoubles(out, daily.rain_sum());
+        }
+
+        WeatherResponse.Hourly hourly = response.hourly();
+        out.writeBoolean(hourly != null);
+        if (hourly != null) {
+            writeDoubles(out, hourly.surface_pressure());
+            writeDoubles(out, hourly.shortwave_radiation());
+            writeDoubles(out, hourly.diffuse_radiation());
+            writeDoubles(out, hourly.temperature_2m());
+            out.writeLong(hourly.start() != null ? hourly.start().getEpochSecond() : NO_TIMESTAMP);
+        }
+    }
+
+    public static WeatherSnapshot read(DataInput in) throws IOException {
+        byte version = in.readByte();
+        if (version != VERSION && version != VERSION_PRESSURE_ONLY) {
+            throw new IOException("Nieobsługiwana wersja formatu: " + version);
+        }
+        long fetchedAt = in.readLong();
+
+        WeatherResponse.Daily daily = null;
+        if (in.readBoolean()) {
+            daily = new WeatherResponse.Daily(readStrings(in), readInts(in), readDoubles(in),
+                    readDoubles(in), readDoubles(in), readDoubles(in));
+        }
+        WeatherResponse.Hourly hourly = null;
+        if (in.readBoolean()) {
+            double[] surfacePressure = readDoubles(in);
+            if (version == VERSION_PRESSURE_ONLY) {
+                hourly = new WeatherResponse.Hourly(surfacePressure);
+            } else {
+                double[] shortwaveRadiation = readDoubles(in);
+                double[] diffuseRadiation = readDoubles(in);
+                double[] temperature = readDoubles(in);
+                long start = in.readLong();
+                hourly = new WeatherResponse.Hourly(surfacePressure, shortwaveRadiation, diffuseRadiation, temperature,
+                        start != NO_TIMESTAMP ? Instant.ofEpochSecond(start) : null);
+            }
+        }
+        return new WeatherSnapshot(new WeatherResponse(daily, hourly), fetchedAt != NO_TIMESTAMP ? Instant.ofEpochMilli(fetchedAt) : null);
+    }
+
+    private static void writeStrings(DataOutput out, String[] values) throws IOException {
+        out.writeInt(values != null ? values.length : -1);
+        if (values != null) {
+            for (String value : values) {
+                out.writeUTF(value);
+            }
+        }
+    }
+
+    private static void writeInts(DataOutput out, int[] values) throws IOException {
+        out.writeInt(values != null ? values.length : -1);
+        if (values != null) {
+            for (int value : values) {
+                out.writeInt(value);
+            }
+        }
+    }
+
+    private static void writeDoubles(DataOutput out, double[] values) throws IOException {
+        out.writeInt(values != null ? values.length : -1);
+        if (values != null) {
+            for (double value : values) {
+                out.writeDouble(value);
+            }
+        }
+    }
+
+    private static String[] readStrings(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        String[] values = new String[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readUTF();
+        }
+        return values;
+    }
+
+    private static int[] readInts(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        int[] values = new int[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readInt();
+        }
+        return values;
+    }
+
+    private static double[] readDoubles(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.weatherbackend.config;
+
+import com.example.weatherbackend.client.AdaptiveConcurrencyLimiter;
+import com.example.weatherbackend.client.CacheWarmer;
+import com.example.weatherbackend.client.CachingWeatherApiClient;
+import com.example.weatherbackend.client.CircuitBreaker;
+import com.example.weatherbackend.client.CircuitBreakerWeatherApiClient;
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastStore;
+import com.example.weatherbackend.client.HotCellTracker;
+import com.example.weatherbackend.client.InMemorySharedCacheBackend;
+import com.example.weatherbackend.client.OpenMeteoApiClient;
+import com.example.weatherbackend.client.ReactiveUpstreamGuard;
+import com.example.weatherbackend.client.RedisSharedCacheBackend;
+import com.example.weatherbackend.client.ReplayWeatherApiClient;
+import com.example.weatherbackend.client.SharedCacheBackend;
+import com.example.weatherbackend.client.SharedCacheWeatherApiClient;
+import com.example.weatherbackend.client.SingleFlightWeatherApiClient;
+import com.example.weatherbackend.client.StoringWeatherApiClient;
+import com.example.weatherbackend.client.ThrottlingWeatherApiClient;
+import com.example.weatherbackend.client.TokenBucketRateLimiter;
+import com.example.weatherbackend.client.TrackingWeatherApiClient;
+import com.example.weatherbackend.client.WeatherApiClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+@Configuration
+public class WeatherApiClientConfig {
+
+    // Trwały zapis odpowiedzi - po restarcie cache jest wypełniany z dysku zamiast z Open-Meteo.
+    // Zapis na dysk w tle na applicationTaskExecutor, poza wątkiem obsługującym zapytanie
+    @Bean
+    @ConditionalOnProperty(name = "open-meteo.store.enabled", havingValue = "true")
+    public ForecastStore forecastStore(@Value("${open-meteo.store.path}") Path path,
+                                       @Value("${open-meteo.cache.ttl}") Duration ttl,
+                                       AsyncTaskExecutor applicationTaskExecutor) {
+        if (!path.isAbsolute()) {
+            throw new IllegalArgumentException("open-meteo.store.path musi być ścieżką bezwzględną.");
+        }
+        return new ForecastStore(path, ttl, Clock.systemUTC(), applicationTaskExecutor);
+    }
+
+    // Limit tempa i współbieżności zapytań HTTP do Open-Meteo - wspólne dla klienta blokującego i WebClient
+    @Bean
+    @ConditionalOnProperty(name = "open-meteo.throttling.enabled", havingValue = "true")
+    public TokenBucketRateLimiter openMeteoRateLimiter(@Value("${open-meteo.throttling.requests-per-second}") double requestsPerSecond,
+                                                       @Value("${open-meteo.throttling.burst}") int burst) {
+        return new TokenBucketRateLimiter(requestsPerSecond, burst);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "open-meteo.throttling.enabled", havingValue = "true")
+    public AdaptiveConcurrencyLimiter openMeteoConcurrencyLimiter(@Value("${open-meteo.throttling.initial-limit}") int initialLimit,
+                                                                  @Value("${open-meteo.throttling.min-limit}") int minLimit,
+                                                                  @Value("${open-meteo.throttling.max-limit}") int maxLimit,
+                                                                  @Value("${open-meteo.throttling.latency-threshold}") Duration latencyThreshold,
+                                                                  @Value("${open-meteo.throttling.backoff-ratio}") double backoffRatio) {
+        return new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "open-meteo.throttling.enabled", havingValue = "true")
+    public ThrottlingWeatherApiClient throttlingWeatherApiClient(OpenMeteoApiClient openMeteoApiClient,
+                                                                 TokenBucketRateLimiter openMeteoRateLimiter,
+                                                                 AdaptiveConcurrencyLimiter openMeteoConcurrencyLimiter,
+                                                                 MeterRegistry meterRegistry,
+                                                                 @Value("${open-meteo.throttling.max-wait}") Duration maxWait,
+                                                                 @Value("${open-meteo.throttling.batch-max-wait}") Duration batchMaxWait) {
+        return new ThrottlingWeatherApiClient(openMeteoApiClient, openMeteoRateLimiter, openMeteoConcurrencyLimiter,
+                maxWait, batchMaxWait, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "open-meteo.circuit-breaker.enabled", havingValue = "true")
+    public CircuitBreaker openMeteoCircuitBreaker(@Value("${open-meteo.circuit-breaker.window-size}") int windowSize,
+                                                  @Value("${open-meteo.circuit-breaker.minimum-calls}") int minimumCalls,
+                                                  @Value("${open-meteo.circuit-breaker.failure-rate-threshold}") double failureRateThreshold,
+                                                  @Value("${open-meteo.circuit-breaker.slow-call-rate-threshold}") double slowCallRateThreshold,
+                                                  @Value("${open-meteo.circuit-breaker.slow-call-duration}") Duration slowCallDuration,
+                                                  @Value("${open-meteo.circuit-breaker.open-duration}") Duration openDuration,
+                                                  @Value("${open-meteo.circuit-breaker.half-open-calls}") int halfOpenCalls) {
+        return new CircuitBreaker(windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                slowCallDuration, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    // Bezpiecznik i bulkheady nad limitami zapytań; otwarty obwód odrzuca zapytania bez czekania na HTTP
+    @Bean
+    @ConditionalOnProperty(name = "open-meteo.circuit-breaker.enabled", havingValue = "true")
+    public CircuitBreakerWeatherApiClient circuitBreakerWeatherApiClient(OpenMeteoApiClient openMeteoApiClient,
+                                                                         ObjectProvider<ThrottlingWeatherApiClient> throttlingClientProvider,
+                                                                         CircuitBreaker openMeteoCircuitBreaker,
+                                                                         MeterRegistry meterRegistry,
+                                                                         @Value("${open-meteo.bulkhead.single-max-concurrent}") int singleMaxConcurrent,
+                                                                         @Value("${open-meteo.bulkhead.batch-max-concurrent}") int batchMaxConcurrent) {
+        ThrottlingWeatherApiClient throttling = throttlingClientProvider.getIfAvailable();
+        return new CircuitBreakerWeatherApiClient(throttling != null ? throttling : openMeteoApiClient, openMeteoCircuitBreaker,
+                singleMaxConcurrent, batchMaxConcurrent, meterRegistry);
+    }
+
+    // Profil reactive: te same limity i bezpiecznik przed WebClient, bulkhead jak dla zapytań pojedynczych
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveUpstreamGuard reactiveUpstreamGuard(ObjectProvider<TokenBucketRateLimiter> rateLimiterProvider,
+                                                       ObjectProvider<AdaptiveConcurrencyLimiter> concurrencyLimiterProvider,
+                                                       ObjectProvider<CircuitBreaker> circuitBreakerProvider,
+                                                       MeterRegistry meterRegistry,
+                                                       @Value("${open-meteo.bulkhead.single-max-concurrent}") int maxConcurrent) {
+        return new ReactiveUpstreamGuard(rateLimiterProvider.getIfAvailable(), concurrencyLimiterProvider.getIfAvailable(),
+                circuitBreakerProvider.getIfAvailable(), maxConcurrent, meterRegistry);
+    }
+
+    // Cache L2 wspólny dla replik: Redis albo magazyn w pamięci procesu (testy, pojedyncza instancja)
+    @Bean
+    @ConditionalOnProperty(name = {"open-meteo.cache.enabled", "open-meteo.shared-cache.enabled"}, havingValue = "true")
+    public SharedCacheBackend sharedCacheBackend(@Value("${open-meteo.shared-cache.backend}") String backend,
+                                                 @Value("${open-meteo.shared-cache.redis-uri}") String redisUri,
+                                                 @Value("${open-meteo.shared-cache.timeout}") Duration timeout,
+                                                 @Value("${open-meteo.shared-cache.retry-interval}") Duration retryInterval) {
+        return switch (backend) {
+            case "redis" -> new RedisSharedCacheBackend(redisUri, timeout, retryInterval);
+            case "memory" -> new InMemorySharedCacheBackend(Clock.systemUTC());
+            default -> throw new IllegalArgumentException("Nieznany open-meteo.shared-cache.backend: " + backend + ".");
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = {"open-meteo.cache.enabled", "open-meteo.prewarm.enabled"}, havingValue = "true")
+    public HotCellTracker hotCellTracker(@Value("${open-meteo.prewarm.top-k}") int topK,
+                                         @Value("${open-meteo.prewarm.sketch-width}") int sketchWidth) {
+        return new HotCellTracker(topK, sketchWidth);
+    }
+
+    // Cache z odświeżaniem w tle na wątkach wirtualnych applicationTaskExecutor
+    @Bean
+    @ConditionalOnProperty(name = "open-meteo.cache.enabled", havingValue = "true")
+    public CachingWeatherApiClient cachingWeatherApiClient(OpenMeteoApiClient openMeteoApiClient,
+                                                           ObjectProvider<ThrottlingWeatherApiClient> throttlingClientProvider,
+                                                           ObjectProvider<CircuitBreakerWeatherApiClient> circuitBreakerClientProvider,
+                                                           ForecastCache forecastCache,
+                                                           ObjectProvider<ForecastStore> forecastStoreProvider,
+                                                           ObjectProvider<SharedCacheBackend> sharedCacheBackendProvider,
+                                                           MeterRegistry meterRegistry,
+                                                           AsyncTaskExecutor applicationTaskExecutor,
+                                                           @Value("${open-meteo.cache.soft-ttl}") Duration softTtl,
+                                                           @Value("${open-meteo.store.replay}") boolean replay,
+                                                           @Value("${open-meteo.shared-cache.channel}") String sharedCacheChannel) {
+        ForecastStore forecastStore = forecastStoreProvider.getIfAvailable();
+        WeatherApiClient client = upstream(httpClient(openMeteoApiClient, throttlingClientProvider, circuitBreakerClientProvider),
+                forecastStore, replay, meterRegistry);
+        if (forecastStore != null && !replay) {
+            client = new StoringWeatherApiClient(client, forecastStore, applicationTaskExecutor, Clock.systemUTC());
+            // Wczytanie w tle - aplikacja przyjmuje ruch od razu, a cache zapełnia się w trakcie
+            applicationTaskExecutor.execute(() -> warmUp(forecastStore, forecastCache));
+        }
+        SharedCacheBackend sharedCache = sharedCacheBackendProvider.getIfAvailable();
+        if (sharedCache != null && !replay) {
+            client = new SharedCacheWeatherApiClient(client, sharedCache, forecastCache, sharedCacheChannel, softTtl,
+                    Clock.systemUTC(), meterRegistry);
+        }
+
+        CachingWeatherApiClient caching = new CachingWeatherApiClient(client, forecastCache, softTtl,
+                applicationTaskExecutor, Clock.systemUTC());
+        Gauge.builder("forecast.cache.refreshing", caching, CachingWeatherApiClient::refreshingCount)
+                .description("Liczba wpisów cache odświeżanych w tle")
+                .register(meterRegistry);
+        return caching;
+    }
+
+    // Odświeża popularne komórki przed wygaśnięciem, żeby nie trafiały do Open-Meteo na ścieżce użytkownika
+    @Bean
+    @ConditionalOnProperty(name = {"open-meteo.cache.enabled", "open-meteo.prewarm.enabled"}, havingValue = "true")
+    public CacheWarmer cacheWarmer(HotCellTracker hotCellTracker,
+                                   ForecastCache forecastCache,
+                                   CachingWeatherApiClient cachingWeatherApiClient,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${open-meteo.cache.soft-ttl}") Duration softTtl,
+                                   @Value("${open-meteo.prewarm.interval}") Duration interval,
+                                   @Value("${open-meteo.prewarm.top-k}") int topK,
+                                   @Value("${open-meteo.prewarm.max-requests-per-minute}") int maxRequestsPerMinute) {
+        CacheWarmer cacheWarmer = new CacheWarmer(hotCellTracker, forecastCache, cachingWeatherApiClient, softTtl, interval,
+                topK, maxRequestsPerMinute, Clock.systemUTC(), meterRegistry);
+        cacheWarmer.start();
+        return cacheWarmer;
+    }
+
+    // Łańcuch dekoratorów przed OpenMeteoApiClient; serwisy wstrzykują ten bean
+    @Bean
+    @Primary
+    public WeatherApiClient weatherApiClient(OpenMeteoApiClient openMeteoApiClient,
+                                             ObjectProvider<ThrottlingWeatherApiClient> throttlingClientProvider,
+                                             ObjectProvider<CircuitBreakerWeatherApiClient> circuitBreakerClientProvider,
+                                             ObjectProvider<ForecastStore> forecastStoreProvider,
+                                             ObjectProvider<CachingWeatherApiClient> cachingClientProvider,
+                                             ObjectProvider<HotCellTracker> hotCellTrackerProvider,
+                                             ForecastCache forecastCache,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${open-meteo.store.replay}") boolean replay) {
+        CachingWeatherApiClient caching = cachingClientProvider.getIfAvailable();
+        if (caching == null) {
+            return upstream(httpClient(openMeteoApiClient, throttlingClientProvider, circuitBreakerClientProvider),
+                    forecastStoreProvider.getIfAvailable(), replay, meterRegistry);
+        }
+        HotCellTracker hotCellTracker = hotCellTrackerProvider.getIfAvailable();
+        if (hotCellTracker != null) {
+            return new TrackingWeatherApiClient(caching, forecastCache, hotCellTracker);
+        }
+        return caching;
+    }
+
+    // Najbardziej zewnętrzna z włączonych warstw ochronnych: bezpiecznik -> limity -> HTTP
+    private static WeatherApiClient httpClient(OpenMeteoApiClient openMeteoApiClient,
+                                               ObjectProvider<ThrottlingWeatherApiClient> throttlingClientProvider,
+                                               ObjectProvider<CircuitBreakerWeatherApiClient> circuitBreakerClientProvider) {
+        CircuitBreakerWeatherApiClient circuitBreaker = circuitBreakerClientProvider.getIfAvailable();
+        if (circuitBreaker != null) {
+            return circuitBreaker;
+        }
+        ThrottlingWeatherApiClient throttling = throttlingClientProvider.getIfAvailable();
+        return throttling != null ? throttling : openMeteoApiClient;
+    }
+
+    private static WeatherApiClient upstream(WeatherApiClient httpClient, ForecastStore forecastStore,
+                                             boolean replay, MeterRegistry meterRegistry) {
+        // Tryb offline: zamiast Open-Meteo odpowiedzi zapisane w ForecastStore
+        WeatherApiClient upstream = httpClient;
+        if (replay && forecastStore != null) {
+            upstream = ReplayWeatherApiClient.fromStore(forecastStore);
+        }
+
+        // Równoległe zapytania o ten sam klucz dzielą jedno wywołanie HTTP
+        SingleFlightWeatherApiClient singleFlight = new SingleFlightWeatherApiClient(upstream);
+        Gauge.builder("open-meteo.api.in-flight", singleFlight, SingleFlightWeatherApiClient::inFlightCount)
+                .description("Liczba trwających zapytań do Open-Meteo")
+                .register(meterRegistry);
+        return singleFlight;
+    }
+
+    private static void warmUp(ForecastStore forecastStore, ForecastCache forecastCache) {
+        try {
+            forecastStore.load().forEach(forecastCache::putIfAbsent);
+            if (forecastStore.needsCompaction()) {
+                forecastStore.compact();
+            }
+        } catch (UncheckedIOException e) {
+            // Uszkodzony lub nieczytelny plik - startujemy z pustym cache
+        }
+    }
+}
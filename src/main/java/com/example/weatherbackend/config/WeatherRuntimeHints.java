@@ -0,0 +1,40 @@
+package com.example.weatherbackend.config;
+
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.DailyForecast;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.LocationForecast;
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.RangeSummary;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSummary;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+// Obraz natywny: rekordy zapisywane przez Jacksona bezpośrednio do strumienia (batch, stream, cache bajtów)
+// albo czytane z JsonParser nie wynikają z sygnatur kontrolerów, więc AOT nie znajdzie ich sam.
+// VectorSolarYieldKernel celowo bez podpowiedzi - w obrazie natywnym zostaje wersja skalarna.
+public class WeatherRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] BINDING_TYPES = {
+            WeatherResponse.class,
+            DailyForecast.class,
+            WeatherSummary.class,
+            LocationForecast.class,
+            RangeSummary.class,
+            ForecastWindow.class,
+            PanelParameters.class,
+            Coordinates.class
+    };
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingRegistrar.registerReflectionHints(hints.reflection(), BINDING_TYPES);
+        // Prywatny @JsonAnySetter odrzucający nieznane pola lokalizacji
+        hints.reflection().registerType(Coordinates.class, MemberCategory.INVOKE_DECLARED_METHODS);
+    }
+}
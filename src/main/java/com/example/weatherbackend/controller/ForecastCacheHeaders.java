@@ -0,0 +1,76 @@
+package com.example.weatherbackend.controller;
+
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+// Walidatory HTTP (ETag, Last-Modified) i Cache-Control dla odpowiedzi zbudowanych z danych jednej komórki siatki
+@Component
+public class ForecastCacheHeaders {
+
+    private final Duration softTtl;
+    private final CacheControl cacheControl;
+
+    public ForecastCacheHeaders(@Value("${open-meteo.cache.soft-ttl}") Duration softTtl, ForecastCache forecastCache) {
+        this.softTtl = softTtl;
+        Duration staleWindow = forecastCache.ttl().minus(softTtl);
+        // max-age to pełny czas świeżości danych - pozostały czas przeglądarki i CDN liczą same z nagłówka Age
+        this.cacheControl = CacheControl.maxAge(softTtl)
+                .cachePublic()
+                .staleWhileRevalidate(staleWindow.isNegative() ? Duration.ZERO : staleWindow);
+    }
+
+    // Ten sam widok tej samej komórki z tego samego pobrania z Open-Meteo ma zawsze ten sam ETag.
+    // Słaby, bo ta sama treść może być wysłana w różnych kodowaniach (gzip, identity).
+    public String etag(String view, ForecastKey cell, WeatherSnapshot data) {
+        long hash = Double.doubleToLongBits(cell.latitude());
+        hash = 31 * hash + Double.doubleToLongBits(cell.longitude());
+        hash = 31 * hash + cell.dailyParameters().hashCode();
+        hash = 31 * hash + cell.hourlyParameters().hashCode();
+        hash = 31 * hash + cell.timezone().hashCode();
+        return "W/\"" + view + "-" + Long.toHexString(hash) + "-" + Long.toHexString(data.fetchedAt().toEpochMilli()) + "\"";
+    }
+
+    // Odpowiedź 304 prosto z cache tylko dla świeżych danych - po soft TTL zapytanie musi przejść przez serwis,
+    // żeby uruchomić odświeżenie w tle
+    public boolean isFresh(WeatherSnapshot data) {
+        return data.fetchedAt() != null && data.fetchedAt().plus(softTtl).isAfter(Instant.now());
+    }
+
+    // If-None-Match (słabe porównanie), a gdy go brak - If-Modified-Since
+    public boolean notModified(HttpHeaders requestHeaders, String etag, Instant lastModified) {
+        List<String> ifNoneMatch;
+        try {
+            ifNoneMatch = requestHeaders.getIfNoneMatch();
+        } catch (IllegalArgumentException e) {
+            return false; // niepoprawny nagłówek - odpowiadamy pełną treścią
+        }
+        if (!ifNoneMatch.isEmpty()) {
+            String opaqueTag = opaqueTag(etag);
+            for (String candidate : ifNoneMatch) {
+                if ("*".equals(candidate) || opaqueTag.equals(opaqueTag(candidate))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long ifModifiedSince = requestHeaders.getIfModifiedSince();
+        return ifModifiedSince >= 0 && lastModified.getEpochSecond() * 1000 <= ifModifiedSince;
+    }
+
+    public CacheControl cacheControl() {
+        return cacheControl;
+    }
+
+    private static String opaqueTag(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.weatherbackend.controller;
+
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import com.example.weatherbackend.service.ReactiveWeatherService;
+import com.example.weatherbackend.service.WeatherService;
+import com.example.weatherbackend.validation.CoordinateValidator;
+import com.example.weatherbackend.validation.PanelParametersValidator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+// Endpointy komórki siatki z WeatherController (7-day-forecast z parametrami paneli, weekly-summary, overview) w tym samym
+// formacie, obsługiwane na pętli zdarzeń WebFlux. /range, /batch-forecast i /stream zapisują odpowiedź w miarę
+// blokujących wywołań Open-Meteo i są dostępne tylko w wariancie servlet - w profilu reactive zwracają 404
+@CrossOrigin(origins = {"${app.cors.allowed-origins}"}, exposedHeaders = HttpHeaders.AGE)
+@RestController
+@RequestMapping("/api/weather")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWeatherController {
+    private static final String FORECAST_VIEW = "forecast";
+    private static final String SUMMARY_VIEW = "summary";
+    private static final String OVERVIEW_VIEW = "overview";
+
+    @Autowired
+    private ReactiveWeatherService reactiveWeatherService;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @Autowired
+    private CoordinateValidator coordinateValidator;
+
+    @Autowired
+    private PanelParametersValidator panelParametersValidator;
+
+    @Autowired
+    private ForecastCacheHeaders cacheHeaders;
+
+    @Autowired
+    private RenderedResponseCache renderedResponses;
+
+    @GetMapping("/7-day-forecast")
+    public Mono<ResponseEntity<byte[]>> get7DayForecast(
+            @RequestParam String latitude,
+            @RequestParam String longitude,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency,
+            @RequestHeader HttpHeaders requestHeaders) {
+        double lat = coordinateValidator.parseLatitude(latitude);
+        double lon = coordinateValidator.parseLongitude(longitude);
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+        String view = view(FORECAST_VIEW, panel);
+
+        ForecastKey cell = weatherService.cellFor(lat, lon);
+        WeatherSnapshot cached = notModifiedCache(view, cell, requestHeaders);
+        if (cached != null) {
+            return Mono.just(validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cell, cached, view).build());
+        }
+
+        return reactiveWeatherService.getWeatherData(lat, lon).map(data -> {
+            RenderedResponseCache.Rendered rendered = renderedResponses.render(view, cell, data, () -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("days", weatherService.processWeatherData(data.response(), cell.latitude(), cell.longitude(), panel));
+                response.put("daily_units", weatherService.getDailyUnits());
+                return response;
+            });
+            return body(validated(ResponseEntity.ok(), cell, data, view), rendered, requestHeaders);
+        });
+    }
+
+    @GetMapping("/weekly-summary")
+    public Mono<ResponseEntity<byte[]>> getWeekSummary(
+            @RequestParam String latitude,
+            @RequestParam String longitude,
+            @RequestHeader HttpHeaders requestHeaders) {
+        double lat = coordinateValidator.parseLatitude(latitude);
+        double lon = coordinateValidator.parseLongitude(longitude);
+
+        ForecastKey cell = weatherService.cellFor(lat, lon);
+        WeatherSnapshot cached = notModifiedCache(SUMMARY_VIEW, cell, requestHeaders);
+        if (cached != null) {
+            return Mono.just(validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cell, cached, SUMMARY_VIEW).build());
+        }
+
+        return reactiveWeatherService.getWeatherData(lat, lon).map(data -> {
+            RenderedResponseCache.Rendered rendered = renderedResponses.render(SUMMARY_VIEW, cell, data, () -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("weekly_summary", weatherService.processWeeklyData(data.response()));
+                response.put("weekly_summary_units", weatherService.getWeeklySummaryUnits());
+                return response;
+            });
+            return body(validated(ResponseEntity.ok(), cell, data, SUMMARY_VIEW), rendered, requestHeaders);
+        });
+    }
+
+    @GetMapping("/overview")
+    public Mono<ResponseEntity<byte[]>> getOverview(
+            @RequestParam String latitude,
+            @RequestParam String longitude,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency,
+            @RequestHeader HttpHeaders requestHeaders) {
+        double lat = coordinateValidator.parseLatitude(latitude);
+        double lon = coordinateValidator.parseLongitude(longitude);
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+        String view = view(OVERVIEW_VIEW, panel);
+
+        ForecastKey cell = weatherService.cellFor(lat, lon);
+        WeatherSnapshot cached = notModifiedCache(view, cell, requestHeaders);
+        if (cached != null) {
+            return Mono.just(validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cell, cached, view).build());
+        }
+
+        return reactiveWeatherService.getWeatherData(lat, lon).map(data -> {
+            RenderedResponseCache.Rendered rendered = renderedResponses.render(view, cell, data, () -> {
+                Map<String, Object> response = new HashMap<>();
+                response.put("days", weatherService.processWeatherData(data.response(), cell.latitude(), cell.longitude(), panel));
+                response.put("daily_units", weatherService.getDailyUnits());
+                response.put("weekly_summary", weatherService.processWeeklyData(data.response()));
+                response.put("weekly_summary_units", weatherService.getWeeklySummaryUnits());
+                return response;
+            });
+            return body(validated(ResponseEntity.ok(), cell, data, view), rendered, requestHeaders);
+        });
+    }
+
+    // Klucz widoku jak w WeatherController - domyślne panele dzielą wpis z zapytaniami bez parametrów
+    private static String view(String view, PanelParameters panel) {
+        if (panel.equals(PanelParameters.DEFAULT)) {
+            return view;
+        }
+        return view + ":" + panel.peakPower() + "," + panel.tilt() + "," + panel.azimuth() + "," + panel.systemEfficiency();
+    }
+
+    // Jak w WeatherController: 304 z cache bez wywołania serwisu, dopóki dane są świeże
+    private WeatherSnapshot notModifiedCache(String view, ForecastKey cell, HttpHeaders requestHeaders) {
+        WeatherSnapshot cached = weatherService.peekCachedWeatherData(cell);
+        if (cached == null || !cacheHeaders.isFresh(cached)) {
+            return null;
+        }
+        return cacheHeaders.notModified(requestHeaders, cacheHeaders.etag(view, cell, cached), cached.fetchedAt()) ? cached : null;
+    }
+
+    private <B extends ResponseEntity.HeadersBuilder<B>> B validated(B builder, ForecastKey cell, WeatherSnapshot data, String view) {
+        if (data.fetchedAt() != null) {
+            long age = Math.max(0, Duration.between(data.fetchedAt(), Instant.now()).toSeconds());
+            builder.eTag(cacheHeaders.etag(view, cell, data))
+                    .lastModified(data.fetchedAt())
+                    .cacheControl(cacheHeaders.cacheControl())
+                    .header(HttpHeaders.AGE, Long.toString(age));
+        }
+        return builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    private static ResponseEntity<byte[]> body(ResponseEntity.BodyBuilder builder, RenderedResponseCache.Rendered rendered,
+                                               HttpHeaders requestHeaders) {
+        builder.contentType(MediaType.APPLICATION_JSON);
+        if (RenderedResponseCache.acceptsGzip(requestHeaders)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(rendered.gzip());
+        }
+        return builder.body(rendered.json());
+    }
+}
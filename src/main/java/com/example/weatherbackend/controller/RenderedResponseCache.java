@@ -0,0 +1,121 @@
+package com.example.weatherbackend.controller;
+
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+// Gotowe bajty odpowiedzi JSON (i ich wersja gzip) per widok i komórka siatki. Budowane raz na pobranie
+// z Open-Meteo - kolejne zapytania o tę komórkę to odczyt z mapy i kopia bajtów, bez obiektów i Jacksona.
+@Component
+public class RenderedResponseCache implements MeterBinder {
+
+    public record Rendered(Instant fetchedAt, byte[] json, byte[] gzip) {
+    }
+
+    private record Key(String view, ForecastKey cell) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, Rendered> cache;
+
+    public RenderedResponseCache(ObjectMapper objectMapper, @Value("${app.response-cache.max-size}") DataSize maxSize) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<Key, Rendered>weigher((key, rendered) -> rendered.json().length + rendered.gzip().length)
+                .recordStats()
+                .build();
+    }
+
+    public Rendered render(String view, ForecastKey cell, WeatherSnapshot data, Supplier<Object> body) {
+        if (data.fetchedAt() == null) {
+            return serialize(null, body.get()); // dane spoza ForecastCache - nie wiadomo, kiedy się zmienią
+        }
+        Key key = new Key(view, cell);
+        Rendered rendered = cache.getIfPresent(key);
+        if (rendered != null && rendered.fetchedAt().equals(data.fetchedAt())) {
+            return rendered;
+        }
+        Rendered fresh = serialize(data.fetchedAt(), body.get());
+        // Przy równoległym odświeżeniu zostaje wersja z nowszego pobrania
+        cache.asMap().merge(key, fresh, (current, candidate) ->
+                candidate.fetchedAt().isAfter(current.fetchedAt()) ? candidate : current);
+        return fresh;
+    }
+
+    // Accept-Encoding z gzip (lub *) o niezerowej wadze
+    public static boolean acceptsGzip(HttpHeaders requestHeaders) {
+        List<String> values = requestHeaders.get(HttpHeaders.ACCEPT_ENCODING);
+        if (values == null) {
+            return false;
+        }
+        boolean accepted = false;
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.split(";");
+                String name = parts[0].trim();
+                if (!name.equalsIgnoreCase("gzip") && !name.equals("*")) {
+                    continue;
+                }
+                boolean zeroWeight = parts.length > 1 && parts[1].trim().matches("q=0(\\.0{0,3})?");
+                if (name.equalsIgnoreCase("gzip")) {
+                    return !zeroWeight; // jawny gzip rozstrzyga niezależnie od *
+                }
+                accepted = !zeroWeight;
+            }
+        }
+        return accepted;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "rendered-response");
+    }
+
+    private Rendered serialize(Instant fetchedAt, Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new Rendered(fetchedAt, json, gzip(json));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Kompresja raz na wpis, więc najwyższy poziom
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,23 +1,57 @@
 package com.example.weatherbackend.controller;
 
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.exceptions.InvalidInputException;
+import com.example.weatherbackend.model.Coordinates;
 import com.example.weatherbackend.model.DailyForecast;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.RangeSummary;
+import com.example.weatherbackend.model.WeatherSnapshot;
 import com.example.weatherbackend.model.WeatherSummary;
 import com.example.weatherbackend.service.WeatherService;
 import com.example.weatherbackend.validation.CoordinateValidator;
+import com.example.weatherbackend.validation.ForecastWindowValidator;
+import com.example.weatherbackend.validation.LocationReader;
+import com.example.weatherbackend.validation.PanelParametersValidator;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-@CrossOrigin(origins = {"${app.cors.allowed-origins}"})
+@CrossOrigin(origins = {"${app.cors.allowed-origins}"}, exposedHeaders = HttpHeaders.AGE)
 @RestController
 @RequestMapping("/api/weather")
 @Validated
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET) // w profilu reactive: ReactiveWeatherController
 public class WeatherController {
+    private static final String FORECAST_VIEW = "forecast";
+    private static final String SUMMARY_VIEW = "summary";
+    private static final String OVERVIEW_VIEW = "overview";
+    private static final String TEXT_CSV_VALUE = "text/csv";
 
     @Autowired
     private WeatherService weatherService;
@@ -25,38 +59,355 @@ public class WeatherController {
     @Autowired
     private CoordinateValidator coordinateValidator; // Wstrzykujemy walidator
 
+    @Autowired
+    private ForecastWindowValidator forecastWindowValidator;
+
+    @Autowired
+    private PanelParametersValidator panelParametersValidator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ForecastCacheHeaders cacheHeaders;
+
+    @Autowired
+    private RenderedResponseCache renderedResponses;
+
+    @Value("${app.batch.max-locations}")
+    private int maxBatchLocations;
+
+    @Value("${app.stream.max-locations}")
+    private int maxStreamLocations;
+
+    // Opcjonalne parametry paneli (peak_power, tilt, azimuth, system_efficiency) zmieniają szacowaną energię
     @GetMapping("/7-day-forecast")
-    public ResponseEntity<Map<String, Object>> get7DayForecast(
+    public ResponseEntity<byte[]> get7DayForecast(
             @RequestParam String latitude,
-            @RequestParam String longitude) {
+            @RequestParam String longitude,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency,
+            @RequestHeader HttpHeaders requestHeaders) {
         // Walidacja i parsowanie koordynatów za pomocą nowej klasy
-        double lat = coordinateValidator.parseAndValidateCoordinate(latitude, "Szerokość geograficzna", -90.0, 90.0);
-        double lon = coordinateValidator.parseAndValidateCoordinate(longitude, "Długość geograficzna", -180.0, 180.0);
+        double lat = coordinateValidator.parseLatitude(latitude);
+        double lon = coordinateValidator.parseLongitude(longitude);
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+        String view = view(FORECAST_VIEW, panel);
+
+        ForecastKey cell = weatherService.cellFor(lat, lon);
+        WeatherSnapshot cached = notModifiedCache(view, cell, requestHeaders);
+        if (cached != null) {
+            return validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cell, cached, view).build();
+        }
 
-        List<DailyForecast> forecast = weatherService.get7DayForecast(lat, lon);
-        Map<String, Object> response = new HashMap<>();
-        response.put("days", forecast);
-        response.put("daily_units", weatherService.getDailyUnits());
+        WeatherSnapshot data = weatherService.getWeatherData(lat, lon);
+        RenderedResponseCache.Rendered rendered = renderedResponses.render(view, cell, data, () -> {
+            // Uzysk dla środka komórki - odpowiedź jest wspólna dla całej komórki
+            List<DailyForecast> forecast = weatherService.processWeatherData(data.response(), cell.latitude(), cell.longitude(), panel);
+            Map<String, Object> response = new HashMap<>();
+            response.put("days", forecast);
+            response.put("daily_units", weatherService.getDailyUnits());
+            return response;
+        });
 
-        return ResponseEntity.ok(response);
+        return body(validated(ResponseEntity.ok(), cell, data, view), rendered, requestHeaders);
         // Obsługa wyjątków została przeniesiona do GlobalExceptionHandler
     }
 
     @GetMapping("/weekly-summary")
-    public ResponseEntity<Map<String, Object>> getWeekSummary(
+    public ResponseEntity<byte[]> getWeekSummary(
             @RequestParam String latitude,
-            @RequestParam String longitude) {
+            @RequestParam String longitude,
+            @RequestHeader HttpHeaders requestHeaders) {
         // Walidacja i parsowanie koordynatów za pomocą nowej klasy
-        double lat = coordinateValidator.parseAndValidateCoordinate(latitude, "Szerokość geograficzna", -90.0, 90.0);
-        double lon = coordinateValidator.parseAndValidateCoordinate(longitude, "Długość geograficzna", -180.0, 180.0);
+        double lat = coordinateValidator.parseLatitude(latitude);
+        double lon = coordinateValidator.parseLongitude(longitude);
 
-        WeatherSummary summary = weatherService.getWeekSummary(lat, lon);
+        ForecastKey cell = weatherService.cellFor(lat, lon);
+        WeatherSnapshot cached = notModifiedCache(SUMMARY_VIEW, cell, requestHeaders);
+        if (cached != null) {
+            return validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cell, cached, SUMMARY_VIEW).build();
+        }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("weekly_summary", summary);
-        response.put("weekly_summary_units", weatherService.getWeeklySummaryUnits());
+        WeatherSnapshot data = weatherService.getWeatherData(lat, lon);
+        RenderedResponseCache.Rendered rendered = renderedResponses.render(SUMMARY_VIEW, cell, data, () -> {
+            WeatherSummary summary = weatherService.processWeeklyData(data.response());
 
-        return ResponseEntity.ok(response);
+            Map<String, Object> response = new HashMap<>();
+            response.put("weekly_summary", summary);
+            response.put("weekly_summary_units", weatherService.getWeeklySummaryUnits());
+            return response;
+        });
+
+        return body(validated(ResponseEntity.ok(), cell, data, SUMMARY_VIEW), rendered, requestHeaders);
         // Obsługa wyjątków została przeniesiona do GlobalExceptionHandler
     }
-}
\ No newline at end of file
+
+    @GetMapping("/overview")
+    public ResponseEntity<byte[]> getOverview(
+            @RequestParam String latitude,
+            @RequestParam String longitude,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency,
+            @RequestHeader HttpHeaders requestHeaders) {
+        double lat = coordinateValidator.parseLatitude(latitude);
+        double lon = coordinateValidator.parseLongitude(longitude);
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+        String view = view(OVERVIEW_VIEW, panel);
+
+        ForecastKey cell = weatherService.cellFor(lat, lon);
+        WeatherSnapshot cached = notModifiedCache(view, cell, requestHeaders);
+        if (cached != null) {
+            return validated(ResponseEntity.status(HttpStatus.NOT_MODIFIED), cell, cached, view).build();
+        }
+
+        // Prognoza i podsumowanie z jednego zapytania do API
+        WeatherSnapshot data = weatherService.getWeatherData(lat, lon);
+        RenderedResponseCache.Rendered rendered = renderedResponses.render(view, cell, data, () -> {
+            Map<String, Object> response = new HashMap<>();
+            response.put("days", weatherService.processWeatherData(data.response(), cell.latitude(), cell.longitude(), panel));
+            response.put("daily_units", weatherService.getDailyUnits());
+            response.put("weekly_summary", weatherService.processWeeklyData(data.response()));
+            response.put("weekly_summary_units", weatherService.getWeeklySummaryUnits());
+            return response;
+        });
+
+        return body(validated(ResponseEntity.ok(), cell, data, view), rendered, requestHeaders);
+    }
+
+    // Prognoza do 16 dni (forecast_days) albo dowolny zakres dat, także historyczny (start_date, end_date).
+    // Dni są zapisywane do odpowiedzi paczkami w miarę pobierania, a podsumowanie zakresu trafia na koniec.
+    @GetMapping("/range")
+    public ResponseEntity<StreamingResponseBody> getRangeForecast(
+            @RequestParam String latitude,
+            @RequestParam String longitude,
+            @RequestParam(name = "forecast_days", required = false) String forecastDays,
+            @RequestParam(name = "start_date", required = false) String startDate,
+            @RequestParam(name = "end_date", required = false) String endDate,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency) {
+        double lat = coordinateValidator.parseLatitude(latitude);
+        double lon = coordinateValidator.parseLongitude(longitude);
+        ForecastWindow window = forecastWindowValidator.parse(forecastDays, startDate, endDate);
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+
+        StreamingResponseBody body = outputStream -> {
+            // Bez flush po każdym dniu - do odpowiedzi trafiają pełne bufory generatora
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            WrittenOutputStream out = new WrittenOutputStream(outputStream);
+            JsonGenerator generator = writer.createGenerator(out);
+            generator.writeStartObject();
+            generator.writeFieldName("daily_units");
+            writer.writeValue(generator, weatherService.getDailyUnits());
+            generator.writeArrayFieldStart("days");
+            RangeSummary summary;
+            try {
+                summary = weatherService.forEachDay(lat, lon, window, panel, day -> {
+                    try {
+                        writer.writeValue(generator, day);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e; // klient przerwał połączenie - nie ma komu zapisać błędu
+            } catch (RuntimeException e) {
+                if (!out.written) {
+                    throw e; // nic nie wysłano - zwykła odpowiedź błędu z GlobalExceptionHandler
+                }
+                // Część dni już wysłana ze statusem 200 - błąd zapisujemy w treści, żeby JSON pozostał poprawny
+                generator.writeEndArray();
+                generator.writeStringField("error", WeatherService.errorMessage(e));
+                generator.writeEndObject();
+                generator.close();
+                return;
+            }
+            generator.writeEndArray();
+            generator.writeFieldName("summary");
+            writer.writeValue(generator, summary);
+            generator.writeEndObject();
+            generator.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @PostMapping("/batch-forecast")
+    public ResponseEntity<StreamingResponseBody> getBatchForecast(
+            @RequestBody List<Coordinates> locations,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency) {
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+        if (locations.isEmpty() || locations.size() > maxBatchLocations) {
+            throw new InvalidInputException("Liczba lokalizacji musi być w przedziale [1, " + maxBatchLocations + "].");
+        }
+        for (Coordinates location : locations) {
+            coordinateValidator.validateLatitude(location.latitude());
+            coordinateValidator.validateLongitude(location.longitude());
+        }
+
+        // Wyniki kolejnych paczek są zapisywane do odpowiedzi, gdy tylko są gotowe
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                weatherService.forEachForecast(locations, panel, forecast -> {
+                    try {
+                        generator.writeObject(forecast);
+                        generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // Prognozy dla dużych zbiorów lokalizacji: tablica JSON lub CSV w treści zapytania. Każda lokalizacja trafia
+    // do odpowiedzi osobnym wierszem NDJSON (albo zdarzeniem SSE przy Accept: text/event-stream), gdy tylko jej
+    // paczka jest gotowa. Wejście jest czytane w tempie zapisu odpowiedzi, więc pamięć nie zależy od liczby lokalizacji.
+    @PostMapping(value = "/stream", consumes = {MediaType.APPLICATION_JSON_VALUE, TEXT_CSV_VALUE, MediaType.TEXT_PLAIN_VALUE})
+    public ResponseEntity<StreamingResponseBody> streamForecasts(
+            @RequestHeader HttpHeaders requestHeaders,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency,
+            InputStream requestBody) {
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+        LocationReader locations = MediaType.APPLICATION_JSON.isCompatibleWith(requestHeaders.getContentType())
+                ? LocationReader.json(requestBody, objectMapper, coordinateValidator, maxStreamLocations)
+                : LocationReader.csv(requestBody, coordinateValidator, maxStreamLocations);
+        return streamForecasts(requestHeaders, locations, panel);
+    }
+
+    // Ten sam strumień dla pliku CSV przesłanego formularzem (pole "file")
+    @PostMapping(value = "/stream", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamForecastsFromFile(
+            @RequestHeader HttpHeaders requestHeaders,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(name = "peak_power", required = false) String peakPower,
+            @RequestParam(required = false) String tilt,
+            @RequestParam(required = false) String azimuth,
+            @RequestParam(name = "system_efficiency", required = false) String systemEfficiency) throws IOException {
+        PanelParameters panel = panelParametersValidator.parse(peakPower, tilt, azimuth, systemEfficiency);
+        return streamForecasts(requestHeaders, LocationReader.csv(file.getInputStream(), coordinateValidator, maxStreamLocations), panel);
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamForecasts(HttpHeaders requestHeaders, LocationReader locations, PanelParameters panel) {
+        // Pierwsza lokalizacja czytana od razu - puste lub błędne wejście kończy się zwykłą odpowiedzią 400
+        locations.hasNext();
+        boolean events = requestHeaders.getAccept().stream()
+                .anyMatch(type -> !type.isWildcardType() && type.isCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(null); // rekordy rozdziela tylko znak nowej linii
+            int[] count = {0};
+            try {
+                weatherService.forEachForecast(locations, panel, forecast -> {
+                    try {
+                        writeRecord(generator, events, "forecast", count[0]++, forecast);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (InvalidInputException e) {
+                // Wcześniejsze lokalizacje już wysłane ze statusem 200 - błąd wejścia jako ostatni rekord
+                writeRecord(generator, events, "error", count[0], Map.of("error", e.getMessage()));
+                generator.close();
+                return;
+            }
+            if (events) {
+                writeRecord(generator, true, "end", count[0], Map.of("count", count[0]));
+            }
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(events ? MediaType.TEXT_EVENT_STREAM : MediaType.APPLICATION_NDJSON)
+                .cacheControl(CacheControl.noCache())
+                .body(body);
+    }
+
+    // Rekord NDJSON (wiersz JSON) albo zdarzenie SSE; flush po każdym rekordzie, żeby klient dostał go od razu
+    private void writeRecord(JsonGenerator generator, boolean event, String name, int id, Object value) throws IOException {
+        if (event) {
+            generator.writeRaw("event: " + name + "\nid: " + id + "\ndata: ");
+        }
+        objectMapper.writeValue(generator, value);
+        generator.writeRaw(event ? "\n\n" : "\n");
+        generator.flush();
+    }
+
+    // Czy do odpowiedzi trafił już jakikolwiek bajt (JsonGenerator buforuje zapis)
+    private static final class WrittenOutputStream extends FilterOutputStream {
+        private boolean written;
+
+        WrittenOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            written = true;
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            written = true;
+            out.write(b, off, len);
+        }
+    }
+
+    // Inne parametry paneli to inna treść - osobny wpis w cache bajtów i osobny ETag
+    private static String view(String view, PanelParameters panel) {
+        if (panel.equals(PanelParameters.DEFAULT)) {
+            return view;
+        }
+        return view + ":" + panel.peakPower() + "," + panel.tilt() + "," + panel.azimuth() + "," + panel.systemEfficiency();
+    }
+
+    // Zapytanie warunkowe rozstrzygane na danych z cache, bez wywołania serwisu i Open-Meteo.
+    // Zwraca świeże dane z cache, gdy klient ma ich aktualną wersję.
+    private WeatherSnapshot notModifiedCache(String view, ForecastKey cell, HttpHeaders requestHeaders) {
+        WeatherSnapshot cached = weatherService.peekCachedWeatherData(cell);
+        if (cached == null || !cacheHeaders.isFresh(cached)) {
+            return null;
+        }
+        return cacheHeaders.notModified(requestHeaders, cacheHeaders.etag(view, cell, cached), cached.fetchedAt()) ? cached : null;
+    }
+
+    // ETag i Last-Modified z pobrania z Open-Meteo. Na ich podstawie Spring odpowie też 304, gdy dane
+    // przeszły przez serwis (np. po soft TTL), a klient ma już tę wersję.
+    // Age - wiek danych z cache; po soft TTL (odświeżanie w tle lub Open-Meteo niedostępne) przekracza max-age
+    // z Cache-Control, co klient i CDN rozpoznają bez osobnego nagłówka
+    private <B extends ResponseEntity.HeadersBuilder<B>> B validated(B builder, ForecastKey cell, WeatherSnapshot data, String view) {
+        if (data.fetchedAt() != null) {
+            long age = Math.max(0, Duration.between(data.fetchedAt(), Instant.now()).toSeconds());
+            builder.eTag(cacheHeaders.etag(view, cell, data))
+                    .lastModified(data.fetchedAt())
+                    .cacheControl(cacheHeaders.cacheControl())
+                    .header(HttpHeaders.AGE, Long.toString(age));
+        }
+        return builder.varyBy(HttpHeaders.ACCEPT_ENCODING);
+    }
+
+    // Gotowe bajty JSON, skompresowane z góry, jeśli klient akceptuje gzip
+    private static ResponseEntity<byte[]> body(ResponseEntity.BodyBuilder builder, RenderedResponseCache.Rendered rendered,
+                                               HttpHeaders requestHeaders) {
+        builder.contentType(MediaType.APPLICATION_JSON);
+        if (RenderedResponseCache.acceptsGzip(requestHeaders)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(rendered.gzip());
+        }
+        return builder.body(rendered.json());
+    }
+}
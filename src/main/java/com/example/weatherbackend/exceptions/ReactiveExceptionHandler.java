@@ -0,0 +1,87 @@
+package com.example.weatherbackend.exceptions;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.server.MissingRequestValueException;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Ten sam kontrakt błędów co GlobalExceptionHandler, dla WebFlux (profil reactive)
+@ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @ExceptionHandler(InvalidInputException.class)
+    public ResponseEntity<Object> handleInvalidInputException(InvalidInputException ex, ServerHttpRequest request) {
+        countError(ex);
+        return new ResponseEntity<>(body(HttpStatus.BAD_REQUEST, "Bad Request", ex.getMessage(), request), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(WeatherDataNotFoundException.class)
+    public ResponseEntity<Object> handleWeatherDataNotFoundException(WeatherDataNotFoundException ex, ServerHttpRequest request) {
+        countError(ex);
+        return new ResponseEntity<>(body(HttpStatus.NOT_FOUND, "Not Found", ex.getMessage(), request), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(UpstreamUnavailableException.class)
+    public ResponseEntity<Object> handleUpstreamUnavailableException(UpstreamUnavailableException ex, ServerHttpRequest request) {
+        countError(ex);
+        // Retry-After w pełnych sekundach, co najmniej 1
+        long retryAfter = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfter))
+                .body(body(HttpStatus.SERVICE_UNAVAILABLE, "Service Unavailable", ex.getMessage(), request));
+    }
+
+    @ExceptionHandler(MissingRequestValueException.class)
+    public ResponseEntity<Object> handleMissingRequestValueException(MissingRequestValueException ex, ServerHttpRequest request) {
+        countError(ex);
+        return new ResponseEntity<>(body(HttpStatus.BAD_REQUEST, "Bad Request",
+                "Brak wymaganego parametru: '" + ex.getName() + "'.", request), HttpStatus.BAD_REQUEST);
+    }
+
+    // Nieobsługiwana ścieżka (np. /range w tym profilu) lub metoda - status z wyjątku zamiast 500
+    @ExceptionHandler(ResponseStatusException.class)
+    public ResponseEntity<Object> handleResponseStatusException(ResponseStatusException ex, ServerHttpRequest request) {
+        countError(ex);
+        HttpStatus status = HttpStatus.valueOf(ex.getStatusCode().value());
+        return new ResponseEntity<>(body(status, status.getReasonPhrase(), ex.getReason(), request), status);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<Object> handleAllUncaughtException(Exception ex, ServerHttpRequest request) {
+        countError(ex);
+        Map<String, Object> body = body(HttpStatus.INTERNAL_SERVER_ERROR, "Internal Server Error",
+                "Wystąpił nieoczekiwany błąd serwera. Spróbuj ponownie później.", request);
+        body.put("details", ex.getMessage());
+        body.put("path", body.remove("path")); // "path" na końcu, jak w GlobalExceptionHandler
+        return new ResponseEntity<>(body, HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private static Map<String, Object> body(HttpStatus status, String error, String message, ServerHttpRequest request) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", LocalDateTime.now());
+        body.put("status", status.value());
+        body.put("error", error);
+        body.put("message", message);
+        body.put("path", request.getPath().value());
+        return body;
+    }
+
+    private void countError(Exception ex) {
+        meterRegistry.counter("weather.api.errors", "exception", ex.getClass().getSimpleName()).increment();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.weatherbackend.exceptions;
+
+import java.time.Duration;
+
+// Zapytanie odrzucone lokalnie (limit tempa, współbieżności, bulkhead, otwarty obwód) - nie dotarło do Open-Meteo.
+// Bez stack trace: odrzucenie ma kosztować mikrosekundy, a miejsce rzucenia i tak jest znane.
+public class RequestThrottledException extends UpstreamUnavailableException {
+    public RequestThrottledException(String message, Duration retryAfter) {
+        super(message, retryAfter, false);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.weatherbackend.exceptions;
+
+import java.time.Duration;
+
+// Open-Meteo chwilowo niedostępne lub chronione przed przeciążeniem - odpowiedź 503 z Retry-After
+public class UpstreamUnavailableException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public UpstreamUnavailableException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    protected UpstreamUnavailableException(String message, Duration retryAfter, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
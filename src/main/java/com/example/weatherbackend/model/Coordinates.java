@@ -0,0 +1,18 @@
+package com.example.weatherbackend.model;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+
+// Lokalizacja z ciała zapytania: brak, null lub literówka w nazwie pola to błąd, a nie cicha wartość 0.0
+public record Coordinates(
+        @JsonProperty(required = true) @JsonSetter(nulls = Nulls.FAIL) double latitude,
+        @JsonProperty(required = true) @JsonSetter(nulls = Nulls.FAIL) double longitude
+) {
+    // Globalny ObjectMapper Springa ignoruje nieznane pola - tutaj są odrzucane
+    @JsonAnySetter
+    private void unknownProperty(String name, Object value) {
+        throw new IllegalArgumentException("Nieznane pole lokalizacji: '" + name + "'.");
+    }
+}
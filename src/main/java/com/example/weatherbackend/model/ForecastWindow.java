@@ -0,0 +1,28 @@
+package com.example.weatherbackend.model;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Okno czasowe zapytania do Open-Meteo: forecastDays dni od dziś albo zakres dat [startDate, endDate]
+public record ForecastWindow(
+        int forecastDays, // 0 dla zakresu dat
+        LocalDate startDate,
+        LocalDate endDate
+) {
+    public static ForecastWindow days(int forecastDays) {
+        return new ForecastWindow(forecastDays, null, null);
+    }
+
+    public static ForecastWindow range(LocalDate startDate, LocalDate endDate) {
+        return new ForecastWindow(0, startDate, endDate);
+    }
+
+    public boolean isRange() {
+        return startDate != null;
+    }
+
+    // Liczba dni w oknie, dla zakresu włącznie z obiema datami
+    public int length() {
+        return isRange() ? (int) ChronoUnit.DAYS.between(startDate, endDate) + 1 : forecastDays;
+    }
+}
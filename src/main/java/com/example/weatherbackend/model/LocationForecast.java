@@ -0,0 +1,14 @@
+package com.example.weatherbackend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record LocationForecast(
+        double latitude,
+        double longitude,
+        List<DailyForecast> days,
+        String error
+) {
+}
@@ -0,0 +1,19 @@
+package com.example.weatherbackend.model;
+
+// Parametry instalacji PV do obliczeń uzysku godzinowego
+public record PanelParameters(
+        double peakPower, // kWp
+        double tilt, // stopnie od poziomu
+        double azimuth, // stopnie od północy zgodnie z ruchem wskazówek zegara; NaN - w stronę równika
+        double systemEfficiency, // straty falownika, okablowania, zabrudzenia itd.
+        double temperatureCoefficient // względna zmiana mocy na °C powyżej 25°C
+) {
+    public static final PanelParameters DEFAULT = new PanelParameters(2.5, 35.0, Double.NaN, 0.85, -0.004);
+
+    public double azimuthFor(double latitude) {
+        if (!Double.isNaN(azimuth)) {
+            return azimuth;
+        }
+        return latitude >= 0 ? 180.0 : 0.0;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.weatherbackend.model;
+
+import java.time.LocalDate;
+
+public record RangeSummary(
+        LocalDate startDate,
+        LocalDate endDate,
+        int days,
+        double averageSurfacePressure,
+        double averageSunshineDuration,
+        double minTemperature,
+        double maxTemperature,
+        int rainyDays,
+        double totalEstimatedEnergy
+) {
+}
@@ -1,19 +1,43 @@
 package com.example.weatherbackend.model;
 
-import java.util.List;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Objects;
 
 public record WeatherResponse(
         Daily daily,
         Hourly hourly
 ) {
+    // Kolumny jako tablice prymitywów - bez boxingu przy dekodowaniu i obliczeniach
     public record Daily(
-            List<String> time,
-            List<Integer> weather_code,
-            List<Double> temperature_2m_min,
-            List<Double> temperature_2m_max,
-            List<Double> sunshine_duration,
-            List<Double> rain_sum
+            String[] time,
+            int[] weather_code,
+            double[] temperature_2m_min,
+            double[] temperature_2m_max,
+            double[] sunshine_duration,
+            double[] rain_sum
     ) {
+        // Rekord z tablicami domyślnie porównuje referencje - porównujemy zawartość kolumn
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Daily other
+                    && Arrays.equals(time, other.time)
+                    && Arrays.equals(weather_code, other.weather_code)
+                    && Arrays.equals(temperature_2m_min, other.temperature_2m_min)
+                    && Arrays.equals(temperature_2m_max, other.temperature_2m_max)
+                    && Arrays.equals(sunshine_duration, other.sunshine_duration)
+                    && Arrays.equals(rain_sum, other.rain_sum);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Arrays.hashCode(time);
+            result = 31 * result + Arrays.hashCode(weather_code);
+            result = 31 * result + Arrays.hashCode(temperature_2m_min);
+            result = 31 * result + Arrays.hashCode(temperature_2m_max);
+            result = 31 * result + Arrays.hashCode(sunshine_duration);
+            return 31 * result + Arrays.hashCode(rain_sum);
+        }
     }
 
     public record DailyUnits(
@@ -28,9 +52,40 @@ public record WeatherResponse(
         }
     }
 
+    // Promieniowanie [W/m²] to średnia z godziny poprzedzającej znacznik czasu, zgodnie z Open-Meteo
     public record Hourly(
-            List<Double> surface_pressure
+            double[] surface_pressure,
+            double[] shortwave_radiation,
+            double[] diffuse_radiation,
+            double[] temperature_2m,
+            Instant start // pierwsza godzina w UTC, null gdy nieznana
     ) {
+        public Hourly(double[] surface_pressure) {
+            this(surface_pressure, null, null, null, null);
+        }
+
+        public Hourly withStart(Instant start) {
+            return new Hourly(surface_pressure, shortwave_radiation, diffuse_radiation, temperature_2m, start);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Hourly other
+                    && Arrays.equals(surface_pressure, other.surface_pressure)
+                    && Arrays.equals(shortwave_radiation, other.shortwave_radiation)
+                    && Arrays.equals(diffuse_radiation, other.diffuse_radiation)
+                    && Arrays.equals(temperature_2m, other.temperature_2m)
+                    && Objects.equals(start, other.start);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = Arrays.hashCode(surface_pressure);
+            result = 31 * result + Arrays.hashCode(shortwave_radiation);
+            result = 31 * result + Arrays.hashCode(diffuse_radiation);
+            result = 31 * result + Arrays.hashCode(temperature_2m);
+            return 31 * result + Objects.hashCode(start);
+        }
     }
 
     public record WeeklySummaryUnits(
@@ -0,0 +1,18 @@
+package com.example.weatherbackend.model;
+
+import java.time.Instant;
+
+// Odpowiedź Open-Meteo razem z momentem jej pobrania - wersja danych komórki dla cache, ETag i nagłówka Age.
+// WeatherResponse pozostaje samą treścią z API.
+public record WeatherSnapshot(
+        WeatherResponse response,
+        Instant fetchedAt // moment pobrania z Open-Meteo, null dopóki odpowiedź nie przeszła przez warstwę cache
+) {
+    public WeatherSnapshot(WeatherResponse response) {
+        this(response, null);
+    }
+
+    public WeatherSnapshot withFetchedAt(Instant fetchedAt) {
+        return new WeatherSnapshot(response, fetchedAt);
+    }
+}
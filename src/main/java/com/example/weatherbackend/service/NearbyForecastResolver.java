@@ -0,0 +1,260 @@
+package com.example.weatherbackend.service;
+
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+// Komórka siatki bez własnego wpisu w cache dostaje dane z sąsiednich komórek w promieniu radius-meters:
+// interpolowane dwuliniowo z czterech komórek otaczających jej środek albo - gdy takich nie ma - z najbliższej.
+// Wynik zależy tylko od komórki, więc bliskie współrzędne (np. drgający GPS) dostają tę samą odpowiedź bez Open-Meteo.
+@Component
+public class NearbyForecastResolver {
+
+    private record LatticePoint(long row, long column) {
+    }
+
+    private final ForecastCache forecastCache;
+    private final double radiusMeters;
+    private final Duration softTtl;
+    private final Counter interpolated;
+    private final Counter nearest;
+    private final Clock clock;
+
+    @Autowired
+    public NearbyForecastResolver(ForecastCache forecastCache,
+                                  @Value("${open-meteo.nearby.radius-meters}") double radiusMeters,
+                                  @Value("${open-meteo.cache.soft-ttl}") Duration softTtl,
+                                  MeterRegistry meterRegistry) {
+        this(forecastCache, radiusMeters, softTtl, meterRegistry, Clock.systemUTC());
+    }
+
+    // clock wyznacza świeżość sąsiednich komórek - ten sam co w warstwach ustawiających fetchedAt
+    public NearbyForecastResolver(ForecastCache forecastCache, double radiusMeters, Duration softTtl,
+                                  MeterRegistry meterRegistry, Clock clock) {
+        this.forecastCache = forecastCache;
+        this.radiusMeters = radiusMeters;
+        this.softTtl = softTtl;
+        this.clock = clock;
+        this.interpolated = resolved(meterRegistry, "interpolated");
+        this.nearest = resolved(meterRegistry, "nearest");
+    }
+
+    // null, gdy komórka ma własny wpis (obsłuży go zwykła ścieżka z cache) albo w pobliżu nie ma świeżych danych
+    public WeatherSnapshot resolve(double latitude, double longitude, String dailyParameters, String hourlyParameters, String timezone) {
+        if (radiusMeters <= 0) {
+            return null;
+        }
+        ForecastKey cell = forecastCache.keyFor(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+        if (forecastCache.peek(cell) != null) {
+            return null;
+        }
+        Instant now = clock.instant();
+        // Indeks komórek może chwilowo rozjechać się z cache (zob. ForecastCache.put) - brakujący klucz to tylko
+        // jedna komórka mniej do interpolacji, a klucz bez wpisu cellsWithin pomija
+        Map<ForecastKey, WeatherSnapshot> cells = forecastCache.cellsWithin(cell.latitude(), cell.longitude(), radiusMeters);
+        // Tylko te same parametry zapytania i dane przed soft TTL - nieaktualnych nie odświeżamy z cudzej komórki
+        cells.entrySet().removeIf(entry -> !sameParameters(entry.getKey(), cell)
+                || entry.getValue().fetchedAt() == null
+                || !entry.getValue().fetchedAt().plus(softTtl).isAfter(now));
+        if (cells.isEmpty()) {
+            return null;
+        }
+
+        WeatherSnapshot response = interpolate(cell, cells);
+        if (response != null) {
+            interpolated.increment();
+            return response;
+        }
+        nearest.increment();
+        return nearest(cell, cells);
+    }
+
+    // Najmniejszy prostokąt z komórek w cache, którego wnętrze zawiera środek komórki
+    private WeatherSnapshot interpolate(ForecastKey cell, Map<ForecastKey, WeatherSnapshot> cells) {
+        double gridSize = forecastCache.gridSize();
+        long row = Math.round(cell.latitude() / gridSize);
+        long column = Math.round(cell.longitude() / gridSize);
+        Map<LatticePoint, WeatherSnapshot> lattice = new HashMap<>();
+        TreeSet<Long> rows = new TreeSet<>();
+        TreeSet<Long> columns = new TreeSet<>();
+        for (Map.Entry<ForecastKey, WeatherSnapshot> entry : cells.entrySet()) {
+            LatticePoint point = new LatticePoint(Math.round(entry.getKey().latitude() / gridSize),
+                    Math.round(entry.getKey().longitude() / gridSize));
+            lattice.put(point, entry.getValue());
+            rows.add(point.row());
+            columns.add(point.column());
+        }
+
+        long bestSpan = Long.MAX_VALUE;
+        long[] best = null;
+        for (long south : rows.headSet(row, false)) {
+            for (long north : rows.tailSet(row, false)) {
+                for (long west : columns.headSet(column, false)) {
+                    for (long east : columns.tailSet(column, false)) {
+                        long span = (north - south) + (east - west);
+                        if (span < bestSpan
+                                && lattice.containsKey(new LatticePoint(south, west)) && lattice.containsKey(new LatticePoint(south, east))
+                                && lattice.containsKey(new LatticePoint(north, west)) && lattice.containsKey(new LatticePoint(north, east))) {
+                            bestSpan = span;
+                            best = new long[]{south, north, west, east};
+                        }
+                    }
+                }
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        double t = (row - best[0]) / (double) (best[1] - best[0]);
+        double u = (column - best[2]) / (double) (best[3] - best[2]);
+        WeatherSnapshot[] snapshots = {lattice.get(new LatticePoint(best[0], best[2])), lattice.get(new LatticePoint(best[0], best[3])),
+                lattice.get(new LatticePoint(best[1], best[2])), lattice.get(new LatticePoint(best[1], best[3]))};
+        return bilinear(snapshots, t, u);
+    }
+
+    // Narożniki: sw, se, nw, ne; t - udział północy, u - udział wschodu. null, gdy odpowiedzi nie są zgodne co do dni i długości tablic.
+    private static WeatherSnapshot bilinear(WeatherSnapshot[] snapshots, double t, double u) {
+        WeatherResponse[] corners = new WeatherResponse[snapshots.length];
+        for (int i = 0; i < snapshots.length; i++) {
+            corners[i] = snapshots[i].response();
+        }
+        WeatherResponse sw = corners[0];
+        double[] weights = {(1 - t) * (1 - u), (1 - t) * u, t * (1 - u), t * u};
+        int strongest = 0;
+        // Interpolowana odpowiedź dostaje fetchedAt najstarszego narożnika: Age, ETag i wygaśnięcie liczone są
+        // od najstarszych użytych danych, więc wynik nie wygląda na świeższy niż jego składniki
+        Instant oldest = snapshots[0].fetchedAt();
+        for (int i = 0; i < corners.length; i++) {
+            WeatherResponse corner = corners[i];
+            if (corner.daily() == null || corner.hourly() == null || corner.daily().time() == null
+                    || corner.daily().weather_code() == null
+                    || !Arrays.equals(corner.daily().time(), sw.daily().time())) {
+                return null;
+            }
+            if (weights[i] > weights[strongest]) {
+                strongest = i;
+            }
+            if (snapshots[i].fetchedAt().isBefore(oldest)) {
+                oldest = snapshots[i].fetchedAt();
+            }
+        }
+
+        int days = sw.daily().time().length;
+        double[] minTemperature = new double[days];
+        double[] maxTemperature = new double[days];
+        double[] sunshine = new double[days];
+        double[] rain = new double[days];
+        double[] pressure = new double[sw.hourly().surface_pressure() == null ? 0 : sw.hourly().surface_pressure().length];
+        for (int i = 0; i < corners.length; i++) {
+            WeatherResponse.Daily daily = corners[i].daily();
+            if (!accumulate(minTemperature, daily.temperature_2m_min(), weights[i])
+                    || !accumulate(maxTemperature, daily.temperature_2m_max(), weights[i])
+                    || !accumulate(sunshine, daily.sunshine_duration(), weights[i])
+                    || !accumulate(rain, daily.rain_sum(), weights[i])
+                    || !accumulate(pressure, corners[i].hourly().surface_pressure(), weights[i])) {
+                return null;
+            }
+        }
+        // Dokładność jak w odpowiedziach Open-Meteo
+        round(minTemperature, 1);
+        round(maxTemperature, 1);
+        round(sunshine, 2);
+        round(rain, 2);
+        round(pressure, 1);
+
+        // Kolumny do uzysku godzinowego tylko wtedy, gdy wszystkie narożniki mają je na tej samej osi czasu
+        double[] shortwave = null;
+        double[] diffuse = null;
+        double[] temperature = null;
+        Instant start = sw.hourly().start();
+        if (start != null && Arrays.stream(corners).allMatch(corner -> start.equals(corner.hourly().start()))) {
+            shortwave = interpolate(corners, weights, WeatherResponse.Hourly::shortwave_radiation, 1);
+            diffuse = interpolate(corners, weights, WeatherResponse.Hourly::diffuse_radiation, 1);
+            temperature = interpolate(corners, weights, WeatherResponse.Hourly::temperature_2m, 1);
+        }
+
+        return new WeatherSnapshot(new WeatherResponse(
+                new WeatherResponse.Daily(sw.daily().time(), corners[strongest].daily().weather_code(),
+                        minTemperature, maxTemperature, sunshine, rain),
+                new WeatherResponse.Hourly(pressure, shortwave, diffuse, temperature,
+                        shortwave != null && diffuse != null && temperature != null ? start : null)),
+                oldest);
+    }
+
+    // null, gdy któryś narożnik nie ma kolumny albo ma ją innej długości
+    private static double[] interpolate(WeatherResponse[] corners, double[] weights,
+                                        Function<WeatherResponse.Hourly, double[]> column, int places) {
+        double[] first = column.apply(corners[0].hourly());
+        if (first == null) {
+            return null;
+        }
+        double[] values = new double[first.length];
+        for (int i = 0; i < corners.length; i++) {
+            if (!accumulate(values, column.apply(corners[i].hourly()), weights[i])) {
+                return null;
+            }
+        }
+        round(values, places);
+        return values;
+    }
+
+    private static boolean accumulate(double[] target, double[] values, double weight) {
+        if (values == null || values.length != target.length) {
+            return false;
+        }
+        for (int i = 0; i < target.length; i++) {
+            target[i] += weight * values[i];
+        }
+        return true;
+    }
+
+    private static void round(double[] values, int places) {
+        for (int i = 0; i < values.length; i++) {
+            values[i] = WeatherService.round(values[i], places);
+        }
+    }
+
+    private static WeatherSnapshot nearest(ForecastKey cell, Map<ForecastKey, WeatherSnapshot> cells) {
+        double cos = Math.cos(Math.toRadians(cell.latitude()));
+        WeatherSnapshot nearest = null;
+        double nearestDistance = Double.MAX_VALUE;
+        for (Map.Entry<ForecastKey, WeatherSnapshot> entry : cells.entrySet()) {
+            double dLat = entry.getKey().latitude() - cell.latitude();
+            double dLon = (entry.getKey().longitude() - cell.longitude()) * cos;
+            double distance = dLat * dLat + dLon * dLon;
+            if (distance < nearestDistance) {
+                nearestDistance = distance;
+                nearest = entry.getValue();
+            }
+        }
+        return nearest;
+    }
+
+    private static boolean sameParameters(ForecastKey key, ForecastKey cell) {
+        return key.dailyParameters().equals(cell.dailyParameters())
+                && key.hourlyParameters().equals(cell.hourlyParameters())
+                && key.timezone().equals(cell.timezone());
+    }
+
+    private static Counter resolved(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("forecast.nearby.resolved")
+                .description("Zapytania obsłużone danymi sąsiednich komórek siatki")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
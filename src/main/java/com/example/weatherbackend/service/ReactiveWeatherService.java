@@ -0,0 +1,115 @@
+package com.example.weatherbackend.service;
+
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.client.ForecastStore;
+import com.example.weatherbackend.client.ReactiveOpenMeteoApiClient;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Reaktywny odpowiednik łańcucha klientów WeatherService - ten sam cache komórek siatki, łączenie równoległych zapytań
+// i zapis do ForecastStore, ale bez blokowania wątku. Zamiast odświeżania w tle wpis po soft TTL jest pobierany
+// w ramach zapytania, a stary służy tylko jako odpowiedź zapasowa przy błędzie Open-Meteo.
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveWeatherService {
+
+    @Value("${open-meteo.api.daily-parameters}")
+    private String dailyParameters;
+
+    @Value("${open-meteo.api.hourly-parameters}")
+    private String hourlyParameters;
+
+    @Value("${open-meteo.api.timezone}")
+    private String timezone;
+
+    @Value("${open-meteo.cache.soft-ttl}")
+    private Duration softTtl;
+
+    @Autowired
+    private ReactiveOpenMeteoApiClient reactiveOpenMeteoApiClient;
+
+    @Autowired
+    private ForecastCache forecastCache;
+
+    @Autowired(required = false)
+    private ForecastStore forecastStore; // open-meteo.store.enabled
+
+    @Autowired
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private NearbyForecastResolver nearbyForecastResolver;
+
+    // Równoległe zapytania o tę samą komórkę subskrybują jedno wywołanie HTTP
+    private final ConcurrentMap<ForecastKey, Mono<WeatherSnapshot>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<WeatherSnapshot> getWeatherData(double latitude, double longitude) {
+        ForecastKey key = forecastCache.keyFor(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+        WeatherSnapshot cached = forecastCache.get(key);
+        if (cached != null && isFresh(cached)) {
+            return Mono.just(cached);
+        }
+        WeatherSnapshot nearby = nearbyForecastResolver.resolve(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+        if (nearby != null) {
+            return Mono.just(nearby);
+        }
+        Mono<WeatherSnapshot> fetched = inFlight.computeIfAbsent(key, this::fetch);
+        if (cached == null) {
+            return fetched;
+        }
+        // Wpis po soft TTL jest pobierany od nowa; gdy Open-Meteo nie odpowiada, zostaje stary - do twardego TTL
+        return fetched.onErrorResume(e -> Mono.just(cached));
+    }
+
+    private boolean isFresh(WeatherSnapshot snapshot) {
+        return snapshot.fetchedAt() == null || !snapshot.fetchedAt().plus(softTtl).isBefore(Instant.now());
+    }
+
+    private Mono<WeatherSnapshot> fetch(ForecastKey key) {
+        return reactiveOpenMeteoApiClient.getWeatherData(key.latitude(), key.longitude(),
+                        key.dailyParameters(), key.hourlyParameters(), key.timezone())
+                .map(response -> new WeatherSnapshot(response, Instant.now()))
+                .doOnNext(data -> {
+                    forecastCache.put(key, data);
+                    store(key, data);
+                })
+                .doFinally(signal -> inFlight.remove(key))
+                .cache();
+    }
+
+    // Jak StoringWeatherApiClient: zapis tylko trafia do kolejki ForecastStore, na dysk idzie w tle
+    private void store(ForecastKey key, WeatherSnapshot data) {
+        if (forecastStore == null) {
+            return;
+        }
+        try {
+            forecastStore.append(key, data);
+        } catch (UncheckedIOException e) {
+            // Błąd dysku nie może zepsuć odpowiedzi - tracimy tylko ciepły start
+            return;
+        }
+        if (forecastStore.needsCompaction()) {
+            applicationTaskExecutor.execute(this::compact);
+        }
+    }
+
+    private void compact() {
+        try {
+            forecastStore.compact();
+        } catch (UncheckedIOException e) {
+            // Spróbujemy przy kolejnym zapisie
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.weatherbackend.service;
+
+// Wersja odniesienia i zapasowa, gdy moduł jdk.incubator.vector nie jest dostępny
+final class ScalarSolarYieldKernel implements SolarYieldKernel {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public void hourlyEnergy(SolarYieldEngine.TimeAxis axis, SolarYieldEngine.Geometry site,
+                             double[] shortwave, double[] diffuse, double[] temperature, double[] energy) {
+        for (int i = 0; i < axis.hours(); i++) {
+            double hourAngle = axis.hourAngle()[i] + site.longitude();
+            double sinDeclination = axis.sinDeclination()[i];
+            double cosDeclination = axis.cosDeclination()[i];
+            double cosDeclinationHour = cosDeclination * Math.cos(hourAngle);
+            // Kierunek na Słońce w układzie wschód-północ-zenit
+            double up = sinDeclination * site.sinLatitude() + cosDeclinationHour * site.cosLatitude();
+            double east = -(cosDeclination * Math.sin(hourAngle));
+            double north = sinDeclination * site.cosLatitude() - cosDeclinationHour * site.sinLatitude();
+            double cosIncidence = east * site.normalEast() + north * site.normalNorth() + up * site.normalUp();
+
+            double beamHorizontal = Math.max(shortwave[i] - diffuse[i], 0.0);
+            double directNormal = up > SolarYieldEngine.MIN_SUN_ELEVATION_SIN ? beamHorizontal / up : 0.0;
+            double planeOfArray = Math.max(directNormal * cosIncidence, 0.0)
+                    + diffuse[i] * site.skyView() + shortwave[i] * site.groundView();
+            double cellTemperature = temperature[i] + planeOfArray * SolarYieldEngine.CELL_HEATING;
+            double derating = 1.0 + site.temperatureCoefficient() * (cellTemperature - SolarYieldEngine.STC_TEMPERATURE);
+            energy[i] = Math.max(planeOfArray * site.scale() * derating, 0.0);
+        }
+    }
+}
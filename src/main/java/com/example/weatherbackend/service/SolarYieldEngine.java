@@ -0,0 +1,192 @@
+package com.example.weatherbackend.service;
+
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Uzysk energii instalacji PV z godzinowego promieniowania i temperatury: położenie Słońca (NOAA), promieniowanie
+// na płaszczyznę modułów (bezpośrednie + izotropowe rozproszone + odbite od gruntu), temperatura ogniw z modelu NOCT
+// i spadek mocy z temperaturą. Część zależna tylko od czasu jest wspólna dla wszystkich instalacji w tej samej
+// strefie czasowej, a pętla godzinowa działa na tablicach prymitywów (Vector API albo wersja skalarna).
+@Component
+public class SolarYieldEngine {
+
+    static final int HOURS_PER_DAY = 24;
+    static final double MIN_SUN_ELEVATION_SIN = Math.sin(Math.toRadians(5.0)); // niżej - tylko promieniowanie rozproszone
+    static final double CELL_HEATING = (45.0 - 20.0) / 800.0; // NOCT 45°C: ogrzanie ogniw w °C na W/m²
+    static final double STC_TEMPERATURE = 25.0;
+    private static final double ALBEDO = 0.2;
+    private static final int SITES_PER_TASK = 16;
+
+    // Instalacja: współrzędne, parametry paneli i dane godzinowe jej komórki siatki
+    public record Site(double latitude, double longitude, PanelParameters panel, WeatherResponse.Hourly hourly) {
+    }
+
+    // Kąt godzinny bez długości geograficznej [rad] i deklinacja Słońca dla kolejnych godzin
+    record TimeAxis(int hours, double[] hourAngle, double[] sinDeclination, double[] cosDeclination) {
+    }
+
+    // Stałe instalacji: szerokość, długość [rad], normalna do modułów (wschód, północ, zenit), udział nieba i gruntu,
+    // skala kWh na W/m² w godzinie (kWp / 1000 * sprawność systemu) i współczynnik temperaturowy
+    record Geometry(double sinLatitude, double cosLatitude, double longitude,
+                    double normalEast, double normalNorth, double normalUp,
+                    double skyView, double groundView, double scale, double temperatureCoefficient) {
+    }
+
+    private record AxisKey(long start, int hours) {
+    }
+
+    private final SolarYieldKernel kernel;
+    private final Cache<AxisKey, TimeAxis> timeAxes = Caffeine.newBuilder().maximumSize(256).build();
+
+    public SolarYieldEngine(@Value("${app.solar.vectorized}") boolean vectorized) {
+        this.kernel = vectorized ? vectorKernel() : new ScalarSolarYieldKernel();
+    }
+
+    // "scalar" albo "vector-Nx" (N - liczba godzin liczonych naraz)
+    public String kernel() {
+        return kernel.name();
+    }
+
+    // Czy odpowiedź ma promieniowanie i temperaturę po 24 godziny na każdy dzień prognozy
+    public static boolean supports(WeatherResponse response) {
+        WeatherResponse.Hourly hourly = response.hourly();
+        if (response.daily() == null || response.daily().time() == null || !hasIrradiance(hourly)) {
+            return false;
+        }
+        int days = response.daily().time().length;
+        return days > 0 && hourly.shortwave_radiation().length == days * HOURS_PER_DAY;
+    }
+
+    // Energia [kWh] w kolejnych dniach (pełnych dobach od pierwszej godziny)
+    public double[] dailyEnergy(Site site) {
+        WeatherResponse.Hourly hourly = site.hourly();
+        if (!hasIrradiance(hourly)) {
+            throw new IllegalArgumentException("Brak godzinowego promieniowania lub temperatury.");
+        }
+        int hours = hourly.shortwave_radiation().length;
+        double[] energy = new double[hours];
+        PanelParameters panel = site.panel() != null ? site.panel() : PanelParameters.DEFAULT;
+        kernel.hourlyEnergy(timeAxis(hourly.start(), hours), geometry(site.latitude(), site.longitude(), panel),
+                hourly.shortwave_radiation(), hourly.diffuse_radiation(), hourly.temperature_2m(), energy);
+
+        double[] daily = new double[hours / HOURS_PER_DAY];
+        for (int day = 0; day < daily.length; day++) {
+            double sum = 0.0;
+            for (int hour = day * HOURS_PER_DAY, end = hour + HOURS_PER_DAY; hour < end; hour++) {
+                sum += energy[hour];
+            }
+            daily[day] = sum;
+        }
+        return daily;
+    }
+
+    // Wiele instalacji naraz: zakresy po SITES_PER_TASK instalacji liczone równolegle we wspólnej puli fork-join
+    public List<double[]> dailyEnergy(List<Site> sites) {
+        double[][] results = new double[sites.size()][];
+        YieldTask task = new YieldTask(sites, results, 0, sites.size());
+        if (sites.size() <= SITES_PER_TASK) {
+            task.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+        return Arrays.asList(results);
+    }
+
+    private static boolean hasIrradiance(WeatherResponse.Hourly hourly) {
+        if (hourly == null || hourly.start() == null || hourly.shortwave_radiation() == null
+                || hourly.diffuse_radiation() == null || hourly.temperature_2m() == null) {
+            return false;
+        }
+        int hours = hourly.shortwave_radiation().length;
+        return hourly.diffuse_radiation().length == hours && hourly.temperature_2m().length == hours;
+    }
+
+    private TimeAxis timeAxis(Instant start, int hours) {
+        return timeAxes.get(new AxisKey(start.getEpochSecond(), hours), key -> timeAxis(key.start(), key.hours()));
+    }
+
+    static TimeAxis timeAxis(long start, int hours) {
+        double[] hourAngle = new double[hours];
+        double[] sinDeclination = new double[hours];
+        double[] cosDeclination = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            // Promieniowanie jest średnią z godziny poprzedzającej znacznik - Słońce liczymy w jej środku
+            long time = start + i * 3600L - 1800L;
+            LocalDate date = LocalDate.ofEpochDay(Math.floorDiv(time, 86_400L));
+            double hourUtc = Math.floorMod(time, 86_400L) / 3600.0;
+            double gamma = 2 * Math.PI / date.lengthOfYear() * (date.getDayOfYear() - 1 + (hourUtc - 12) / 24);
+            double equationOfTime = 229.18 * (0.000075 + 0.001868 * Math.cos(gamma) - 0.032077 * Math.sin(gamma)
+                    - 0.014615 * Math.cos(2 * gamma) - 0.040849 * Math.sin(2 * gamma));
+            double declination = 0.006918 - 0.399912 * Math.cos(gamma) + 0.070257 * Math.sin(gamma)
+                    - 0.006758 * Math.cos(2 * gamma) + 0.000907 * Math.sin(2 * gamma)
+                    - 0.002697 * Math.cos(3 * gamma) + 0.00148 * Math.sin(3 * gamma);
+            hourAngle[i] = Math.toRadians((hourUtc * 60 + equationOfTime) / 4 - 180);
+            sinDeclination[i] = Math.sin(declination);
+            cosDeclination[i] = Math.cos(declination);
+        }
+        return new TimeAxis(hours, hourAngle, sinDeclination, cosDeclination);
+    }
+
+    static Geometry geometry(double latitude, double longitude, PanelParameters panel) {
+        double latitudeRadians = Math.toRadians(latitude);
+        double tilt = Math.toRadians(panel.tilt());
+        double azimuth = Math.toRadians(panel.azimuthFor(latitude));
+        double cosTilt = Math.cos(tilt);
+        return new Geometry(Math.sin(latitudeRadians), Math.cos(latitudeRadians), Math.toRadians(longitude),
+                Math.sin(tilt) * Math.sin(azimuth), Math.sin(tilt) * Math.cos(azimuth), cosTilt,
+                (1 + cosTilt) / 2, ALBEDO * (1 - cosTilt) / 2,
+                panel.peakPower() / 1000 * panel.systemEfficiency(), panel.temperatureCoefficient());
+    }
+
+    // Vector API jest modułem inkubacyjnym: bez --add-modules jdk.incubator.vector albo na sprzęcie bez SIMD
+    // dla double zostaje wersja skalarna
+    private static SolarYieldKernel vectorKernel() {
+        try {
+            SolarYieldKernel vector = (SolarYieldKernel) Class.forName(SolarYieldEngine.class.getPackageName() + ".VectorSolarYieldKernel")
+                    .getDeclaredConstructor().newInstance();
+            if (!vector.name().equals("vector-1x")) {
+                return vector;
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // moduł niedostępny
+        }
+        return new ScalarSolarYieldKernel();
+    }
+
+    private final class YieldTask extends RecursiveAction {
+        private final List<Site> sites;
+        private final double[][] results;
+        private final int from;
+        private final int to;
+
+        YieldTask(List<Site> sites, double[][] results, int from, int to) {
+            this.sites = sites;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SITES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    results[i] = dailyEnergy(sites.get(i));
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new YieldTask(sites, results, from, middle), new YieldTask(sites, results, middle, to));
+        }
+    }
+}
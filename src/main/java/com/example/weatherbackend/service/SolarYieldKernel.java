@@ -0,0 +1,11 @@
+package com.example.weatherbackend.service;
+
+// Uzysk godzinowy jednej instalacji na wspólnej osi czasu; implementacja skalarna i na Vector API
+interface SolarYieldKernel {
+
+    String name();
+
+    // energy[h] - energia [kWh] w godzinie h, dla godzin [0, axis.hours())
+    void hourlyEnergy(SolarYieldEngine.TimeAxis axis, SolarYieldEngine.Geometry site,
+                      double[] shortwave, double[] diffuse, double[] temperature, double[] energy);
+}
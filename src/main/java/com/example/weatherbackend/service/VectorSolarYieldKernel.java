@@ -0,0 +1,66 @@
+package com.example.weatherbackend.service;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// Te same obliczenia co ScalarSolarYieldKernel, po SPECIES.length() godzin naraz. Ładowana refleksyjnie
+// przez SolarYieldEngine - bez --add-modules jdk.incubator.vector klasa się nie załaduje i zostaje wersja skalarna.
+final class VectorSolarYieldKernel implements SolarYieldKernel {
+
+    static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector-" + SPECIES.length() + "x";
+    }
+
+    @Override
+    public void hourlyEnergy(SolarYieldEngine.TimeAxis axis, SolarYieldEngine.Geometry site,
+                             double[] shortwave, double[] diffuse, double[] temperature, double[] energy) {
+        int hours = axis.hours();
+        int bound = SPECIES.loopBound(hours);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            compute(axis, site, shortwave, diffuse, temperature, i, SPECIES.maskAll(true)).intoArray(energy, i);
+        }
+        if (i < hours) {
+            VectorMask<Double> tail = SPECIES.indexInRange(i, hours);
+            compute(axis, site, shortwave, diffuse, temperature, i, tail).intoArray(energy, i, tail);
+        }
+    }
+
+    private static DoubleVector compute(SolarYieldEngine.TimeAxis axis, SolarYieldEngine.Geometry site,
+                                        double[] shortwave, double[] diffuse, double[] temperature,
+                                        int offset, VectorMask<Double> mask) {
+        DoubleVector hourAngle = DoubleVector.fromArray(SPECIES, axis.hourAngle(), offset, mask).add(site.longitude());
+        DoubleVector cosHourAngle = hourAngle.lanewise(VectorOperators.COS);
+        DoubleVector sinHourAngle = hourAngle.lanewise(VectorOperators.SIN);
+        DoubleVector sinDeclination = DoubleVector.fromArray(SPECIES, axis.sinDeclination(), offset, mask);
+        DoubleVector cosDeclination = DoubleVector.fromArray(SPECIES, axis.cosDeclination(), offset, mask);
+
+        DoubleVector cosDeclinationHour = cosDeclination.mul(cosHourAngle);
+        DoubleVector up = sinDeclination.mul(site.sinLatitude()).add(cosDeclinationHour.mul(site.cosLatitude()));
+        DoubleVector east = cosDeclination.mul(sinHourAngle).neg();
+        DoubleVector north = sinDeclination.mul(site.cosLatitude()).sub(cosDeclinationHour.mul(site.sinLatitude()));
+        DoubleVector cosIncidence = east.mul(site.normalEast())
+                .add(north.mul(site.normalNorth()))
+                .add(up.mul(site.normalUp()));
+
+        DoubleVector global = DoubleVector.fromArray(SPECIES, shortwave, offset, mask);
+        DoubleVector diffuseHorizontal = DoubleVector.fromArray(SPECIES, diffuse, offset, mask);
+        DoubleVector beamHorizontal = global.sub(diffuseHorizontal).max(0.0);
+        VectorMask<Double> sunUp = up.compare(VectorOperators.GT, SolarYieldEngine.MIN_SUN_ELEVATION_SIN);
+        DoubleVector directNormal = DoubleVector.zero(SPECIES).blend(beamHorizontal.div(up), sunUp);
+        DoubleVector planeOfArray = directNormal.mul(cosIncidence).max(0.0)
+                .add(diffuseHorizontal.mul(site.skyView()))
+                .add(global.mul(site.groundView()));
+
+        DoubleVector cellTemperature = DoubleVector.fromArray(SPECIES, temperature, offset, mask)
+                .add(planeOfArray.mul(SolarYieldEngine.CELL_HEATING));
+        DoubleVector derating = cellTemperature.sub(SolarYieldEngine.STC_TEMPERATURE)
+                .mul(site.temperatureCoefficient()).add(1.0);
+        return planeOfArray.mul(site.scale()).mul(derating).max(0.0);
+    }
+}
@@ -1,24 +1,47 @@
 package com.example.weatherbackend.service;
 
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
 import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
 import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
 import com.example.weatherbackend.model.DailyForecast;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.LocationForecast;
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.RangeSummary;
 import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
 import com.example.weatherbackend.model.WeatherSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
 
 
 @Service
 public class WeatherService {
-    private static final double SOLAR_PANEL_POWER = 2.5; // kW
+    // Przybliżenie z dziennego usłonecznienia dla danych bez godzinowego promieniowania (np. starszy plik ForecastStore)
     private static final double PANEL_EFFICIENCY = 0.2; // 20%
+    // Jednostki są stałe - jedna instancja zamiast nowej przy każdym zapytaniu
+    private static final WeatherResponse.DailyUnits DAILY_UNITS = new WeatherResponse.DailyUnits();
+    private static final WeatherResponse.WeeklySummaryUnits WEEKLY_SUMMARY_UNITS = new WeatherResponse.WeeklySummaryUnits();
+    private static final String PROCESSING_ERROR = "Nie udało się przetworzyć danych pogodowych dla lokalizacji.";
 
     @Value("${open-meteo.api.base-url}")
     private String openMeteoBaseUrl;
@@ -32,61 +55,298 @@ public class WeatherService {
     @Value("${open-meteo.api.timezone}")
     private String timezone;
 
+    @Value("${open-meteo.api.batch-size}")
+    private int batchSize;
+
+    @Value("${open-meteo.api.batch-parallelism}")
+    private int batchParallelism;
+
+    @Value("${open-meteo.api.range-chunk-days}")
+    private int rangeChunkDays;
+
+    @Value("${open-meteo.api.range-parallelism}")
+    private int rangeParallelism;
+
+    @Value("${open-meteo.api.archive-delay-days}")
+    private int archiveDelayDays;
+
     @Autowired
     private WeatherApiClient weatherApiClient;
 
-    public List<DailyForecast> get7DayForecast(double latitude, double longitude) {
-        WeatherResponse response = weatherApiClient.getWeatherData(latitude, longitude, dailyParameters, "", timezone); // Pusty string dla hourly, bo nie potrzebujemy
+    @Autowired
+    private AsyncTaskExecutor applicationTaskExecutor;
+
+    @Autowired
+    private ForecastCache forecastCache;
+
+    @Autowired
+    private NearbyForecastResolver nearbyForecastResolver;
+
+    @Autowired
+    private SolarYieldEngine solarYieldEngine;
 
-        return processWeatherData(response);
+    // Jedno zapytanie z parametrami dziennymi i godzinowymi obsługuje zarówno prognozę, jak i podsumowanie.
+    // Komórka bez własnego wpisu w cache najpierw próbuje danych z sąsiednich komórek.
+    public WeatherSnapshot getWeatherData(double latitude, double longitude) {
+        WeatherSnapshot nearby = nearbyForecastResolver.resolve(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+        if (nearby != null) {
+            return nearby;
+        }
+        return weatherApiClient.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone);
     }
 
-    private List<DailyForecast> processWeatherData(WeatherResponse response) {
-        List<DailyForecast> forecasts = new ArrayList<>();
-        WeatherResponse.Daily daily = response.daily();
+    // Komórka siatki, z której pochodzą dane dla lokalizacji - wspólna dla bliskich współrzędnych
+    public ForecastKey cellFor(double latitude, double longitude) {
+        return forecastCache.keyFor(latitude, longitude, dailyParameters, hourlyParameters, timezone);
+    }
+
+    // Dane z cache bez zapytania do API i bez wpływu na statystyki - do obsługi zapytań warunkowych
+    public WeatherSnapshot peekCachedWeatherData(ForecastKey cell) {
+        return forecastCache.peek(cell);
+    }
 
-        for (int i = 0; i < daily.time().size(); i++) {
-            double sunshineHours = daily.sunshine_duration().get(i) / 3600; // sekundy na godziny
+    public WeatherResponse getWeatherData(double latitude, double longitude, ForecastWindow window) {
+        return weatherApiClient.getWeatherData(latitude, longitude, window, dailyParameters, hourlyParameters, timezone);
+    }
 
-            double estimatedEnergy = SOLAR_PANEL_POWER * sunshineHours * PANEL_EFFICIENCY;
-            estimatedEnergy = round(estimatedEnergy, 3);
+    // Dni z okna w kolejności, pobierane paczkami po range-chunk-days dni, najwyżej range-parallelism paczek naraz.
+    // W pamięci są tylko paczki w locie, a podsumowanie jest liczone przyrostowo - niezależnie od długości zakresu.
+    public RangeSummary forEachDay(double latitude, double longitude, ForecastWindow window, Consumer<DailyForecast> sink) {
+        return forEachDay(latitude, longitude, window, PanelParameters.DEFAULT, sink);
+    }
+
+    public RangeSummary forEachDay(double latitude, double longitude, ForecastWindow window, PanelParameters panel,
+                                   Consumer<DailyForecast> sink) {
+        List<ForecastWindow> chunks = split(window);
+        RangeAccumulator accumulator = new RangeAccumulator();
+        Deque<CompletableFuture<WeatherResponse>> inFlight = new ArrayDeque<>();
+        int next = 0;
+        try {
+            while (next < chunks.size() || !inFlight.isEmpty()) {
+                while (next < chunks.size() && inFlight.size() < rangeParallelism) {
+                    ForecastWindow chunk = chunks.get(next++);
+                    inFlight.add(CompletableFuture.supplyAsync(() -> getWeatherData(latitude, longitude, chunk), applicationTaskExecutor));
+                }
+                WeatherResponse response = join(inFlight.poll());
+                List<DailyForecast> days = processWeatherData(response, latitude, longitude, panel);
+                days.forEach(sink);
+                accumulator.add(response, days);
+            }
+        } finally {
+            inFlight.forEach(call -> call.cancel(true));
+        }
+        return accumulator.summary(window);
+    }
+
+    // Paczki nie przekraczają granicy archiwum, żeby każda trafiła w całości do jednego API Open-Meteo
+    private List<ForecastWindow> split(ForecastWindow window) {
+        if (!window.isRange()) {
+            return List.of(window);
+        }
+        LocalDate archiveEnd = LocalDate.now(ZoneOffset.UTC).minusDays(archiveDelayDays);
+        List<ForecastWindow> chunks = new ArrayList<>();
+        LocalDate start = window.startDate();
+        while (!start.isAfter(window.endDate())) {
+            LocalDate end = start.plusDays(rangeChunkDays - 1);
+            if (!start.isAfter(archiveEnd) && end.isAfter(archiveEnd)) {
+                end = archiveEnd;
+            }
+            if (end.isAfter(window.endDate())) {
+                end = window.endDate();
+            }
+            chunks.add(ForecastWindow.range(start, end));
+            start = end.plusDays(1);
+        }
+        return chunks;
+    }
+
+    private static WeatherResponse join(CompletableFuture<WeatherResponse> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Dzieli lokalizacje na paczki po batch-size, pobiera je równolegle i oddaje wyniki w kolejności wejścia
+    public void forEachForecast(List<Coordinates> locations, Consumer<LocationForecast> sink) {
+        forEachForecast(locations.iterator(), PanelParameters.DEFAULT, sink);
+    }
+
+    public void forEachForecast(List<Coordinates> locations, PanelParameters panel, Consumer<LocationForecast> sink) {
+        forEachForecast(locations.iterator(), panel, sink);
+    }
+
+    public void forEachForecast(Iterator<Coordinates> locations, Consumer<LocationForecast> sink) {
+        forEachForecast(locations, PanelParameters.DEFAULT, sink);
+    }
+
+    // Wersja dla strumienia lokalizacji dowolnej długości: kolejne lokalizacje są czytane dopiero, gdy zwolni się
+    // miejsce na paczkę, a w locie jest najwyżej batch-parallelism paczek. Wolny odbiorca wstrzymuje więc
+    // czytanie wejścia i zapytania do Open-Meteo. Błąd wejścia jest zgłaszany po oddaniu wcześniejszych lokalizacji.
+    public void forEachForecast(Iterator<Coordinates> locations, PanelParameters panel, Consumer<LocationForecast> sink) {
+        Deque<CompletableFuture<List<LocationForecast>>> inFlight = new ArrayDeque<>();
+        RuntimeException inputError = null;
+        try {
+            while (true) {
+                while (inputError == null && locations.hasNext() && inFlight.size() < batchParallelism) {
+                    List<Coordinates> chunk = new ArrayList<>(batchSize);
+                    try {
+                        while (chunk.size() < batchSize && locations.hasNext()) {
+                            chunk.add(locations.next());
+                        }
+                    } catch (RuntimeException e) {
+                        inputError = e;
+                    }
+                    if (!chunk.isEmpty()) {
+                        inFlight.add(CompletableFuture.supplyAsync(() -> getForecastChunk(chunk, panel), applicationTaskExecutor));
+                    }
+                }
+                if (inFlight.isEmpty()) {
+                    break;
+                }
+                inFlight.poll().join().forEach(sink);
+            }
+        } finally {
+            inFlight.forEach(chunk -> chunk.cancel(true));
+        }
+        if (inputError != null) {
+            throw inputError;
+        }
+    }
+
+    private List<LocationForecast> getForecastChunk(List<Coordinates> chunk, PanelParameters panel) {
+        List<LocationForecast> forecasts = new ArrayList<>(chunk.size());
+        List<WeatherResponse> responses = new ArrayList<>(chunk.size());
+        try {
+            List<WeatherSnapshot> snapshots = weatherApiClient.getWeatherDataBatch(chunk, dailyParameters, hourlyParameters, timezone);
+            if (snapshots.size() != chunk.size()) {
+                throw new WeatherDataNotFoundException("Liczba odpowiedzi z API Open-Meteo nie zgadza się z liczbą lokalizacji.");
+            }
+            for (WeatherSnapshot snapshot : snapshots) {
+                responses.add(snapshot != null ? snapshot.response() : null);
+            }
+        } catch (RuntimeException e) {
+            // Odpowiedź jest już strumieniowana, więc błąd paczki zapisujemy przy każdej jej lokalizacji
+            for (Coordinates location : chunk) {
+                forecasts.add(new LocationForecast(location.latitude(), location.longitude(), null, errorMessage(e)));
+            }
+            return forecasts;
+        }
+        double[][] energies = chunkEnergy(chunk, responses, panel);
+        for (int i = 0; i < chunk.size(); i++) {
+            Coordinates location = chunk.get(i);
+            WeatherResponse response = responses.get(i);
+            // Błąd jednej lokalizacji (np. niepełne dane) nie może przerwać tablicy JSON wysłanej już ze statusem 200
+            try {
+                List<DailyForecast> days = energies[i] != null
+                        ? forecasts(response.daily(), energies[i])
+                        : processWeatherData(response, location.latitude(), location.longitude(), panel);
+                forecasts.add(new LocationForecast(location.latitude(), location.longitude(), days, null));
+            } catch (RuntimeException e) {
+                forecasts.add(new LocationForecast(location.latitude(), location.longitude(), null, errorMessage(e)));
+            }
+        }
+        return forecasts;
+    }
+
+    // Uzysk wszystkich instalacji z paczki liczony razem (fork-join). null - brak danych godzinowych albo błąd
+    // obliczeń paczki; taka lokalizacja jest liczona osobno, z własną obsługą błędu.
+    private double[][] chunkEnergy(List<Coordinates> chunk, List<WeatherResponse> responses, PanelParameters panel) {
+        double[][] energies = new double[chunk.size()][];
+        List<SolarYieldEngine.Site> sites = new ArrayList<>(chunk.size());
+        List<Integer> indexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            WeatherResponse response = responses.get(i);
+            if (response != null && SolarYieldEngine.supports(response)) {
+                sites.add(new SolarYieldEngine.Site(chunk.get(i).latitude(), chunk.get(i).longitude(), panel, response.hourly()));
+                indexes.add(i);
+            }
+        }
+        if (sites.isEmpty()) {
+            return energies;
+        }
+        try {
+            List<double[]> results = solarYieldEngine.dailyEnergy(sites);
+            for (int i = 0; i < results.size(); i++) {
+                energies[indexes.get(i)] = results.get(i);
+            }
+        } catch (RuntimeException e) {
+            Arrays.fill(energies, null);
+        }
+        return energies;
+    }
+
+    // Treść błędu dla rekordu w strumieniowanej odpowiedzi: komunikaty błędów API są przeznaczone dla klienta,
+    // szczegóły pozostałych wyjątków nie
+    public static String errorMessage(RuntimeException e) {
+        if (e instanceof WeatherDataNotFoundException || e instanceof UpstreamUnavailableException) {
+            return e.getMessage();
+        }
+        return PROCESSING_ERROR;
+    }
+
+    // Energia z godzinowego promieniowania i temperatury dla instalacji w (latitude, longitude),
+    // a gdy odpowiedź ich nie zawiera - z dziennego usłonecznienia
+    public List<DailyForecast> processWeatherData(WeatherResponse response, double latitude, double longitude, PanelParameters panel) {
+        double[] energy = SolarYieldEngine.supports(response)
+                ? solarYieldEngine.dailyEnergy(new SolarYieldEngine.Site(latitude, longitude, panel, response.hourly()))
+                : sunshineEnergy(response.daily(), panel);
+        return forecasts(response.daily(), energy);
+    }
+
+    private static List<DailyForecast> forecasts(WeatherResponse.Daily daily, double[] energy) {
+        List<DailyForecast> forecasts = new ArrayList<>(daily.time().length);
+
+        for (int i = 0; i < daily.time().length; i++) {
             forecasts.add(new DailyForecast(
-                    daily.time().get(i),
-                    daily.weather_code().get(i),
-                    daily.temperature_2m_min().get(i),
-                    daily.temperature_2m_max().get(i),
-                    estimatedEnergy
+                    daily.time()[i],
+                    daily.weather_code()[i],
+                    daily.temperature_2m_min()[i],
+                    daily.temperature_2m_max()[i],
+                    round(energy[i], 3)
             ));
         }
 
         return forecasts;
     }
 
-    public WeatherSummary getWeekSummary(double latitude, double longitude) {
-        WeatherResponse response = weatherApiClient.getWeatherData(latitude, longitude, dailyParameters, hourlyParameters, timezone);
-        return processWeeklyData(response);
+    private static double[] sunshineEnergy(WeatherResponse.Daily daily, PanelParameters panel) {
+        double[] energy = new double[daily.time().length];
+        for (int i = 0; i < energy.length; i++) {
+            double sunshineHours = daily.sunshine_duration()[i] / 3600; // sekundy na godziny
+            energy[i] = panel.peakPower() * sunshineHours * PANEL_EFFICIENCY;
+        }
+        return energy;
     }
 
-    private WeatherSummary processWeeklyData(WeatherResponse response) {
+    public WeatherSummary processWeeklyData(WeatherResponse response) {
         WeatherResponse.Daily daily = response.daily();
-        WeatherResponse.Hourly hourly = response.hourly();
-        double averageSurface = hourly.surface_pressure().stream()
-                .mapToDouble(Double::doubleValue)
-                .average()
-                .orElse(0.0);
+        double[] surfacePressure = response.hourly().surface_pressure();
+        double averageSurface = 0.0;
+        for (double pressure : surfacePressure) {
+            averageSurface += pressure;
+        }
+        if (surfacePressure.length > 0) {
+            averageSurface /= surfacePressure.length;
+        }
 
         double averageSunshineDuration = 0;
         double minTemperature = Double.MAX_VALUE;
         double maxTemperature = Double.MIN_VALUE;
         double rainyDays = 0;
-        for (int i = 0; i < daily.time().size(); i++) {
-            averageSunshineDuration += daily.sunshine_duration().get(i);
-            minTemperature = Math.min(minTemperature, daily.temperature_2m_min().get(i));
-            maxTemperature = Math.max(maxTemperature, daily.temperature_2m_max().get(i));
-            if (daily.rain_sum().get(i) > 0)
+        int days = daily.time().length;
+        for (int i = 0; i < days; i++) {
+            averageSunshineDuration += daily.sunshine_duration()[i];
+            minTemperature = Math.min(minTemperature, daily.temperature_2m_min()[i]);
+            maxTemperature = Math.max(maxTemperature, daily.temperature_2m_max()[i]);
+            if (daily.rain_sum()[i] > 0)
                 rainyDays++;
         }
-        averageSunshineDuration /= daily.time().size();
+        averageSunshineDuration /= days;
         return new WeatherSummary(round(averageSurface, 4), round(averageSunshineDuration, 2), minTemperature, maxTemperature, rainyDays > 3 ? "Rainy" : "Not rainy");
     }
 
@@ -100,10 +360,70 @@ public class WeatherService {
     }
 
     public WeatherResponse.DailyUnits getDailyUnits() {
-        return new WeatherResponse.DailyUnits();
+        return DAILY_UNITS;
     }
 
     public WeatherResponse.WeeklySummaryUnits getWeeklySummaryUnits() {
-        return new WeatherResponse.WeeklySummaryUnits();
+        return WEEKLY_SUMMARY_UNITS;
+    }
+
+    // Sumy i skrajne wartości z kolejnych paczek; brakujące dane (NaN z archiwum) są pomijane
+    private static final class RangeAccumulator {
+        private int days;
+        private double pressureSum;
+        private long pressureCount;
+        private double sunshineSum;
+        private long sunshineCount;
+        private double minTemperature = Double.NaN;
+        private double maxTemperature = Double.NaN;
+        private int rainyDays;
+        private double energySum;
+
+        void add(WeatherResponse response, List<DailyForecast> forecasts) {
+            WeatherResponse.Daily daily = response.daily();
+            int count = daily.time().length;
+            days += count;
+            for (int i = 0; i < count; i++) {
+                double sunshine = daily.sunshine_duration()[i];
+                if (!Double.isNaN(sunshine)) {
+                    sunshineSum += sunshine;
+                    sunshineCount++;
+                }
+                minTemperature = min(minTemperature, daily.temperature_2m_min()[i]);
+                maxTemperature = max(maxTemperature, daily.temperature_2m_max()[i]);
+                if (daily.rain_sum()[i] > 0) {
+                    rainyDays++;
+                }
+                double energy = forecasts.get(i).estimatedEnergy();
+                if (!Double.isNaN(energy)) {
+                    energySum += energy;
+                }
+            }
+            if (response.hourly() != null) {
+                for (double pressure : response.hourly().surface_pressure()) {
+                    if (!Double.isNaN(pressure)) {
+                        pressureSum += pressure;
+                        pressureCount++;
+                    }
+                }
+            }
+        }
+
+        RangeSummary summary(ForecastWindow window) {
+            LocalDate start = window.isRange() ? window.startDate() : LocalDate.now(ZoneOffset.UTC);
+            LocalDate end = window.isRange() ? window.endDate() : start.plusDays(window.forecastDays() - 1);
+            return new RangeSummary(start, end, days,
+                    pressureCount > 0 ? round(pressureSum / pressureCount, 4) : Double.NaN,
+                    sunshineCount > 0 ? round(sunshineSum / sunshineCount, 2) : Double.NaN,
+                    minTemperature, maxTemperature, rainyDays, round(energySum, 3));
+        }
+
+        private static double min(double current, double value) {
+            return Double.isNaN(current) || value < current ? value : current;
+        }
+
+        private static double max(double current, double value) {
+            return Double.isNaN(current) || value > current ? value : current;
+        }
     }
 }
@@ -5,18 +5,117 @@ import org.springframework.stereotype.Component;
 
 @Component
 public class CoordinateValidator {
+    private static final String LATITUDE = "Szerokość geograficzna";
+    private static final String LONGITUDE = "Długość geograficzna";
+
+    // Komunikaty dla szerokości i długości składane raz, a nie przy każdym błędnym żądaniu
+    private static final String LATITUDE_NOT_A_NUMBER = notANumberMessage(LATITUDE);
+    private static final String LATITUDE_OUT_OF_RANGE = outOfRangeMessage(LATITUDE, -90.0, 90.0);
+    private static final String LONGITUDE_NOT_A_NUMBER = notANumberMessage(LONGITUDE);
+    private static final String LONGITUDE_OUT_OF_RANGE = outOfRangeMessage(LONGITUDE, -180.0, 180.0);
+
+    // Potęgi 10 dokładnie reprezentowalne jako double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    public double parseLatitude(String coordinate) throws InvalidInputException {
+        return validateLatitude(parse(coordinate, LATITUDE_NOT_A_NUMBER));
+    }
+
+    public double parseLongitude(String coordinate) throws InvalidInputException {
+        return validateLongitude(parse(coordinate, LONGITUDE_NOT_A_NUMBER));
+    }
+
+    public double validateLatitude(double value) throws InvalidInputException {
+        if (value < -90.0 || value > 90.0) {
+            throw new InvalidInputException(LATITUDE_OUT_OF_RANGE);
+        }
+        return value;
+    }
+
+    public double validateLongitude(double value) throws InvalidInputException {
+        if (value < -180.0 || value > 180.0) {
+            throw new InvalidInputException(LONGITUDE_OUT_OF_RANGE);
+        }
+        return value;
+    }
+
     public double parseAndValidateCoordinate(String coordinate, String coordinateName, double minValue, double maxValue) throws InvalidInputException {
         try {
             double value = Double.parseDouble(coordinate);
 
-            // Walidacja zakresu
-            if (value < minValue || value > maxValue) {
-                throw new InvalidInputException(coordinateName + " musi być w przedziale [" + minValue + ", " + maxValue + "].");
-            }
+            return validateCoordinate(value, coordinateName, minValue, maxValue);
+        } catch (NumberFormatException e) {
+            throw new InvalidInputException(notANumberMessage(coordinateName));
+        }
+    }
 
+    public double validateCoordinate(double value, String coordinateName, double minValue, double maxValue) throws InvalidInputException {
+        // Walidacja zakresu
+        if (value < minValue || value > maxValue) {
+            throw new InvalidInputException(outOfRangeMessage(coordinateName, minValue, maxValue));
+        }
+
+        return value;
+    }
+
+    private static double parse(String coordinate, String notANumberMessage) {
+        double value = parseSimpleDecimal(coordinate);
+        if (!Double.isNaN(value)) {
             return value;
+        }
+        try {
+            return Double.parseDouble(coordinate);
         } catch (NumberFormatException e) {
-            throw new InvalidInputException(coordinateName + " musi być liczbą zmiennoprzecinkową.");
+            throw new InvalidInputException(notANumberMessage);
+        }
+    }
+
+    // Szybka ścieżka dla zapisu typu "-52.2298": mantysa do 15 cyfr dzielona przez dokładną potęgę 10
+    // daje poprawnie zaokrąglony wynik. Inne zapisy (wykładnik, spacje, NaN) zwracają NaN i trafiają do Double.parseDouble.
+    private static double parseSimpleDecimal(String coordinate) {
+        int length = coordinate.length();
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (coordinate.charAt(0) == '-' || coordinate.charAt(0) == '+')) {
+            negative = coordinate.charAt(0) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean dot = false;
+        for (; i < length; i++) {
+            char c = coordinate.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > MAX_EXACT_DIGITS) {
+                    return Double.NaN;
+                }
+                mantissa = mantissa * 10 + (c - '0');
+                if (dot) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && !dot) {
+                dot = true;
+            } else {
+                return Double.NaN;
+            }
+        }
+        if (digits == 0) {
+            return Double.NaN;
         }
+        double value = mantissa / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private static String notANumberMessage(String coordinateName) {
+        return coordinateName + " musi być liczbą zmiennoprzecinkową.";
+    }
+
+    private static String outOfRangeMessage(String coordinateName, double minValue, double maxValue) {
+        return coordinateName + " musi być w przedziale [" + minValue + ", " + maxValue + "].";
     }
 }
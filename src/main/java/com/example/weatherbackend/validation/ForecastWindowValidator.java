@@ -0,0 +1,66 @@
+package com.example.weatherbackend.validation;
+
+import com.example.weatherbackend.exceptions.InvalidInputException;
+import com.example.weatherbackend.model.ForecastWindow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+
+@Component
+public class ForecastWindowValidator {
+    private static final int MAX_FORECAST_DAYS = 16; // horyzont prognozy Open-Meteo
+    private static final LocalDate FIRST_ARCHIVE_DATE = LocalDate.of(1940, 1, 1); // początek reanalizy ERA5
+
+    private final int maxRangeDays;
+
+    public ForecastWindowValidator(@Value("${app.range.max-days}") int maxRangeDays) {
+        this.maxRangeDays = maxRangeDays;
+    }
+
+    // forecast_days albo para start_date/end_date (YYYY-MM-DD); bez parametrów - domyślne 7 dni
+    public ForecastWindow parse(String forecastDays, String startDate, String endDate) throws InvalidInputException {
+        if (startDate == null && endDate == null) {
+            return ForecastWindow.days(forecastDays == null ? 7 : parseForecastDays(forecastDays));
+        }
+        if (forecastDays != null || startDate == null || endDate == null) {
+            throw new InvalidInputException("Podaj forecast_days albo oba parametry start_date i end_date.");
+        }
+        LocalDate start = parseDate(startDate, "start_date");
+        LocalDate end = parseDate(endDate, "end_date");
+        if (end.isBefore(start)) {
+            throw new InvalidInputException("end_date nie może być wcześniejsza niż start_date.");
+        }
+        LocalDate lastForecastDate = LocalDate.now(ZoneOffset.UTC).plusDays(MAX_FORECAST_DAYS - 1);
+        if (start.isBefore(FIRST_ARCHIVE_DATE) || end.isAfter(lastForecastDate)) {
+            throw new InvalidInputException("Zakres dat musi mieścić się w przedziale [" + FIRST_ARCHIVE_DATE + ", " + lastForecastDate + "].");
+        }
+        ForecastWindow window = ForecastWindow.range(start, end);
+        if (window.length() > maxRangeDays) {
+            throw new InvalidInputException("Zakres dat może obejmować najwyżej " + maxRangeDays + " dni.");
+        }
+        return window;
+    }
+
+    private static int parseForecastDays(String forecastDays) {
+        try {
+            int days = Integer.parseInt(forecastDays);
+            if (days >= 1 && days <= MAX_FORECAST_DAYS) {
+                return days;
+            }
+        } catch (NumberFormatException ignored) {
+            // komunikat poniżej
+        }
+        throw new InvalidInputException("forecast_days musi być liczbą całkowitą w przedziale [1, " + MAX_FORECAST_DAYS + "].");
+    }
+
+    private static LocalDate parseDate(String date, String name) {
+        try {
+            return LocalDate.parse(date);
+        } catch (DateTimeParseException e) {
+            throw new InvalidInputException(name + " musi być datą w formacie YYYY-MM-DD.");
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.weatherbackend.validation;
+
+import com.example.weatherbackend.exceptions.InvalidInputException;
+import com.example.weatherbackend.model.Coordinates;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+// Lokalizacje czytane z wejścia po jednej, w miarę potrzeby - w pamięci jest tylko bieżący wiersz/element.
+// Błędny wiersz zgłasza InvalidInputException z jego numerem dopiero, gdy do niego dojdzie odczyt.
+public abstract class LocationReader implements Iterator<Coordinates> {
+
+    private final CoordinateValidator coordinateValidator;
+    private final int maxLocations;
+    private Coordinates next;
+    private int count;
+    private boolean finished;
+
+    private LocationReader(CoordinateValidator coordinateValidator, int maxLocations) {
+        this.coordinateValidator = coordinateValidator;
+        this.maxLocations = maxLocations;
+    }
+
+    // Wiersze "latitude,longitude[,...]" (także ze średnikiem); opcjonalny nagłówek wskazuje kolumny
+    // latitude/lat i longitude/lon/lng, pozostałe kolumny (np. identyfikator instalacji) są pomijane
+    public static LocationReader csv(InputStream input, CoordinateValidator coordinateValidator, int maxLocations) {
+        return new CsvLocationReader(input, coordinateValidator, maxLocations);
+    }
+
+    // Tablica JSON obiektów {"latitude": ..., "longitude": ...}, czytana strumieniowo
+    public static LocationReader json(InputStream input, ObjectMapper objectMapper,
+                                      CoordinateValidator coordinateValidator, int maxLocations) {
+        try {
+            return new JsonLocationReader(objectMapper.createParser(input), coordinateValidator, maxLocations);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !finished) {
+            try {
+                next = read();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (next == null) {
+                finished = true;
+                if (count == 0) {
+                    throw new InvalidInputException("Brak lokalizacji w zapytaniu.");
+                }
+            } else if (++count > maxLocations) {
+                finished = true;
+                next = null;
+                throw new InvalidInputException("Liczba lokalizacji nie może przekraczać " + maxLocations + ".");
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public Coordinates next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Coordinates coordinates = next;
+        next = null;
+        return coordinates;
+    }
+
+    // Następna lokalizacja albo null na końcu wejścia
+    protected abstract Coordinates read() throws IOException;
+
+    protected Coordinates validated(String position, double latitude, double longitude) {
+        try {
+            return new Coordinates(coordinateValidator.validateLatitude(latitude), coordinateValidator.validateLongitude(longitude));
+        } catch (InvalidInputException e) {
+            throw new InvalidInputException(position + ": " + e.getMessage());
+        }
+    }
+
+    protected Coordinates parsed(String position, String latitude, String longitude) {
+        try {
+            return new Coordinates(coordinateValidator.parseLatitude(latitude), coordinateValidator.parseLongitude(longitude));
+        } catch (InvalidInputException e) {
+            throw new InvalidInputException(position + ": " + e.getMessage());
+        }
+    }
+
+    private static final class CsvLocationReader extends LocationReader {
+        private final BufferedReader reader;
+        private int lineNumber;
+        private int latitudeColumn = 0;
+        private int longitudeColumn = 1;
+        private boolean headerChecked;
+
+        CsvLocationReader(InputStream input, CoordinateValidator coordinateValidator, int maxLocations) {
+            super(coordinateValidator, maxLocations);
+            this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        protected Coordinates read() throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String trimmed = line.strip();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                String[] columns = trimmed.split("[,;]", -1);
+                if (!headerChecked) {
+                    headerChecked = true;
+                    if (readHeader(columns)) {
+                        continue;
+                    }
+                }
+                String position = "Wiersz " + lineNumber;
+                if (columns.length <= Math.max(latitudeColumn, longitudeColumn)) {
+                    throw new InvalidInputException(position + ": oczekiwano kolumn szerokości i długości geograficznej.");
+                }
+                return parsed(position, columns[latitudeColumn].strip(), columns[longitudeColumn].strip());
+            }
+            return null;
+        }
+
+        // Nagłówek rozpoznajemy po nazwach kolumn; bez nagłówka pierwsze dwie kolumny to szerokość i długość
+        private boolean readHeader(String[] columns) {
+            int latitude = -1;
+            int longitude = -1;
+            for (int i = 0; i < columns.length; i++) {
+                switch (columns[i].strip().replace("\"", "").toLowerCase(Locale.ROOT)) {
+                    case "latitude", "lat" -> latitude = i;
+                    case "longitude", "lon", "lng" -> longitude = i;
+                    default -> {
+                    }
+                }
+            }
+            if (latitude < 0 && longitude < 0) {
+                return false;
+            }
+            if (latitude < 0 || longitude < 0) {
+                throw new InvalidInputException("Wiersz " + lineNumber + ": nagłówek musi zawierać kolumny latitude i longitude.");
+            }
+            latitudeColumn = latitude;
+            longitudeColumn = longitude;
+            return true;
+        }
+    }
+
+    private static final class JsonLocationReader extends LocationReader {
+        private final JsonParser parser;
+        private int index;
+        private boolean started;
+
+        JsonLocationReader(JsonParser parser, CoordinateValidator coordinateValidator, int maxLocations) {
+            super(coordinateValidator, maxLocations);
+            this.parser = parser;
+        }
+
+        @Override
+        protected Coordinates read() throws IOException {
+            try {
+                if (!started) {
+                    started = true;
+                    if (parser.nextToken() != JsonToken.START_ARRAY) {
+                        throw new InvalidInputException("Oczekiwano tablicy JSON z lokalizacjami.");
+                    }
+                }
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.END_ARRAY) {
+                    return null;
+                }
+                if (token == null) {
+                    throw incomplete();
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    // null lub wartość prosta zamiast obiektu lokalizacji
+                    throw new InvalidInputException("Element " + index + ": oczekiwano obiektu z polami latitude i longitude.");
+                }
+                Coordinates coordinates = parser.readValueAs(Coordinates.class);
+                return validated("Element " + index++, coordinates.latitude(), coordinates.longitude());
+            } catch (JsonEOFException e) {
+                // Ucięte wejście (np. przerwany upload) to błąd, a nie koniec listy lokalizacji
+                throw incomplete();
+            } catch (MismatchedInputException e) {
+                // Brak pola, null albo wartość nieliczbowa w latitude/longitude
+                throw new InvalidInputException("Element " + index + ": lokalizacja musi mieć liczbowe pola latitude i longitude.");
+            } catch (JsonProcessingException e) {
+                throw new InvalidInputException("Element " + index + ": niepoprawny JSON lokalizacji.");
+            }
+        }
+
+        private InvalidInputException incomplete() {
+            return new InvalidInputException("Element " + index + ": niekompletna tablica JSON lokalizacji.");
+        }
+    }
+}
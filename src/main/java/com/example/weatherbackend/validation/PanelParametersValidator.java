@@ -0,0 +1,40 @@
+package com.example.weatherbackend.validation;
+
+import com.example.weatherbackend.exceptions.InvalidInputException;
+import com.example.weatherbackend.model.PanelParameters;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PanelParametersValidator {
+    private static final double MAX_PEAK_POWER = 1000.0; // kWp
+
+    // Parametry pominięte w zapytaniu biorą wartości z PanelParameters.DEFAULT
+    public PanelParameters parse(String peakPower, String tilt, String azimuth, String systemEfficiency) throws InvalidInputException {
+        if (peakPower == null && tilt == null && azimuth == null && systemEfficiency == null) {
+            return PanelParameters.DEFAULT;
+        }
+        PanelParameters defaults = PanelParameters.DEFAULT;
+        return new PanelParameters(
+                parse(peakPower, "peak_power", defaults.peakPower(), 0.01, MAX_PEAK_POWER),
+                parse(tilt, "tilt", defaults.tilt(), 0.0, 90.0),
+                parse(azimuth, "azimuth", defaults.azimuth(), 0.0, 360.0),
+                parse(systemEfficiency, "system_efficiency", defaults.systemEfficiency(), 0.01, 1.0),
+                defaults.temperatureCoefficient());
+    }
+
+    private static double parse(String value, String name, double defaultValue, double minValue, double maxValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            double parsed = Double.parseDouble(value);
+            // Odrzuca też NaN i nieskończoności
+            if (parsed >= minValue && parsed <= maxValue) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+            // komunikat poniżej
+        }
+        throw new InvalidInputException(name + " musi być liczbą w przedziale [" + minValue + ", " + maxValue + "].");
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.CacheWarmer;
+import com.example.weatherbackend.client.CachingWeatherApiClient;
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.client.HotCellTracker;
+import com.example.weatherbackend.client.TrackingWeatherApiClient;
+import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CacheWarmerTest {
+
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+    private static final String HOURLY = "surface_pressure";
+
+    private WeatherApiClient delegate;
+    private ForecastCache forecastCache;
+    private HotCellTracker tracker;
+    private TrackingWeatherApiClient client;
+    private WeatherResponse weatherResponse;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(WeatherApiClient.class);
+        forecastCache = new ForecastCache(0.01, Duration.ofHours(6), 100, 0);
+        tracker = new HotCellTracker(10, 1024);
+        client = new TrackingWeatherApiClient(new CachingWeatherApiClient(delegate, forecastCache), forecastCache, tracker);
+        weatherResponse = new WeatherResponse(
+                new WeatherResponse.Daily(new String[]{"2024-11-20"}, new int[]{1}, new double[]{5.0},
+                        new double[]{15.0}, new double[]{36000.0}, new double[]{0.0}),
+                new WeatherResponse.Hourly(new double[]{1013.0}));
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString())).thenReturn(new WeatherSnapshot(weatherResponse));
+    }
+
+    @Test
+    public void testWarm_refreshesHotCellsCloseToSoftTtl() {
+        client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        ForecastKey hot = forecastCache.keyFor(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        // Wpis sprzed 29 minut - przy soft TTL 30 minut przekroczy go przed kolejnym cyklem
+        forecastCache.put(hot, new WeatherSnapshot(weatherResponse, Instant.now().minus(Duration.ofMinutes(29))));
+
+        int refreshed = warmer(60).warm();
+
+        assertEquals(1, refreshed);
+        verify(delegate, times(2)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+        assertTrue(forecastCache.peek(hot).fetchedAt().isAfter(Instant.now().minusSeconds(5)));
+    }
+
+    @Test
+    public void testWarm_skipsFreshEntries() {
+        client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        assertEquals(0, warmer(60).warm());
+        verify(delegate, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testWarm_respectsRateBudget() {
+        // Komórki, które wypadły z cache
+        for (int i = 0; i < 5; i++) {
+            client.getWeatherData(50 + i, 20, DAILY, HOURLY, "auto");
+        }
+        forecastCache.invalidateAll();
+
+        // 2 zapytania na minutę przy cyklu co minutę
+        assertEquals(2, warmer(2).warm());
+    }
+
+    @Test
+    public void testWarm_stopsOnUpstreamFailure() {
+        client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        client.getWeatherData(50.0614, 19.9366, DAILY, HOURLY, "auto");
+        forecastCache.invalidateAll();
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new WeatherDataNotFoundException("Błąd"));
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        assertEquals(0, warmer(60, registry).warm());
+        assertEquals(1.0, registry.counter("forecast.prewarm.refreshes", "outcome", "error").count());
+        verify(delegate, times(3)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    private CacheWarmer warmer(int maxRequestsPerMinute) {
+        return warmer(maxRequestsPerMinute, new SimpleMeterRegistry());
+    }
+
+    // Bez odstępów między zapytaniami
+    private CacheWarmer warmer(int maxRequestsPerMinute, SimpleMeterRegistry registry) {
+        CachingWeatherApiClient caching = new CachingWeatherApiClient(delegate, forecastCache);
+        return new CacheWarmer(tracker, forecastCache, caching, Duration.ofMinutes(30), Duration.ofMinutes(1),
+                10, maxRequestsPerMinute, nanos -> { }, Clock.systemUTC(), registry);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.CachingWeatherApiClient;
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalMatchers;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CachingWeatherApiClientTest {
+
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+    private static final String HOURLY = "surface_pressure";
+
+    private WeatherApiClient delegate;
+    private ForecastCache forecastCache;
+    private CachingWeatherApiClient client;
+    private WeatherResponse weatherResponse;
+
+    @BeforeEach
+    public void setUp() {
+        delegate = mock(WeatherApiClient.class);
+        forecastCache = new ForecastCache(0.01, Duration.ofHours(6), 100, 0);
+        client = new CachingWeatherApiClient(delegate, forecastCache);
+
+        weatherResponse = new WeatherResponse(
+                new WeatherResponse.Daily(
+                        new String[]{"2024-11-20"},
+                        new int[]{1},
+                        new double[]{5.0},
+                        new double[]{15.0},
+                        new double[]{36000.0},
+                        new double[]{0.0}
+                ),
+                new WeatherResponse.Hourly(new double[]{1013.0})
+        );
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString())).thenReturn(new WeatherSnapshot(weatherResponse));
+    }
+
+    @Test
+    public void testSameGridCell_fetchesOnce() {
+        // Obie lokalizacje leżą w tej samej komórce siatki 0.01°
+        WeatherSnapshot first = client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        WeatherSnapshot second = client.getWeatherData(52.2301, 21.0121, DAILY, HOURLY, "auto");
+
+        assertSame(first, second);
+        verify(delegate, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+        assertEquals(1, forecastCache.stats().hitCount());
+        assertEquals(1, forecastCache.stats().missCount());
+    }
+
+    @Test
+    public void testFetchesCellCenter() {
+        client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        verify(delegate).getWeatherData(AdditionalMatchers.eq(52.23, 1e-9), AdditionalMatchers.eq(21.01, 1e-9), eq(DAILY), eq(HOURLY), eq("auto"));
+    }
+
+    @Test
+    public void testDifferentCellsOrParameters_fetchSeparately() {
+        client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        client.getWeatherData(50.0614, 19.9366, DAILY, HOURLY, "auto");
+        client.getWeatherData(52.2298, 21.0118, DAILY, "", "auto");
+
+        verify(delegate, times(3)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testUpstreamError_isNotCached() {
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new WeatherDataNotFoundException("Błąd"))
+                .thenReturn(new WeatherSnapshot(weatherResponse));
+
+        assertThrows(WeatherDataNotFoundException.class, () -> client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto"));
+        assertSame(weatherResponse.daily(), client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto").response().daily());
+    }
+
+    @Test
+    public void testSoftTtlExpired_servesStaleAndRefreshesInBackground() {
+        List<Runnable> refreshes = new ArrayList<>();
+        CachingWeatherApiClient refreshingClient = new CachingWeatherApiClient(delegate, forecastCache,
+                Duration.ofMinutes(30), refreshes::add, Clock.offset(Clock.systemUTC(), Duration.ofHours(-1)));
+        refreshingClient.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        // Wpis ma godzinę, soft TTL to 30 minut
+        CachingWeatherApiClient laterClient = new CachingWeatherApiClient(delegate, forecastCache,
+                Duration.ofMinutes(30), refreshes::add, Clock.systemUTC());
+        WeatherSnapshot stale = laterClient.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        laterClient.getWeatherData(52.2299, 21.0119, DAILY, HOURLY, "auto");
+
+        assertTrue(stale.fetchedAt().isBefore(Instant.now().minus(Duration.ofMinutes(30))));
+        assertEquals(1, refreshes.size()); // jedno odświeżenie na klucz
+        verify(delegate, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+
+        refreshes.get(0).run();
+        WeatherSnapshot fresh = laterClient.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        assertTrue(fresh.fetchedAt().isAfter(stale.fetchedAt()));
+        assertEquals(0, laterClient.refreshingCount());
+        verify(delegate, times(2)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testRefreshFailure_keepsServingStaleEntry() {
+        CachingWeatherApiClient refreshingClient = new CachingWeatherApiClient(delegate, forecastCache,
+                Duration.ZERO, Runnable::run, Clock.systemUTC());
+        WeatherSnapshot first = refreshingClient.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new WeatherDataNotFoundException("Błąd"));
+
+        WeatherSnapshot stale = refreshingClient.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        WeatherSnapshot staleAgain = refreshingClient.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        // Po nieudanym odświeżeniu zostaje stary wpis - jego wiek pokazuje nagłówek Age
+        assertEquals(first.fetchedAt(), stale.fetchedAt());
+        assertEquals(first.fetchedAt(), staleAgain.fetchedAt());
+        assertEquals(0, refreshingClient.refreshingCount());
+    }
+
+    @Test
+    public void testBatch_fetchesOnlyMissingCellsOnce() {
+        when(delegate.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(weatherResponse)));
+        client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        List<WeatherSnapshot> responses = client.getWeatherDataBatch(List.of(
+                new Coordinates(52.2298, 21.0118), // trafienie w cache
+                new Coordinates(50.0614, 19.9366),
+                new Coordinates(50.0612, 19.9368), // ta sama komórka co poprzednia
+                new Coordinates(54.3520, 18.6466)), DAILY, HOURLY, "auto");
+
+        assertEquals(4, responses.size());
+        responses.forEach(Assertions::assertNotNull);
+        verify(delegate).getWeatherDataBatch(argThat(locations -> locations.size() == 2), eq(DAILY), eq(HOURLY), eq("auto"));
+    }
+
+    @Test
+    public void testTtl_measuredWithCacheClock() {
+        // Zegar cache 7 godzin do przodu: wpis pobrany teraz ma już za sobą 6-godzinne TTL
+        ForecastCache laterCache = new ForecastCache(0.01, Duration.ofHours(6), 100, 0,
+                Clock.offset(Clock.systemUTC(), Duration.ofHours(7)));
+        ForecastKey key = laterCache.keyFor(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        laterCache.put(key, new WeatherSnapshot(weatherResponse, Instant.now()));
+
+        assertNull(laterCache.get(key));
+    }
+
+    @Test
+    public void testMaxEntries_evictsOldEntries() {
+        ForecastCache smallCache = new ForecastCache(0.01, Duration.ofHours(1), 1, 0);
+        CachingWeatherApiClient smallClient = new CachingWeatherApiClient(delegate, smallCache);
+
+        smallClient.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        smallClient.getWeatherData(50.0614, 19.9366, DAILY, HOURLY, "auto");
+        smallClient.getWeatherData(54.3520, 18.6466, DAILY, HOURLY, "auto");
+        smallCache.cleanUp();
+
+        assertEquals(1, smallCache.size());
+        assertTrue(smallCache.stats().evictionCount() >= 2);
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.CircuitBreaker;
+import com.example.weatherbackend.client.CircuitBreakerWeatherApiClient;
+import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.RequestThrottledException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class CircuitBreakerWeatherApiClientTest {
+
+    private static final WeatherSnapshot RESPONSE = new WeatherSnapshot(new WeatherResponse(null, null));
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    public void setUp() {
+        breaker = new CircuitBreaker(10, 4, 0.5, 0.8, Duration.ofSeconds(1), Duration.ofSeconds(30), 2, now::get);
+    }
+
+    @Test
+    public void testBreaker_opensOnFailureRateAndRejectsUntilOpenDurationPasses() {
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        breaker.onError();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state()); // za mało wywołań
+        breaker.onError();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+        assertEquals(30, breaker.remainingOpenDuration().toSeconds());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        assertTrue(breaker.tryAcquirePermission());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+    }
+
+    @Test
+    public void testBreaker_opensOnSlowCalls() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess(TimeUnit.SECONDS.toNanos(2));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    @Test
+    public void testBreaker_halfOpenClosesAfterSuccessfulProbes() {
+        open();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+        assertFalse(breaker.tryAcquirePermission()); // tylko 2 zapytania próbne
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testBreaker_halfOpenFailureReopens() {
+        open();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        assertTrue(breaker.tryAcquirePermission());
+        breaker.onError();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testClient_openCircuitFailsFastWithoutCallingUpstream() {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo"));
+        CircuitBreakerWeatherApiClient client = new CircuitBreakerWeatherApiClient(delegate, breaker, 10, 10, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(WeatherDataNotFoundException.class, () -> client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+        }
+        RequestThrottledException e = assertThrows(RequestThrottledException.class,
+                () -> client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+
+        assertEquals(30, e.getRetryAfter().toSeconds());
+        verify(delegate, times(4)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testClient_errorInHalfOpenProbeReleasesSlot() {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new StackOverflowError());
+        CircuitBreakerWeatherApiClient client = new CircuitBreakerWeatherApiClient(delegate, breaker, 10, 10, new SimpleMeterRegistry());
+        open();
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        assertThrows(StackOverflowError.class, () -> client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+
+        // Próba zakończona błędem ponownie otwiera obwód zamiast trzymać miejsce próbne
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        assertTrue(breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testClient_locallyThrottledCallsDoNotOpenCircuit() {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new RequestThrottledException("Przekroczono limit zapytań do API Open-Meteo.", Duration.ofSeconds(1)));
+        CircuitBreakerWeatherApiClient client = new CircuitBreakerWeatherApiClient(delegate, breaker, 10, 10, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 10; i++) {
+            assertThrows(RequestThrottledException.class, () -> client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void testClient_fullBatchBulkheadDoesNotBlockSingleCalls() throws Exception {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        when(delegate.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            entered.countDown();
+            proceed.await();
+            return List.of(RESPONSE, RESPONSE);
+        });
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString())).thenReturn(RESPONSE);
+        CircuitBreakerWeatherApiClient client = new CircuitBreakerWeatherApiClient(delegate, breaker, 1, 1, new SimpleMeterRegistry());
+        List<Coordinates> locations = List.of(new Coordinates(52.23, 21.01), new Coordinates(50.06, 19.94));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> client.getWeatherDataBatch(locations, "daily", "", "auto"));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            assertThrows(RequestThrottledException.class, () -> client.getWeatherDataBatch(locations, "daily", "", "auto"));
+            assertSame(RESPONSE, client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+        } finally {
+            proceed.countDown();
+            executor.shutdown();
+        }
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onError();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.CoordinateFormatter;
+import com.example.weatherbackend.exceptions.InvalidInputException;
+import com.example.weatherbackend.validation.CoordinateValidator;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CoordinateValidatorTest {
+
+    private final CoordinateValidator coordinateValidator = new CoordinateValidator();
+
+    @Test
+    public void testParseLatitude_matchesDoubleParseDouble() {
+        String[] inputs = {"52.2298", "-52.2298", "+21.0118", "0", "-0.0", "90", "89.999999999999", ".5", "7.", "1e1", " 52.1 ", "12.345678901234567"};
+        for (String input : inputs) {
+            assertEquals(Double.parseDouble(input), coordinateValidator.parseLatitude(input), input);
+        }
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            String input = String.format(Locale.ROOT, "%." + random.nextInt(10) + "f", random.nextDouble() * 180 - 90);
+            assertEquals(Double.parseDouble(input), coordinateValidator.parseLatitude(input), input);
+        }
+    }
+
+    @Test
+    public void testParseLatitude_invalidInput() {
+        for (String input : new String[]{"abc", "", "-", ".", "1.2.3", "52,23"}) {
+            InvalidInputException e = assertThrows(InvalidInputException.class, () -> coordinateValidator.parseLatitude(input));
+            assertEquals("Szerokość geograficzna musi być liczbą zmiennoprzecinkową.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testParseLongitude_outOfRange() {
+        InvalidInputException e = assertThrows(InvalidInputException.class, () -> coordinateValidator.parseLongitude("190.0"));
+        assertEquals("Długość geograficzna musi być w przedziale [-180.0, 180.0].", e.getMessage());
+    }
+
+    @Test
+    public void testFormatFixed6_matchesStringFormat() {
+        double[] values = {0.0, 52.2298, -52.2298, 21.01, -0.000001, 0.000005, 180.0, -179.9999994, 1.23456789};
+        for (double value : values) {
+            assertEquals(String.format(Locale.ROOT, "%.6f", value), CoordinateFormatter.formatFixed6(value), Double.toString(value));
+        }
+    }
+}
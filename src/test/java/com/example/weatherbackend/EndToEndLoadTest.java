@@ -0,0 +1,225 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.OpenMeteoStubServer.Behaviour;
+import com.example.weatherbackend.OpenMeteoStubServer.LatencyDistribution;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.NestedTestConfiguration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Pełny stos (OpenMeteoApiClient z dekoratorami -> WeatherService -> WeatherController) przeciwko lokalnemu
+// serwerowi Open-Meteo. Uruchamiany przez: mvn test -Pload -Dtest=EndToEndLoadTest
+// Czas i współbieżność scenariuszy: -Dload.seconds=30 -Dload.concurrency=64; wyniki w target/load-test-results.csv
+@Tag("load")
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "open-meteo.store.enabled=false",
+        "open-meteo.prewarm.enabled=false",
+        // Limity klienta powyżej obciążenia testu - mierzymy aplikację, a nie lokalny throttling
+        "open-meteo.throttling.requests-per-second=10000",
+        "open-meteo.throttling.burst=10000",
+        "open-meteo.throttling.initial-limit=200",
+        "open-meteo.throttling.max-limit=500",
+        "open-meteo.bulkhead.single-max-concurrent=500",
+        "open-meteo.bulkhead.batch-max-concurrent=100"
+})
+public class EndToEndLoadTest {
+
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("load.seconds", 5));
+    private static final Duration WARM_UP = Duration.ofSeconds(1);
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    private static final int BATCH_SIZE = 50;
+
+    private static final OpenMeteoStubServer upstream = OpenMeteoStubServer.start(Behaviour.healthy());
+    private static HttpClient httpClient;
+    private static LoadDriver driver;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("open-meteo.api.base-url", upstream::forecastUrl);
+        registry.add("open-meteo.api.archive-url", upstream::archiveUrl);
+    }
+
+    @BeforeAll
+    static void setUp() {
+        httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        driver = new LoadDriver(httpClient);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        httpClient.close();
+        upstream.close();
+    }
+
+    @Test
+    @Order(1)
+    void cachedForecasts() throws Exception {
+        upstream.behaviour(Behaviour.healthy().withLatency(LatencyDistribution.logNormal(40, 0.5)));
+
+        // 20 komórek pobranych w czasie rozgrzewki, potem tylko cache
+        LoadDriver.Result result = driver.run(scenario("cache-hot", n -> forecast(port, cell(0, n % 20))));
+
+        assertOnly(result, Set.of(200));
+        assertTrue(result.requests() > 0);
+    }
+
+    @Test
+    @Order(2)
+    void uncachedForecasts() throws Exception {
+        upstream.behaviour(Behaviour.healthy().withLatency(LatencyDistribution.logNormal(40, 0.5)));
+        long upstreamBefore = upstream.requests();
+
+        // Każde żądanie to nowa komórka siatki, więc każde trafia do Open-Meteo
+        LoadDriver.Result result = driver.run(scenario("cache-cold", n -> forecast(port, cell(1, n))));
+
+        assertOnly(result, Set.of(200));
+        assertTrue(upstream.requests() - upstreamBefore >= result.requests());
+        assertTrue(result.p50Millis() >= 20, "mediana " + result.p50Millis() + " ms poniżej opóźnienia Open-Meteo");
+    }
+
+    @Test
+    @Order(3)
+    void batchForecasts() throws Exception {
+        upstream.behaviour(Behaviour.healthy().withLatency(LatencyDistribution.logNormal(80, 0.5)));
+
+        LoadDriver.Result result = driver.run(scenario("batch-cold", n -> {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                double[] cell = cell(2, n * BATCH_SIZE + i);
+                body.append(i > 0 ? "," : "")
+                        .append(String.format(Locale.ROOT, "{\"latitude\":%.2f,\"longitude\":%.2f}", cell[0], cell[1]));
+            }
+            return HttpRequest.newBuilder(uri(port, "/api/weather/batch-forecast"))
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(30))
+                    .POST(HttpRequest.BodyPublishers.ofString(body.append(']').toString()))
+                    .build();
+        }));
+
+        assertOnly(result, Set.of(200));
+    }
+
+    @Test
+    @Order(4)
+    void flakyUpstream() throws Exception {
+        upstream.behaviour(Behaviour.healthy()
+                .withLatency(LatencyDistribution.uniform(10, 60))
+                .withErrorRate(0.1));
+        long errorsBefore = upstream.errors();
+
+        // Pojedyncze błędy 500 nie otwierają obwodu - klient dostaje 503 z Retry-After tylko dla tych komórek
+        LoadDriver.Result result = driver.run(scenario("upstream-errors", n -> forecast(port, cell(3, n))));
+
+        assertOnly(result, Set.of(200, 503));
+        assertTrue(upstream.errors() > errorsBefore);
+        assertTrue(result.count(200) > result.count(503) * 3, "statusy " + result.statuses());
+    }
+
+    @Test
+    @Order(5)
+    void rateLimitedUpstream() throws Exception {
+        upstream.behaviour(Behaviour.healthy()
+                .withLatency(LatencyDistribution.fixed(20))
+                .withRateLimit(20, 20));
+
+        // Limit Open-Meteo przekroczony: 503 z Retry-After zamiast błędów 404 lub 500; ostatni, bo może otworzyć obwód
+        LoadDriver.Result result = driver.run(scenario("rate-limited", n -> forecast(port, cell(4, n))));
+
+        assertOnly(result, Set.of(200, 503));
+        assertTrue(result.count(503) > 0);
+        assertTrue(upstream.rateLimited() > 0);
+    }
+
+    // Osobna aplikacja z domyślnymi limitami z application.properties (10 zapytań/s, burst 50, bulkhead 40) - sprawdza,
+    // że przy przeciążeniu ruch do Open-Meteo mieści się w budżecie, a nadmiar kończy się 503 zamiast kolejki i timeoutów
+    @Nested
+    @NestedTestConfiguration(NestedTestConfiguration.EnclosingConfiguration.OVERRIDE)
+    @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+            "spring.threads.virtual.enabled=true",
+            "open-meteo.store.enabled=false",
+            "open-meteo.prewarm.enabled=false"
+    })
+    class ProductionLimits {
+
+        private static final int RATE_LIMIT = 10;
+        private static final int BURST = 50;
+
+        @LocalServerPort
+        private int port;
+
+        @DynamicPropertySource
+        static void upstreamProperties(DynamicPropertyRegistry registry) {
+            registry.add("open-meteo.api.base-url", upstream::forecastUrl);
+            registry.add("open-meteo.api.archive-url", upstream::archiveUrl);
+        }
+
+        @Test
+        void uncachedForecastsStayWithinRateLimit() throws Exception {
+            upstream.behaviour(Behaviour.healthy().withLatency(LatencyDistribution.logNormal(40, 0.5)));
+            long upstreamBefore = upstream.requests();
+            long start = System.nanoTime();
+
+            LoadDriver.Result result = driver.run(scenario("production-limits", n -> forecast(port, cell(5, n))));
+
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long upstreamRequests = upstream.requests() - upstreamBefore;
+            assertOnly(result, Set.of(200, 503));
+            assertTrue(result.count(200) > 0 && result.count(503) > 0, "statusy " + result.statuses());
+            // Burst na start, potem RATE_LIMIT na sekundę przez rozgrzewkę i pomiar; zapas na zaokrąglenia czasu
+            long budget = BURST + Math.round(RATE_LIMIT * seconds) + 5;
+            assertTrue(upstreamRequests <= budget, upstreamRequests + " zapytań do Open-Meteo, budżet " + budget);
+        }
+    }
+
+    private static LoadDriver.Scenario scenario(String name, java.util.function.LongFunction<HttpRequest> request) {
+        return new LoadDriver.Scenario(name, CONCURRENCY, WARM_UP, DURATION, request);
+    }
+
+    private static HttpRequest forecast(int port, double[] cell) {
+        return HttpRequest.newBuilder(uri(port, String.format(Locale.ROOT,
+                        "/api/weather/7-day-forecast?latitude=%.2f&longitude=%.2f", cell[0], cell[1])))
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+
+    private static URI uri(int port, String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    // Osobny obszar dla każdego scenariusza, komórki co 0.05° - dalej niż promień interpolacji z sąsiednich komórek
+    private static double[] cell(int region, long n) {
+        return new double[]{-60 + region * 25 + (n % 400) * 0.05, -170 + (n / 400 % 6800) * 0.05};
+    }
+
+    private static void assertOnly(LoadDriver.Result result, Set<Integer> expected) {
+        assertEquals(0, result.count(LoadDriver.CONNECTION_ERROR), "błędy połączenia: " + result.statuses());
+        assertTrue(expected.containsAll(result.statuses().keySet()), "nieoczekiwane statusy " + result.statuses());
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.client.ForecastStore;
+import com.example.weatherbackend.client.ReplayWeatherApiClient;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForecastStoreTest {
+
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+    private static final ForecastKey WARSAW = new ForecastKey(52.23, 21.01, DAILY, "surface_pressure", "auto");
+    private static final ForecastKey KRAKOW = new ForecastKey(50.06, 19.94, DAILY, "surface_pressure", "auto");
+
+    @TempDir
+    private Path directory;
+
+    private Path file;
+    private ForecastStore store;
+
+    @BeforeEach
+    public void setUp() {
+        file = directory.resolve("store/forecasts.bin");
+        store = new ForecastStore(file, Duration.ofHours(6), Clock.systemUTC());
+    }
+
+    @Test
+    public void testAppendAndLoad_roundTripsAllColumns() {
+        WeatherSnapshot stored = response(Instant.now(), 1013.0);
+        store.append(WARSAW, stored);
+        store.close();
+
+        WeatherSnapshot loaded = new ForecastStore(file, Duration.ofHours(6), Clock.systemUTC()).load().get(WARSAW);
+
+        assertArrayEquals(stored.response().daily().time(), loaded.response().daily().time());
+        assertArrayEquals(stored.response().daily().weather_code(), loaded.response().daily().weather_code());
+        assertArrayEquals(stored.response().daily().sunshine_duration(), loaded.response().daily().sunshine_duration());
+        assertTrue(Double.isNaN(loaded.response().daily().rain_sum()[1]));
+        assertArrayEquals(stored.response().hourly().surface_pressure(), loaded.response().hourly().surface_pressure());
+        assertEquals(stored.fetchedAt().toEpochMilli(), loaded.fetchedAt().toEpochMilli());
+    }
+
+    @Test
+    public void testLoad_newestRecordWinsAndExpiredAreDropped() {
+        store.append(WARSAW, response(Instant.now().minusSeconds(600), 1000.0));
+        store.append(WARSAW, response(Instant.now(), 1020.0));
+        store.append(KRAKOW, response(Instant.now().minus(Duration.ofHours(7)), 1010.0));
+
+        Map<ForecastKey, WeatherSnapshot> entries = store.load();
+
+        assertEquals(1, entries.size());
+        assertEquals(1020.0, entries.get(WARSAW).response().hourly().surface_pressure()[0]);
+    }
+
+    @Test
+    public void testLoad_truncatesTornLastRecord() throws IOException {
+        store.append(WARSAW, response(Instant.now(), 1013.0));
+        store.append(KRAKOW, response(Instant.now(), 1015.0));
+        store.close();
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 10); // zapis przerwany w połowie rekordu
+        }
+
+        Map<ForecastKey, WeatherSnapshot> entries = store.load();
+
+        assertEquals(1, entries.size());
+        assertTrue(entries.containsKey(WARSAW));
+        assertTrue(Files.size(file) < size - 10);
+        // Kolejne zapisy trafiają za ostatni poprawny rekord
+        store.append(KRAKOW, response(Instant.now(), 1015.0));
+        assertEquals(2, store.load().size());
+    }
+
+    @Test
+    public void testLoad_skipsCorruptedRecordAndReadsFollowingOnes() throws IOException {
+        store.append(WARSAW, response(Instant.now(), 1013.0));
+        store.append(KRAKOW, response(Instant.now(), 1015.0));
+        store.close();
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f, 0x7f}), 40); // uszkodzony pierwszy rekord
+        }
+
+        Map<ForecastKey, WeatherSnapshot> entries = store.load();
+
+        assertEquals(1, entries.size());
+        assertEquals(1015.0, entries.get(KRAKOW).response().hourly().surface_pressure()[0]);
+        assertEquals(size, Files.size(file));
+        // Uszkodzony rekord zostaje w pliku do przepisania
+        assertTrue(store.needsCompaction());
+        store.compact();
+        assertFalse(store.needsCompaction());
+        assertEquals(1, store.load().size());
+    }
+
+    @Test
+    public void testAppend_writesOnWriteExecutor() throws IOException {
+        List<Runnable> writes = new ArrayList<>();
+        ForecastStore background = new ForecastStore(file, Duration.ofHours(6), Clock.systemUTC(), writes::add);
+
+        background.append(WARSAW, response(Instant.now(), 1013.0));
+        background.append(KRAKOW, response(Instant.now(), 1015.0));
+
+        assertFalse(Files.exists(file));
+        assertEquals(1, writes.size()); // jedno zadanie zapisu dla kolejki
+        assertEquals(2, background.pendingCount());
+        writes.get(0).run();
+        assertEquals(0, background.pendingCount());
+        assertEquals(2, background.recordCount());
+        assertEquals(2, new ForecastStore(file, Duration.ofHours(6), Clock.systemUTC()).load().size());
+    }
+
+    @Test
+    public void testClose_flushesPendingRecords() {
+        ForecastStore background = new ForecastStore(file, Duration.ofHours(6), Clock.systemUTC(), task -> { });
+        background.append(WARSAW, response(Instant.now(), 1013.0));
+
+        background.close();
+
+        assertEquals(1, new ForecastStore(file, Duration.ofHours(6), Clock.systemUTC()).load().size());
+    }
+
+    @Test
+    public void testCompact_keepsOnlyLatestEntries() throws IOException {
+        for (int i = 0; i < 50; i++) {
+            store.append(WARSAW, response(Instant.now(), 1000.0 + i));
+        }
+        long before = Files.size(file);
+
+        store.compact();
+
+        assertEquals(1, store.recordCount());
+        assertTrue(Files.size(file) < before / 10);
+        assertEquals(1049.0, store.load().get(WARSAW).response().hourly().surface_pressure()[0]);
+    }
+
+    @Test
+    public void testReplay_servesStoredResponses() {
+        store.append(WARSAW, response(Instant.now(), 1013.0));
+
+        ReplayWeatherApiClient replay = ReplayWeatherApiClient.fromStore(store);
+
+        assertEquals(1013.0, replay.getWeatherData(52.23, 21.01, DAILY, "surface_pressure", "auto").response().hourly().surface_pressure()[0]);
+        assertThrows(WeatherDataNotFoundException.class, () -> replay.getWeatherData(50.06, 19.94, DAILY, "surface_pressure", "auto"));
+    }
+
+    @Test
+    public void testReplay_servesRecordsOlderThanMaxAge() {
+        store.append(WARSAW, response(Instant.now().minus(Duration.ofDays(3)), 1013.0));
+
+        ReplayWeatherApiClient replay = ReplayWeatherApiClient.fromStore(new ForecastStore(file, Duration.ofHours(6), Clock.systemUTC()));
+
+        assertEquals(1, replay.size());
+        assertEquals(1013.0, replay.getWeatherData(52.23, 21.01, DAILY, "surface_pressure", "auto").response().hourly().surface_pressure()[0]);
+        // Ciepły start cache nadal pomija przeterminowane wpisy
+        assertTrue(store.load().isEmpty());
+    }
+
+    private static WeatherSnapshot response(Instant fetchedAt, double pressure) {
+        return new WeatherSnapshot(new WeatherResponse(
+                new WeatherResponse.Daily(
+                        new String[]{"2024-11-20", "2024-11-21"},
+                        new int[]{1, 2},
+                        new double[]{5.0, 6.0},
+                        new double[]{15.0, 16.0},
+                        new double[]{36000.0, 30000.0},
+                        new double[]{0.0, Double.NaN}
+                ),
+                new WeatherResponse.Hourly(new double[]{pressure, 1015.0})
+        ), fetchedAt);
+    }
+}
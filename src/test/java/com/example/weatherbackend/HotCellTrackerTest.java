@@ -0,0 +1,66 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.client.HotCellTracker;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotCellTrackerTest {
+
+    @Test
+    public void testHottest_findsSkewedCellsAmongManyRareOnes() {
+        HotCellTracker tracker = new HotCellTracker(3, 1024);
+        ForecastKey warsaw = key(52.23, 21.01);
+        ForecastKey krakow = key(50.06, 19.94);
+        ForecastKey gdansk = key(54.35, 18.65);
+
+        for (int round = 0; round < 200; round++) {
+            tracker.record(warsaw);
+            tracker.record(warsaw);
+            tracker.record(warsaw);
+            tracker.record(krakow);
+            tracker.record(krakow);
+            tracker.record(gdansk);
+            // Długi ogon pojedynczych zapytań
+            tracker.record(key(40 + round * 0.01, 10 + round * 0.01));
+        }
+
+        assertEquals(List.of(warsaw, krakow, gdansk), tracker.hottest(3));
+        assertEquals(3, tracker.trackedCount());
+    }
+
+    @Test
+    public void testEstimate_neverUnderestimates() {
+        HotCellTracker tracker = new HotCellTracker(10, 64);
+        ForecastKey warsaw = key(52.23, 21.01);
+        for (int i = 0; i < 50; i++) {
+            tracker.record(warsaw);
+        }
+
+        assertTrue(tracker.estimate(warsaw) >= 50);
+    }
+
+    @Test
+    public void testAging_halvesCountsSoNewTrafficCanTakeOver() {
+        HotCellTracker tracker = new HotCellTracker(1, 16);
+        ForecastKey morning = key(52.23, 21.01);
+        ForecastKey evening = key(50.06, 19.94);
+
+        for (int i = 0; i < 150; i++) {
+            tracker.record(morning);
+        }
+        for (int i = 0; i < 400; i++) {
+            tracker.record(evening);
+        }
+
+        assertEquals(List.of(evening), tracker.hottest(1));
+        assertTrue(tracker.estimate(morning) < 150);
+    }
+
+    private static ForecastKey key(double latitude, double longitude) {
+        return new ForecastKey(latitude, longitude, "weather_code", "surface_pressure", "auto");
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.weatherbackend;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+
+// Model zamknięty: `concurrency` klientów wysyła kolejne żądania zaraz po otrzymaniu odpowiedzi, najpierw przez
+// czas rozgrzewki (bez pomiaru), potem przez czas pomiaru. Alokacja to suma dla całej JVM - aplikacja, stub
+// Open-Meteo i klient HTTP działają w jednym procesie, więc wartości porównuje się między scenariuszami, a nie
+// traktuje jako kosztu samej aplikacji.
+final class LoadDriver {
+
+    static final int CONNECTION_ERROR = -1;
+    private static final Path RESULTS = Path.of("target", "load-test-results.csv");
+    // Podsumowanie zawiera polskie znaki - niezależnie od kodowania domyślnego konsoli
+    private static final PrintStream OUT = new PrintStream(System.out, true, StandardCharsets.UTF_8);
+
+    // Żądanie dla kolejnego numeru (unikalne współrzędne itp.)
+    record Scenario(String name, int concurrency, Duration warmUp, Duration duration, LongFunction<HttpRequest> request) {
+    }
+
+    record Result(String scenario, long requests, Map<Integer, Long> statuses, double throughput,
+                  double p50Millis, double p90Millis, double p99Millis, double maxMillis,
+                  double allocationMegabytesPerSecond, double allocationKilobytesPerRequest, long gcMillis) {
+
+        long count(int status) {
+            return statuses.getOrDefault(status, 0L);
+        }
+
+        String summary() {
+            return String.format(Locale.ROOT,
+                    "%-22s %8d żądań %9.1f req/s  p50 %7.1f ms  p90 %7.1f ms  p99 %7.1f ms  max %7.1f ms  alokacja %7.1f MB/s %7.1f KB/req  GC %5d ms  statusy %s",
+                    scenario, requests, throughput, p50Millis, p90Millis, p99Millis, maxMillis,
+                    allocationMegabytesPerSecond, allocationKilobytesPerRequest, gcMillis, statuses);
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final HttpClient client;
+
+    LoadDriver(HttpClient client) {
+        this.client = client;
+    }
+
+    Result run(Scenario scenario) throws InterruptedException {
+        AtomicLong sequence = new AtomicLong();
+        drive(scenario, scenario.warmUp(), sequence, null, null);
+
+        Recorder[] recorders = new Recorder[scenario.concurrency()];
+        Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        long allocatedBefore = THREADS.getTotalThreadAllocatedBytes();
+        long gcBefore = gcMillis();
+        long start = System.nanoTime();
+        drive(scenario, scenario.duration(), sequence, recorders, statuses);
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        long allocated = THREADS.getTotalThreadAllocatedBytes() - allocatedBefore;
+        long gc = gcMillis() - gcBefore;
+
+        int total = 0;
+        for (Recorder recorder : recorders) {
+            total += recorder.size;
+        }
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Recorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, latencies, offset, recorder.size);
+            offset += recorder.size;
+        }
+        Arrays.sort(latencies);
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        Result result = new Result(scenario.name(), total, counts, total / elapsedSeconds,
+                percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                percentile(latencies, 1.0), allocated / elapsedSeconds / (1024 * 1024),
+                total == 0 ? 0 : allocated / 1024.0 / total, gc);
+        OUT.println(result.summary());
+        append(result);
+        return result;
+    }
+
+    private void drive(Scenario scenario, Duration duration, AtomicLong sequence, Recorder[] recorders,
+                       Map<Integer, LongAdder> statuses) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < scenario.concurrency(); i++) {
+                Recorder recorder = new Recorder();
+                if (recorders != null) {
+                    recorders[i] = recorder;
+                }
+                executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = scenario.request().apply(sequence.getAndIncrement());
+                        long sent = System.nanoTime();
+                        int status = send(request);
+                        if (statuses != null) {
+                            recorder.record(System.nanoTime() - sent);
+                            statuses.computeIfAbsent(status, s -> new LongAdder()).increment();
+                        }
+                    }
+                });
+            }
+        }
+        if (Thread.interrupted()) {
+            throw new InterruptedException();
+        }
+    }
+
+    private int send(HttpRequest request) {
+        try {
+            // Treść jest czytana w całości - strumieniowane odpowiedzi liczą się do końca
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return CONNECTION_ERROR;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CONNECTION_ERROR;
+        }
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, collector.getCollectionTime());
+        }
+        return total;
+    }
+
+    // Wyniki kolejnych uruchomień dopisywane do CSV, żeby porównywać je między zmianami
+    private static void append(Result result) {
+        try {
+            Files.createDirectories(RESULTS.getParent());
+            StringBuilder line = new StringBuilder();
+            if (!Files.exists(RESULTS)) {
+                line.append("timestamp,scenario,requests,non_2xx,throughput_rps,p50_ms,p90_ms,p99_ms,max_ms,alloc_mb_s,alloc_kb_req,gc_ms\n");
+            }
+            long non2xx = result.statuses().entrySet().stream()
+                    .filter(entry -> entry.getKey() < 200 || entry.getKey() > 299)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            line.append(String.format(Locale.ROOT, "%s,%s,%d,%d,%.1f,%.2f,%.2f,%.2f,%.2f,%.1f,%.1f,%d%n",
+                    Instant.now(), result.scenario(), result.requests(), non2xx, result.throughput(),
+                    result.p50Millis(), result.p90Millis(), result.p99Millis(), result.maxMillis(),
+                    result.allocationMegabytesPerSecond(), result.allocationKilobytesPerRequest(), result.gcMillis()));
+            Files.writeString(RESULTS, line, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Nie udało się zapisać " + RESULTS + ": " + e.getMessage());
+        }
+    }
+
+    // Czasy odpowiedzi jednego klienta - bez synchronizacji, czytane po zakończeniu wszystkich klientów
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+
+        void record(long nanos) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = nanos;
+        }
+    }
+}
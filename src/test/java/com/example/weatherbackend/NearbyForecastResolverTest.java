@@ -0,0 +1,121 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import com.example.weatherbackend.service.NearbyForecastResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NearbyForecastResolverTest {
+
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+    private static final String HOURLY = "surface_pressure";
+
+    private ForecastCache forecastCache;
+    private NearbyForecastResolver resolver;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        forecastCache = new ForecastCache(0.01, Duration.ofHours(6), 1000, 0);
+        meterRegistry = new SimpleMeterRegistry();
+        resolver = new NearbyForecastResolver(forecastCache, 1500, Duration.ofMinutes(30), meterRegistry);
+    }
+
+    @Test
+    public void testMissingCellIsInterpolatedFromSurroundingCells() {
+        Instant fetchedAt = Instant.now().minusSeconds(60);
+        put(52.22, 21.00, 1, 0.0, fetchedAt);
+        put(52.22, 21.02, 2, 10.0, fetchedAt);
+        put(52.24, 21.00, 3, 20.0, fetchedAt.minusSeconds(30));
+        put(52.24, 21.02, 61, 30.0, fetchedAt);
+
+        // Środek komórki 52.23, 21.01 leży w połowie między narożnikami
+        WeatherSnapshot nearby = resolver.resolve(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        assertNotNull(nearby);
+        assertEquals(15.0, nearby.response().daily().temperature_2m_min()[0], 1e-9);
+        assertEquals(25.0, nearby.response().daily().temperature_2m_max()[0], 1e-9);
+        assertEquals(1015.0, nearby.response().hourly().surface_pressure()[0], 1e-9);
+        // Czas pobrania najstarszego narożnika - wiek odpowiedzi nie jest zaniżany
+        assertEquals(fetchedAt.minusSeconds(30), nearby.fetchedAt());
+        assertEquals(1.0, meterRegistry.counter("forecast.nearby.resolved", "result", "interpolated").count());
+        // Ta sama komórka daje tę samą odpowiedź niezależnie od dokładnych współrzędnych
+        assertArrayEquals(nearby.response().daily().temperature_2m_min(),
+                resolver.resolve(52.2331, 21.0079, DAILY, HOURLY, "auto").response().daily().temperature_2m_min());
+    }
+
+    @Test
+    public void testWithoutSurroundingCellsNearestCellIsUsed() {
+        put(52.24, 21.01, 3, 20.0, Instant.now());
+        put(52.22, 21.03, 1, 0.0, Instant.now());
+
+        WeatherSnapshot nearby = resolver.resolve(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        assertNotNull(nearby);
+        assertEquals(20.0, nearby.response().daily().temperature_2m_min()[0]);
+        assertEquals(1.0, meterRegistry.counter("forecast.nearby.resolved", "result", "nearest").count());
+    }
+
+    @Test
+    public void testCellWithOwnEntryIsLeftToCache() {
+        put(52.23, 21.01, 1, 5.0, Instant.now());
+        put(52.24, 21.01, 1, 20.0, Instant.now());
+
+        assertNull(resolver.resolve(52.2298, 21.0118, DAILY, HOURLY, "auto"));
+    }
+
+    @Test
+    public void testStaleOrDistantCellsAreIgnored() {
+        put(52.24, 21.01, 1, 20.0, Instant.now().minus(Duration.ofHours(1)));
+        put(52.30, 21.01, 1, 20.0, Instant.now());
+
+        assertNull(resolver.resolve(52.2298, 21.0118, DAILY, HOURLY, "auto"));
+    }
+
+    @Test
+    public void testFreshnessMeasuredWithResolverClock() {
+        Instant fetchedAt = Instant.now();
+        put(52.24, 21.01, 1, 20.0, fetchedAt);
+        NearbyForecastResolver later = new NearbyForecastResolver(forecastCache, 1500, Duration.ofMinutes(30), meterRegistry,
+                Clock.fixed(fetchedAt.plus(Duration.ofMinutes(31)), ZoneOffset.UTC));
+
+        assertNotNull(resolver.resolve(52.2298, 21.0118, DAILY, HOURLY, "auto"));
+        assertNull(later.resolve(52.2298, 21.0118, DAILY, HOURLY, "auto"));
+    }
+
+    @Test
+    public void testInvalidatedCellLeavesIndex() {
+        ForecastKey key = put(52.24, 21.01, 1, 20.0, Instant.now());
+        forecastCache.invalidate(key);
+
+        assertTrue(forecastCache.cellsWithin(52.23, 21.01, 1500).isEmpty());
+        assertNull(resolver.resolve(52.2298, 21.0118, DAILY, HOURLY, "auto"));
+    }
+
+    private ForecastKey put(double latitude, double longitude, int weatherCode, double temperature, Instant fetchedAt) {
+        ForecastKey key = forecastCache.keyFor(latitude, longitude, DAILY, HOURLY, "auto");
+        forecastCache.put(key, new WeatherSnapshot(new WeatherResponse(
+                new WeatherResponse.Daily(
+                        new String[]{"2024-11-20"},
+                        new int[]{weatherCode},
+                        new double[]{temperature},
+                        new double[]{temperature + 10},
+                        new double[]{36000.0},
+                        new double[]{0.0}
+                ),
+                new WeatherResponse.Hourly(new double[]{1000.0 + temperature})),
+                fetchedAt));
+        return key;
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.OpenMeteoApiClient;
+import com.example.weatherbackend.client.OpenMeteoResponseDecoder;
+import com.example.weatherbackend.client.OpenMeteoUrlBuilder;
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.SocketTimeoutException;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withException;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+public class OpenMeteoApiClientTest {
+
+    private static final String BASE_URL = "https://api.open-meteo.com/v1/forecast";
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+
+    private OpenMeteoApiClient client;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+        client = new OpenMeteoApiClient();
+        setField("urlBuilder", new OpenMeteoUrlBuilder(BASE_URL, DAILY, "surface_pressure", "auto"));
+        setField("restTemplate", restTemplate);
+        setField("responseDecoder", new OpenMeteoResponseDecoder());
+        setField("meterRegistry", new SimpleMeterRegistry());
+        setField("archiveDelayDays", 5);
+    }
+
+    @Test
+    public void testGetWeatherData_buildsUrlAndDecodesResponse() {
+        server.expect(requestTo(BASE_URL + "?latitude=52.229800&longitude=21.011800&daily=" + DAILY + "&hourly=surface_pressure&timezone=auto"))
+                .andRespond(withSuccess(new ClassPathResource("open-meteo/forecast-warsaw.json"), MediaType.APPLICATION_JSON));
+
+        WeatherResponse response = client.getWeatherData(52.2298, 21.0118, DAILY, "surface_pressure", "auto").response();
+
+        assertEquals(3, response.daily().time().length);
+        assertEquals(1015.0, response.hourly().surface_pressure()[1]);
+        server.verify();
+    }
+
+    @Test
+    public void testGetWeatherDataBatch_usesCoordinateLists() {
+        server.expect(requestTo(BASE_URL + "?latitude=52.229800,-50.061400&longitude=21.011800,-19.936600&daily=" + DAILY + "&hourly=&timezone=auto"))
+                .andRespond(withSuccess("[{\"daily\":{\"time\":[\"2024-11-20\"]}},{\"daily\":{\"time\":[\"2024-11-21\"]}}]", MediaType.APPLICATION_JSON));
+
+        List<WeatherSnapshot> responses = client.getWeatherDataBatch(
+                List.of(new Coordinates(52.2298, 21.0118), new Coordinates(-50.0614, -19.9366)), DAILY, "", "auto");
+
+        assertEquals(2, responses.size());
+        assertEquals("2024-11-21", responses.get(1).response().daily().time()[0]);
+        server.verify();
+    }
+
+    @Test
+    public void testGetWeatherData_upstreamServerErrorIsUnavailable() {
+        server.expect(requestTo(BASE_URL + "?latitude=0.000000&longitude=0.000000&daily=" + DAILY + "&hourly=&timezone=auto"))
+                .andRespond(withStatus(HttpStatus.BAD_GATEWAY));
+
+        UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class,
+                () -> client.getWeatherData(0.0, 0.0, DAILY, "", "auto"));
+        assertTrue(e.getRetryAfter().toSeconds() > 0);
+    }
+
+    @Test
+    public void testGetWeatherData_timeoutIsUnavailable() {
+        server.expect(requestTo(BASE_URL + "?latitude=0.000000&longitude=0.000000&daily=" + DAILY + "&hourly=&timezone=auto"))
+                .andRespond(withException(new SocketTimeoutException("Read timed out")));
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.getWeatherData(0.0, 0.0, DAILY, "", "auto"));
+    }
+
+    @Test
+    public void testGetWeatherData_clientErrorIsNotFound() {
+        server.expect(requestTo(BASE_URL + "?latitude=0.000000&longitude=0.000000&daily=" + DAILY + "&hourly=&timezone=auto"))
+                .andRespond(withStatus(HttpStatus.BAD_REQUEST));
+
+        assertThrows(WeatherDataNotFoundException.class, () -> client.getWeatherData(0.0, 0.0, DAILY, "", "auto"));
+    }
+
+    @Test
+    public void testGetWeatherData_rateLimitedByUpstream() {
+        server.expect(requestTo(BASE_URL + "?latitude=0.000000&longitude=0.000000&daily=" + DAILY + "&hourly=&timezone=auto"))
+                .andRespond(withStatus(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "30"));
+
+        UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class,
+                () -> client.getWeatherData(0.0, 0.0, DAILY, "", "auto"));
+        assertEquals(30, e.getRetryAfter().toSeconds());
+    }
+
+    @Test
+    public void testGetWeatherData_forecastDays() {
+        server.expect(requestTo(BASE_URL + "?latitude=52.229800&longitude=21.011800&daily=" + DAILY + "&hourly=surface_pressure&timezone=auto&forecast_days=16"))
+                .andRespond(withSuccess(new ClassPathResource("open-meteo/forecast-warsaw.json"), MediaType.APPLICATION_JSON));
+
+        WeatherResponse response = client.getWeatherData(52.2298, 21.0118, ForecastWindow.days(16), DAILY, "surface_pressure", "auto");
+
+        assertEquals(3, response.daily().time().length);
+        server.verify();
+    }
+
+    @Test
+    public void testGetWeatherData_historicalRangeUsesArchive() {
+        server.expect(requestTo("https://archive-api.open-meteo.com/v1/archive?latitude=52.229800&longitude=21.011800&daily=" + DAILY
+                        + "&hourly=surface_pressure&timezone=auto&start_date=2023-01-01&end_date=2023-03-31"))
+                .andRespond(withSuccess(new ClassPathResource("open-meteo/forecast-warsaw.json"), MediaType.APPLICATION_JSON));
+
+        client.getWeatherData(52.2298, 21.0118, ForecastWindow.range(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 3, 31)),
+                DAILY, "surface_pressure", "auto");
+
+        server.verify();
+    }
+
+    @Test
+    public void testGetWeatherData_recentRangeUsesForecastApi() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        server.expect(requestTo(BASE_URL + "?latitude=52.229800&longitude=21.011800&daily=" + DAILY
+                        + "&hourly=surface_pressure&timezone=auto&start_date=" + today.minusDays(2) + "&end_date=" + today.plusDays(2)))
+                .andRespond(withSuccess(new ClassPathResource("open-meteo/forecast-warsaw.json"), MediaType.APPLICATION_JSON));
+
+        client.getWeatherData(52.2298, 21.0118, ForecastWindow.range(today.minusDays(2), today.plusDays(2)),
+                DAILY, "surface_pressure", "auto");
+
+        server.verify();
+    }
+
+    private void setField(String name, Object value) throws Exception {
+        java.lang.reflect.Field field = OpenMeteoApiClient.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(client, value);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.OpenMeteoResponseDecoder;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherResponse;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OpenMeteoResponseDecoderTest {
+
+    private final OpenMeteoResponseDecoder decoder = new OpenMeteoResponseDecoder();
+
+    @Test
+    public void testDecode_fullResponse() throws IOException {
+        WeatherResponse response;
+        try (InputStream body = getClass().getResourceAsStream("/open-meteo/forecast-warsaw.json")) {
+            response = decoder.decode(body);
+        }
+
+        WeatherResponse.Daily daily = response.daily();
+        assertArrayEquals(new String[]{"2024-11-20", "2024-11-21", "2024-11-22"}, daily.time());
+        assertArrayEquals(new int[]{1, 2, 1}, daily.weather_code());
+        assertArrayEquals(new double[]{5.0, 6.0, 7.0}, daily.temperature_2m_min());
+        assertArrayEquals(new double[]{15.0, 16.0, 17.0}, daily.temperature_2m_max());
+        assertArrayEquals(new double[]{36000.0, 30000.0, 42000.0}, daily.sunshine_duration());
+        assertArrayEquals(new double[]{0.0, 1.0, 0.0}, daily.rain_sum());
+        assertArrayEquals(new double[]{1013.0, 1015.0, 1017.0}, response.hourly().surface_pressure());
+        // Północ czasu lokalnego (UTC+1) w UTC; kolumn spoza hourly-parameters nie ma
+        assertEquals(Instant.parse("2024-11-19T23:00:00Z"), response.hourly().start());
+        assertNull(response.hourly().shortwave_radiation());
+    }
+
+    @Test
+    public void testDecode_hourlyIrradianceAndTemperature() throws IOException {
+        String json = "{\"hourly\":{\"time\":[\"2024-06-21T00:00\",\"2024-06-21T01:00\"],\"surface_pressure\":[1010,1011],"
+                + "\"shortwave_radiation\":[0,12.5],\"diffuse_radiation\":[0,null],\"temperature_2m\":[14.2,13.9]},"
+                + "\"utc_offset_seconds\":7200}";
+
+        WeatherResponse.Hourly hourly = decoder.decode(stream(json)).hourly();
+
+        assertArrayEquals(new double[]{0.0, 12.5}, hourly.shortwave_radiation());
+        assertEquals(0.0, hourly.diffuse_radiation()[0]);
+        assertTrue(Double.isNaN(hourly.diffuse_radiation()[1]));
+        assertArrayEquals(new double[]{14.2, 13.9}, hourly.temperature_2m());
+        // Przesunięcie strefy działa także, gdy stoi w odpowiedzi za danymi godzinowymi
+        assertEquals(Instant.parse("2024-06-20T22:00:00Z"), hourly.start());
+    }
+
+    @Test
+    public void testDecode_nullValuesAndUnknownFields() throws IOException {
+        String json = "{\"daily\":{\"time\":[\"2024-11-20\",\"2024-11-21\"],\"weather_code\":[3,null],"
+                + "\"sunshine_duration\":[100,null],\"uv_index_max\":[1.0,2.0]},\"extra\":{\"a\":[1,2]}}";
+
+        WeatherResponse response = decoder.decode(stream(json));
+
+        assertArrayEquals(new int[]{3, 0}, response.daily().weather_code());
+        assertEquals(100.0, response.daily().sunshine_duration()[0]);
+        assertTrue(Double.isNaN(response.daily().sunshine_duration()[1]));
+        assertEquals(0, response.daily().rain_sum().length);
+        assertNull(response.hourly());
+    }
+
+    @Test
+    public void testDecodeAll_arrayOfResponses() throws IOException {
+        String json = "[{\"daily\":{\"time\":[\"2024-11-20\"],\"rain_sum\":[1.5]}},"
+                + "{\"daily\":{\"time\":[\"2024-11-21\"],\"rain_sum\":[0.0]}}]";
+
+        List<WeatherResponse> responses = decoder.decodeAll(stream(json));
+
+        assertEquals(2, responses.size());
+        assertEquals("2024-11-20", responses.get(0).daily().time()[0]);
+        assertEquals(0.0, responses.get(1).daily().rain_sum()[0]);
+    }
+
+    @Test
+    public void testDecodeAll_singleObject() throws IOException {
+        List<WeatherResponse> responses = decoder.decodeAll(stream("{\"daily\":{\"time\":[\"2024-11-20\"]}}"));
+
+        assertEquals(1, responses.size());
+    }
+
+    @Test
+    public void testDecode_dailyColumnLengthMismatch_throws() {
+        String json = "{\"daily\":{\"time\":[\"2024-11-20\",\"2024-11-21\"],\"rain_sum\":[0.0]}}";
+
+        WeatherDataNotFoundException e = assertThrows(WeatherDataNotFoundException.class, () -> decoder.decode(stream(json)));
+
+        assertEquals("Niespójne dane z API Open-Meteo: kolumna daily.rain_sum ma 1 wartości zamiast 2.", e.getMessage());
+    }
+
+    @Test
+    public void testDecode_hourlyColumnLengthMismatch_throws() {
+        String json = "{\"hourly\":{\"time\":[\"2024-06-21T00:00\",\"2024-06-21T01:00\"],"
+                + "\"shortwave_radiation\":[0,12.5],\"diffuse_radiation\":[0],\"temperature_2m\":[14.2,13.9]}}";
+
+        assertThrows(WeatherDataNotFoundException.class, () -> decoder.decode(stream(json)));
+    }
+
+    @Test
+    public void testDecode_sameBodyGivesEqualResponses() throws IOException {
+        String json = "{\"daily\":{\"time\":[\"2024-11-20\"],\"weather_code\":[3],\"rain_sum\":[1.5]},"
+                + "\"hourly\":{\"time\":[\"2024-11-20T00:00\"],\"surface_pressure\":[1010]}}";
+
+        WeatherResponse first = decoder.decode(stream(json));
+        WeatherResponse second = decoder.decode(stream(json));
+
+        // Rekordy z tablicami porównują zawartość kolumn, a nie referencje
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertNotEquals(first, decoder.decode(stream(json.replace("1.5", "2.5"))));
+    }
+
+    @Test
+    public void testDecode_emptyBody() throws IOException {
+        assertNull(decoder.decode(stream("")));
+    }
+
+    private static InputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,359 @@
+package com.example.weatherbackend;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+// Lokalny zamiennik Open-Meteo (/v1/forecast i /v1/archive) do testów obciążeniowych: odpowiedzi w formacie
+// Open-Meteo dla dowolnych współrzędnych i parametrów, z zadanym rozkładem opóźnień, odsetkiem błędów 500
+// i limitem zapytań (429 z Retry-After). Zachowanie można zmieniać w trakcie działania.
+// Samodzielnie: java ... OpenMeteoStubServer [port] [mediana opóźnienia ms], a aplikacja z
+// open-meteo.api.base-url=http://localhost:<port>/v1/forecast i open-meteo.api.archive-url=http://localhost:<port>/v1/archive
+public class OpenMeteoStubServer implements AutoCloseable {
+
+    // Opóźnienie odpowiedzi w milisekundach
+    public interface LatencyDistribution {
+        long sampleMillis(RandomGenerator random);
+
+        static LatencyDistribution fixed(long millis) {
+            return random -> millis;
+        }
+
+        static LatencyDistribution uniform(long minMillis, long maxMillis) {
+            return random -> random.nextLong(minMillis, maxMillis + 1);
+        }
+
+        // Długi ogon jak w prawdziwym API: mediana medianMillis, sigma ~0.5 daje p99 około 3x mediany
+        static LatencyDistribution logNormal(long medianMillis, double sigma) {
+            return random -> Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    // requestsPerSecond = 0 - bez limitu zapytań
+    public record Behaviour(LatencyDistribution latency, double errorRate, double requestsPerSecond, int burst) {
+        public static Behaviour healthy() {
+            return new Behaviour(LatencyDistribution.fixed(0), 0.0, 0.0, 0);
+        }
+
+        public Behaviour withLatency(LatencyDistribution latency) {
+            return new Behaviour(latency, errorRate, requestsPerSecond, burst);
+        }
+
+        public Behaviour withErrorRate(double errorRate) {
+            return new Behaviour(latency, errorRate, requestsPerSecond, burst);
+        }
+
+        public Behaviour withRateLimit(double requestsPerSecond, int burst) {
+            return new Behaviour(latency, errorRate, requestsPerSecond, burst);
+        }
+    }
+
+    static {
+        // HttpServer domyślnie trzyma najwyżej 200 bezczynnych połączeń keep-alive i zamyka nadmiarowe - większa
+        // pula klienta dostawałaby wtedy zamknięte połączenia (NoHttpResponseException). Czytane przy pierwszym użyciu.
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "2000");
+        }
+    }
+
+    private static final String RATE_LIMIT_BODY =
+            "{\"error\":true,\"reason\":\"Minutely API request limit exceeded. Please try again in one minute.\"}";
+    private static final String ERROR_BODY = "{\"error\":true,\"reason\":\"Internal server error\"}";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong rateLimited = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private volatile Behaviour behaviour;
+    private double tokens;
+    private long lastRefill = System.nanoTime();
+
+    private OpenMeteoStubServer(int port, Behaviour behaviour) throws IOException {
+        this.behaviour = behaviour;
+        this.tokens = behaviour.burst();
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 1024);
+        server.createContext("/v1/forecast", this::handle);
+        server.createContext("/v1/archive", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    public static OpenMeteoStubServer start(Behaviour behaviour) {
+        return start(0, behaviour);
+    }
+
+    public static OpenMeteoStubServer start(int port, Behaviour behaviour) {
+        try {
+            return new OpenMeteoStubServer(port, behaviour);
+        } catch (IOException e) {
+            throw new IllegalStateException("Nie udało się uruchomić serwera Open-Meteo", e);
+        }
+    }
+
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8089;
+        long medianMillis = args.length > 1 ? Long.parseLong(args[1]) : 50;
+        OpenMeteoStubServer stub = start(port, Behaviour.healthy().withLatency(LatencyDistribution.logNormal(medianMillis, 0.5)));
+        System.out.println("Open-Meteo stub: " + stub.forecastUrl());
+    }
+
+    public String forecastUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/forecast";
+    }
+
+    public String archiveUrl() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/archive";
+    }
+
+    public synchronized void behaviour(Behaviour behaviour) {
+        this.behaviour = behaviour;
+        this.tokens = behaviour.burst();
+        this.lastRefill = System.nanoTime();
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    public long rateLimited() {
+        return rateLimited.get();
+    }
+
+    // Najwięcej zapytań obsługiwanych naraz od uruchomienia lub ostatniego resetPeakInFlight()
+    public int peakInFlight() {
+        return peakInFlight.get();
+    }
+
+    public void resetPeakInFlight() {
+        peakInFlight.set(inFlight.get());
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.close();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            respond(exchange);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            Behaviour current = behaviour;
+            if (!tryAcquire(current)) {
+                rateLimited.incrementAndGet();
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                send(exchange, 429, RATE_LIMIT_BODY);
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long latency = current.latency().sampleMillis(random);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            if (random.nextDouble() < current.errorRate()) {
+                errors.incrementAndGet();
+                send(exchange, 500, ERROR_BODY);
+                return;
+            }
+            send(exchange, 200, body(query(exchange.getRequestURI().getRawQuery())));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            send(exchange, 400, "{\"error\":true,\"reason\":\"" + e.getMessage() + "\"}");
+        }
+    }
+
+    private synchronized boolean tryAcquire(Behaviour current) {
+        if (current.requestsPerSecond() <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(current.burst(), tokens + (now - lastRefill) / 1e9 * current.requestsPerSecond());
+        lastRefill = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                parameters.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    // Jeden obiekt dla jednej lokalizacji, tablica obiektów dla wielu (jak Open-Meteo)
+    private static String body(Map<String, String> parameters) {
+        String[] latitudes = required(parameters, "latitude").split(",");
+        String[] longitudes = required(parameters, "longitude").split(",");
+        if (latitudes.length != longitudes.length) {
+            throw new IllegalArgumentException("Parameter 'latitude' and 'longitude' must have the same number of elements");
+        }
+        LocalDate start;
+        int days;
+        if (parameters.containsKey("start_date")) {
+            start = LocalDate.parse(parameters.get("start_date"));
+            days = (int) ChronoUnit.DAYS.between(start, LocalDate.parse(required(parameters, "end_date"))) + 1;
+        } else {
+            start = LocalDate.now(ZoneOffset.UTC);
+            days = Integer.parseInt(parameters.getOrDefault("forecast_days", "7"));
+        }
+        List<String> daily = columns(parameters.get("daily"));
+        List<String> hourly = columns(parameters.get("hourly"));
+
+        StringBuilder json = new StringBuilder(4096 + latitudes.length * (days * 40 * daily.size() + days * 24 * 8 * hourly.size()));
+        if (latitudes.length > 1) {
+            json.append('[');
+        }
+        for (int i = 0; i < latitudes.length; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendLocation(json, Double.parseDouble(latitudes[i]), Double.parseDouble(longitudes[i]), start, days, daily, hourly);
+        }
+        if (latitudes.length > 1) {
+            json.append(']');
+        }
+        return json.toString();
+    }
+
+    private static void appendLocation(StringBuilder json, double latitude, double longitude, LocalDate start, int days,
+                                       List<String> daily, List<String> hourly) {
+        // Te same współrzędne dają te same dane; strefa "auto" przybliżona z długości geograficznej
+        RandomGenerator random = new java.util.SplittableRandom(Double.hashCode(latitude) * 31L + Double.hashCode(longitude));
+        int utcOffsetHours = (int) Math.round(longitude / 15);
+        json.append("{\"latitude\":").append(latitude).append(",\"longitude\":").append(longitude)
+                .append(",\"generationtime_ms\":0.05,\"utc_offset_seconds\":").append(utcOffsetHours * 3600)
+                .append(",\"timezone\":\"GMT\",\"timezone_abbreviation\":\"GMT\",\"elevation\":100.0");
+        if (!daily.isEmpty()) {
+            json.append(",\"daily\":{");
+            appendColumn(json, "time", days, day -> json.append('"').append(start.plusDays(day)).append('"'));
+            for (String column : daily) {
+                json.append(',');
+                appendColumn(json, column, days, day -> json.append(dailyValue(column, random)));
+            }
+            json.append('}');
+        }
+        if (!hourly.isEmpty()) {
+            int hours = days * 24;
+            json.append(",\"hourly\":{");
+            appendColumn(json, "time", hours, hour -> json.append('"').append(start.atStartOfDay().plusHours(hour)).append('"'));
+            for (String column : hourly) {
+                json.append(',');
+                appendColumn(json, column, hours, hour -> json.append(hourlyValue(column, hour % 24, random)));
+            }
+            json.append('}');
+        }
+        json.append('}');
+    }
+
+    private static String dailyValue(String column, RandomGenerator random) {
+        return switch (column) {
+            case "weather_code" -> Integer.toString(random.nextInt(4) * 20 + random.nextInt(3));
+            case "temperature_2m_min" -> decimal(-5 + random.nextDouble() * 10);
+            case "temperature_2m_max" -> decimal(5 + random.nextDouble() * 20);
+            case "sunshine_duration" -> decimal(random.nextDouble() * 50_000);
+            case "rain_sum" -> decimal(random.nextDouble() < 0.5 ? 0 : random.nextDouble() * 10);
+            default -> decimal(random.nextDouble() * 100);
+        };
+    }
+
+    private static String hourlyValue(String column, int hour, RandomGenerator random) {
+        double daylight = Math.max(0, Math.sin(Math.PI * (hour - 5) / 15));
+        return switch (column) {
+            case "surface_pressure" -> decimal(990 + random.nextDouble() * 40);
+            case "shortwave_radiation" -> decimal(daylight * (200 + random.nextDouble() * 600));
+            case "diffuse_radiation" -> decimal(daylight * (80 + random.nextDouble() * 120));
+            case "temperature_2m" -> decimal(5 + daylight * 10 + random.nextDouble() * 3);
+            default -> decimal(random.nextDouble() * 100);
+        };
+    }
+
+    private static void appendColumn(StringBuilder json, String name, int size, java.util.function.IntConsumer value) {
+        json.append('"').append(name).append("\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            value.accept(i);
+        }
+        json.append(']');
+    }
+
+    private static String decimal(double value) {
+        return Double.toString(Math.round(value * 10) / 10.0);
+    }
+
+    private static List<String> columns(String value) {
+        List<String> columns = new ArrayList<>();
+        if (value != null) {
+            for (String column : value.split(",")) {
+                if (!column.isBlank()) {
+                    columns.add(column.trim());
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static String required(Map<String, String> parameters, String name) {
+        String value = parameters.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Parameter '" + name + "' is required");
+        }
+        return value;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.ReactiveOpenMeteoApiClient;
+import com.example.weatherbackend.model.WeatherResponse;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import reactor.core.publisher.Mono;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// Ten sam scenariusz co VirtualThreadLoadTest, ale na WebFlux + Netty. Uruchamiany przez: mvn test -Pload
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.main.web-application-type=reactive")
+public class ReactiveLoadTest {
+
+    private static final int CONCURRENT_REQUESTS = 1000;
+    private static final int WARM_UP_REQUESTS = 500;
+    private static final long UPSTREAM_LATENCY_MS = 500;
+    private static final int PLATFORM_THREAD_CEILING = 200;
+    // 1000 żądań po 500 ms w jednej rundzie daje ok. 1000 req/s - z dużym zapasem na jeden rdzeń i wolną maszynę
+    private static final double MIN_THROUGHPUT = 100;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    // Symulujemy wolne API Open-Meteo bez blokowania wątku. Mock zastępuje też ReactiveUpstreamGuard - limity
+    // zapytań i bezpiecznik są badane osobno (ReactiveUpstreamGuardTest, EndToEndLoadTest)
+    private ReactiveOpenMeteoApiClient reactiveOpenMeteoApiClient;
+
+    @Test
+    void nonBlockingUpstreamCalls_exceedPlatformThreadCeiling() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peakInFlight = new AtomicInteger();
+        WeatherResponse weatherResponse = new WeatherResponse(
+                new WeatherResponse.Daily(
+                        new String[]{"2024-11-20"},
+                        new int[]{1},
+                        new double[]{5.0},
+                        new double[]{15.0},
+                        new double[]{36000.0},
+                        new double[]{0.0}
+                ),
+                new WeatherResponse.Hourly(new double[]{1013.0})
+        );
+        when(reactiveOpenMeteoApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Mono.delay(Duration.ofMillis(UPSTREAM_LATENCY_MS))
+                        .doOnSubscribe(subscription -> peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                        .doFinally(signal -> inFlight.decrementAndGet())
+                        .thenReturn(weatherResponse));
+
+        // Rozgrzewka JIT - pętla zdarzeń ma domyślnie tyle wątków co rdzeni, więc zimny kod ogranicza tempo przyjmowania żądań.
+        // Pomiar używa kolejnych komórek, żeby nie trafić w cache wypełniony rozgrzewką
+        sendConcurrently(0, WARM_UP_REQUESTS);
+        peakInFlight.set(0);
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+
+        long start = System.nanoTime();
+        sendConcurrently(WARM_UP_REQUESTS, CONCURRENT_REQUESTS);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        double throughput = CONCURRENT_REQUESTS * 1000.0 / elapsedMs;
+        System.out.printf(Locale.ROOT, "Żądania: %d, czas: %d ms (%.0f req/s), szczytowa współbieżność upstream: %d, "
+                        + "szczytowa liczba wątków platformowych: %d%n",
+                CONCURRENT_REQUESTS, elapsedMs, throughput, peakInFlight.get(), threads.getPeakThreadCount());
+
+        // Pętla zdarzeń Netty obsługuje oczekujące żądania stałą, niewielką liczbą wątków
+        assertTrue(peakInFlight.get() > PLATFORM_THREAD_CEILING,
+                "Szczytowa współbieżność " + peakInFlight.get() + " nie przekroczyła " + PLATFORM_THREAD_CEILING);
+        assertTrue(threads.getPeakThreadCount() < PLATFORM_THREAD_CEILING,
+                "Liczba wątków platformowych " + threads.getPeakThreadCount() + " nie powinna rosnąć z obciążeniem");
+        // Wszystkie żądania czekają na upstream równolegle, więc całość to kilka opóźnień upstream, a nie 1000
+        assertTrue(throughput > MIN_THROUGHPUT, "Przepustowość " + throughput + " req/s");
+    }
+
+    // Każde żądanie w innej komórce siatki (co 1° szerokości, potem długości) - inaczej cache i łączenie zapytań
+    // ograniczyłyby ruch do upstream
+    private void sendConcurrently(int firstCell, int count) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient httpClient = HttpClient.newBuilder()
+                     .executor(executor)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build()) {
+            List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+            for (int cell = firstCell; cell < firstCell + count; cell++) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(
+                                "http://localhost:" + port + "/api/weather/7-day-forecast?latitude=" + (cell % 160 - 80) + "&longitude=" + (cell / 160 - 180)))
+                        .timeout(Duration.ofSeconds(30))
+                        .build();
+                responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+            }
+            for (CompletableFuture<HttpResponse<String>> response : responses) {
+                assertEquals(200, response.join().statusCode());
+            }
+        }
+    }
+}
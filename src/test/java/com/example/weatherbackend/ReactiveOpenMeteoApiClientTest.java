@@ -0,0 +1,149 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.OpenMeteoResponseDecoder;
+import com.example.weatherbackend.client.OpenMeteoUrlBuilder;
+import com.example.weatherbackend.client.ReactiveOpenMeteoApiClient;
+import com.example.weatherbackend.client.ReactiveUpstreamGuard;
+import com.example.weatherbackend.exceptions.RequestThrottledException;
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveOpenMeteoApiClientTest {
+
+    private static final String BASE_URL = "https://api.open-meteo.com/v1/forecast";
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+    private static final String BODY = "{\"daily\":{\"time\":[\"2024-11-20\"],\"temperature_2m_max\":[15.0]},\"hourly\":{\"surface_pressure\":[1013.0]}}";
+
+    private final AtomicReference<ExchangeFunction> upstream = new AtomicReference<>();
+    private ReactiveUpstreamGuard guard;
+    private ReactiveOpenMeteoApiClient client;
+
+    @BeforeEach
+    public void setUp() {
+        guard = new ReactiveUpstreamGuard(null, null, null, 2, new SimpleMeterRegistry());
+        client = client(DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    public void testGetWeatherData_decodesResponse() {
+        respond(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(BODY)
+                .build());
+
+        StepVerifier.create(client.getWeatherData(52.2298, 21.0118, DAILY, "surface_pressure", "auto"))
+                .assertNext(response -> {
+                    assertEquals("2024-11-20", response.daily().time()[0]);
+                    assertEquals(1013.0, response.hourly().surface_pressure()[0]);
+                })
+                .verifyComplete();
+        assertEquals(2, guard.availableBulkheadPermits());
+    }
+
+    @Test
+    public void testGetWeatherData_serverErrorIsUnavailable() {
+        respond(ClientResponse.create(HttpStatus.BAD_GATEWAY).build());
+
+        StepVerifier.create(client.getWeatherData(0.0, 0.0, DAILY, "", "auto"))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(UpstreamUnavailableException.class, e);
+                    assertTrue(((UpstreamUnavailableException) e).getRetryAfter().toSeconds() > 0);
+                })
+                .verify();
+        assertEquals(2, guard.availableBulkheadPermits());
+    }
+
+    @Test
+    public void testGetWeatherData_timeoutIsUnavailable() {
+        upstream.set(request -> Mono.error(new WebClientRequestException(new SocketTimeoutException("Read timed out"),
+                HttpMethod.GET, request.url(), new HttpHeaders())));
+
+        StepVerifier.create(client.getWeatherData(0.0, 0.0, DAILY, "", "auto"))
+                .expectError(UpstreamUnavailableException.class)
+                .verify();
+    }
+
+    @Test
+    public void testGetWeatherData_tooManyRequestsUsesRetryAfter() {
+        respond(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "42").build());
+
+        StepVerifier.create(client.getWeatherData(0.0, 0.0, DAILY, "", "auto"))
+                .expectErrorSatisfies(e -> assertEquals(Duration.ofSeconds(42), ((UpstreamUnavailableException) e).getRetryAfter()))
+                .verify();
+    }
+
+    @Test
+    public void testGetWeatherData_clientErrorIsNotFound() {
+        respond(ClientResponse.create(HttpStatus.BAD_REQUEST).build());
+
+        StepVerifier.create(client.getWeatherData(0.0, 0.0, DAILY, "", "auto"))
+                .expectError(WeatherDataNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void testGetWeatherData_emptyBodyIsNotFound() {
+        respond(ClientResponse.create(HttpStatus.OK).build());
+
+        StepVerifier.create(client.getWeatherData(0.0, 0.0, DAILY, "", "auto"))
+                .expectError(WeatherDataNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void testGetWeatherData_bodyOverLimitIsRejected() {
+        client = client(DataSize.ofBytes(16));
+        respond(ClientResponse.create(HttpStatus.OK)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(BODY)
+                .build());
+
+        StepVerifier.create(client.getWeatherData(0.0, 0.0, DAILY, "", "auto"))
+                .expectError(WeatherDataNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void testGetWeatherData_fullBulkheadRejectsWithoutCallingUpstream() {
+        guard = new ReactiveUpstreamGuard(null, null, null, 0, new SimpleMeterRegistry());
+        client = client(DataSize.ofMegabytes(1));
+        upstream.set(request -> {
+            throw new AssertionError("Zapytanie nie powinno dotrzeć do Open-Meteo");
+        });
+
+        StepVerifier.create(client.getWeatherData(0.0, 0.0, DAILY, "", "auto"))
+                .expectError(RequestThrottledException.class)
+                .verify();
+    }
+
+    private void respond(ClientResponse response) {
+        upstream.set(request -> Mono.just(response));
+    }
+
+    // ExchangeFunction zamiast Reactor Netty - klient budowany produkcyjnym konstruktorem
+    private ReactiveOpenMeteoApiClient client(DataSize maxInMemorySize) {
+        WebClient.Builder builder = WebClient.builder().exchangeFunction(request -> upstream.get().exchange(request));
+        return new ReactiveOpenMeteoApiClient(builder, new OpenMeteoUrlBuilder(BASE_URL, DAILY, "surface_pressure", "auto"),
+                new OpenMeteoResponseDecoder(), guard, 10, Duration.ofSeconds(1), Duration.ofSeconds(5), maxInMemorySize);
+    }
+}
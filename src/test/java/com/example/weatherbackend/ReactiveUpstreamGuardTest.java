@@ -0,0 +1,104 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.AdaptiveConcurrencyLimiter;
+import com.example.weatherbackend.client.CircuitBreaker;
+import com.example.weatherbackend.client.ReactiveUpstreamGuard;
+import com.example.weatherbackend.client.TokenBucketRateLimiter;
+import com.example.weatherbackend.exceptions.RequestThrottledException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReactiveUpstreamGuardTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private CircuitBreaker breaker;
+
+    @BeforeEach
+    public void setUp() {
+        breaker = new CircuitBreaker(10, 4, 0.5, 0.8, Duration.ofSeconds(1), Duration.ofSeconds(30), 1, now::get);
+    }
+
+    @Test
+    public void testGuard_fullBulkheadRejectsUntilCallCompletes() {
+        ReactiveUpstreamGuard guard = new ReactiveUpstreamGuard(null, null, breaker, 1, new SimpleMeterRegistry());
+        Sinks.One<String> pending = Sinks.one();
+
+        StepVerifier.create(guard.guard(pending::asMono))
+                .then(() -> {
+                    StepVerifier.create(guard.guard(() -> Mono.just("b")))
+                            .expectError(RequestThrottledException.class)
+                            .verify();
+                    pending.tryEmitValue("a");
+                })
+                .expectNext("a")
+                .verifyComplete();
+
+        assertEquals(1, guard.availableBulkheadPermits());
+        StepVerifier.create(guard.guard(() -> Mono.just("c"))).expectNext("c").verifyComplete();
+    }
+
+    @Test
+    public void testGuard_openCircuitRejectsWithoutSubscribing() {
+        ReactiveUpstreamGuard guard = new ReactiveUpstreamGuard(null, null, breaker, 10, new SimpleMeterRegistry());
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            StepVerifier.create(guard.guard(() -> Mono.error(new WeatherDataNotFoundException("błąd"))))
+                    .expectError(WeatherDataNotFoundException.class)
+                    .verify();
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        StepVerifier.create(guard.guard(() -> Mono.fromCallable(calls::incrementAndGet)))
+                .expectErrorSatisfies(e -> assertEquals(30, ((RequestThrottledException) e).getRetryAfter().toSeconds()))
+                .verify();
+        assertEquals(0, calls.get());
+        assertEquals(10, guard.availableBulkheadPermits());
+    }
+
+    @Test
+    public void testGuard_cancelledProbeDoesNotCountAsFailure() {
+        ReactiveUpstreamGuard guard = new ReactiveUpstreamGuard(null, null, breaker, 10, new SimpleMeterRegistry());
+        for (int i = 0; i < 4; i++) {
+            breaker.onError();
+        }
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+
+        // Klient rozłączył się w trakcie próby - miejsce próbne wraca, obwód pozostaje półotwarty
+        StepVerifier.create(guard.guard(Mono::never)).thenCancel().verify();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        StepVerifier.create(guard.guard(() -> Mono.just("ok"))).expectNext("ok").verifyComplete();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    public void testGuard_rateLimitRejectsImmediatelyAndReleasesProbe() {
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 1);
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(5, 1, 10, Duration.ofSeconds(1), 0.5);
+        ReactiveUpstreamGuard guard = new ReactiveUpstreamGuard(rateLimiter, concurrencyLimiter, breaker, 10, new SimpleMeterRegistry());
+
+        StepVerifier.create(guard.guard(() -> Mono.just("a"))).expectNext("a").verifyComplete();
+        StepVerifier.create(guard.guard(() -> Mono.just("b")))
+                .expectErrorSatisfies(e -> {
+                    assertInstanceOf(RequestThrottledException.class, e);
+                    assertTrue(((RequestThrottledException) e).getRetryAfter().compareTo(Duration.ZERO) > 0);
+                })
+                .verify();
+
+        assertEquals(0, concurrencyLimiter.inFlight());
+        assertEquals(10, guard.availableBulkheadPermits());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.client.ReactiveOpenMeteoApiClient;
+import com.example.weatherbackend.controller.ForecastCacheHeaders;
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import com.example.weatherbackend.service.WeatherService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+public class ReactiveWeatherControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ForecastCache forecastCache;
+
+    @Autowired
+    private ForecastCacheHeaders cacheHeaders;
+
+    @Autowired
+    private WeatherService weatherService;
+
+    @MockBean
+    private ReactiveOpenMeteoApiClient reactiveOpenMeteoApiClient; // Mockujemy nieblokującego klienta Open-Meteo
+
+    private WeatherResponse mockWeatherResponse;
+
+    @BeforeEach
+    void setUp() {
+        forecastCache.invalidateAll();
+        mockWeatherResponse = new WeatherResponse(
+                new WeatherResponse.Daily(
+                        new String[]{"2024-11-20", "2024-11-21", "2024-11-22"},
+                        new int[]{1, 2, 1},
+                        new double[]{5.0, 6.0, 7.0},
+                        new double[]{15.0, 16.0, 17.0},
+                        new double[]{36000.0, 30000.0, 42000.0},
+                        new double[]{0.0, 1.0, 0.0}
+                ),
+                new WeatherResponse.Hourly(new double[]{1013.0, 1015.0, 1017.0})
+        );
+        when(reactiveOpenMeteoApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenReturn(Mono.just(mockWeatherResponse));
+    }
+
+    @Test
+    void testGet7DayForecast_success() {
+        webTestClient.get().uri("/api/weather/7-day-forecast?latitude=52.2298&longitude=21.0118")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.AGE)
+                .expectBody()
+                .jsonPath("$.days.length()").isEqualTo(3)
+                .jsonPath("$.days[0].date").isEqualTo("2024-11-20")
+                .jsonPath("$.daily_units").exists();
+    }
+
+    @Test
+    void testGetWeekSummary_success() {
+        webTestClient.get().uri("/api/weather/weekly-summary?latitude=52.2298&longitude=21.0118")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.weekly_summary").exists()
+                .jsonPath("$.weekly_summary_units").exists();
+    }
+
+    @Test
+    void testGetOverview_success() {
+        webTestClient.get().uri("/api/weather/overview?latitude=52.2298&longitude=21.0118")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.days.length()").isEqualTo(3)
+                .jsonPath("$.weekly_summary").exists();
+    }
+
+    @Test
+    void testGet7DayForecast_panelParametersChangeEnergy() {
+        byte[] standard = webTestClient.get().uri("/api/weather/7-day-forecast?latitude=49.0&longitude=20.0")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().returnResult().getResponseBody();
+
+        webTestClient.get().uri("/api/weather/7-day-forecast?latitude=49.0&longitude=20.0&peak_power=5")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .consumeWith(result -> assertFalse(Arrays.equals(standard, result.getResponseBody())));
+        verify(reactiveOpenMeteoApiClient, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testRange_notAvailableInReactiveProfile() {
+        webTestClient.get().uri("/api/weather/range?latitude=52.2298&longitude=21.0118&forecast_days=3")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testRepeatedRequests_servedFromCache() {
+        for (int i = 0; i < 3; i++) {
+            webTestClient.get().uri("/api/weather/7-day-forecast?latitude=50.0614&longitude=19.9366")
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+        verify(reactiveOpenMeteoApiClient, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testEntryPastSoftTtl_isFetchedAgain() {
+        // soft-ttl 30 min, twardy TTL 6 h - wpis sprzed godziny jest jeszcze w cache, ale nieaktualny
+        ForecastKey cell = weatherService.cellFor(52.2298, 21.0118);
+        forecastCache.put(cell, new WeatherSnapshot(mockWeatherResponse, Instant.now().minus(Duration.ofHours(1))));
+
+        webTestClient.get().uri("/api/weather/7-day-forecast?latitude=52.2298&longitude=21.0118")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.AGE, age -> assertTrue(Long.parseLong(age) < 60, "Age " + age));
+
+        verify(reactiveOpenMeteoApiClient, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+        assertTrue(forecastCache.get(cell).fetchedAt().isAfter(Instant.now().minus(Duration.ofMinutes(1))));
+    }
+
+    @Test
+    void testEntryPastSoftTtl_servedWhenUpstreamFails() {
+        ForecastKey cell = weatherService.cellFor(52.2298, 21.0118);
+        forecastCache.put(cell, new WeatherSnapshot(mockWeatherResponse, Instant.now().minus(Duration.ofHours(1))));
+        when(reactiveOpenMeteoApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("API Open-Meteo jest chwilowo niedostępne.", Duration.ofSeconds(10))));
+
+        webTestClient.get().uri("/api/weather/7-day-forecast?latitude=52.2298&longitude=21.0118")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.AGE, age -> assertTrue(Long.parseLong(age) >= 3600, "Age " + age))
+                .expectBody()
+                .jsonPath("$.days.length()").isEqualTo(3);
+    }
+
+    @Test
+    void testInvalidLatitude_returnsBadRequest() {
+        webTestClient.get().uri("/api/weather/7-day-forecast?latitude=abc&longitude=21.0118")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Szerokość geograficzna musi być liczbą zmiennoprzecinkową.")
+                .jsonPath("$.path").isEqualTo("/api/weather/7-day-forecast");
+    }
+
+    @Test
+    void testMissingParameter_returnsBadRequest() {
+        webTestClient.get().uri("/api/weather/7-day-forecast?latitude=52.2298")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Brak wymaganego parametru: 'longitude'.");
+    }
+
+    @Test
+    void testUpstreamError_returnsNotFound() {
+        when(reactiveOpenMeteoApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenReturn(Mono.error(new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo: 400 Bad Request")));
+
+        webTestClient.get().uri("/api/weather/7-day-forecast?latitude=10.0&longitude=10.0")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    void testUpstreamRateLimited_returnsServiceUnavailable() {
+        when(reactiveOpenMeteoApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenReturn(Mono.error(new UpstreamUnavailableException("Przekroczono limit zapytań do API Open-Meteo.", Duration.ofSeconds(30))));
+
+        webTestClient.get().uri("/api/weather/weekly-summary?latitude=11.0&longitude=11.0")
+                .exchange()
+                .expectStatus().isEqualTo(503)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "30");
+    }
+
+    @Test
+    void testIfNoneMatchFreshInCache_returnsNotModified() {
+        WeatherSnapshot cached = new WeatherSnapshot(mockWeatherResponse, Instant.now());
+        ForecastKey cell = weatherService.cellFor(52.2298, 21.0118);
+        forecastCache.put(cell, cached);
+
+        webTestClient.get().uri("/api/weather/weekly-summary?latitude=52.2298&longitude=21.0118")
+                .header(HttpHeaders.IF_NONE_MATCH, cacheHeaders.etag("summary", cell, cached))
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, cacheHeaders.etag("summary", cell, cached));
+
+        verify(reactiveOpenMeteoApiClient, never()).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+}
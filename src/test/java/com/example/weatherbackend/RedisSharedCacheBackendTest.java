@@ -0,0 +1,106 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.RedisSharedCacheBackend;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionException;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection;
+import io.lettuce.core.pubsub.api.sync.RedisPubSubCommands;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RedisSharedCacheBackendTest {
+
+    private static final String CHANNEL = "weather-backend:forecast-refreshed";
+
+    private final AtomicLong now = new AtomicLong();
+    private RedisClient client;
+    private StatefulRedisConnection<String, byte[]> connection;
+    private RedisCommands<String, byte[]> commands;
+    private StatefulRedisPubSubConnection<String, byte[]> pubSubConnection;
+    private RedisPubSubCommands<String, byte[]> pubSubCommands;
+    private RedisSharedCacheBackend backend;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        client = mock(RedisClient.class);
+        connection = mock(StatefulRedisConnection.class);
+        commands = mock(RedisCommands.class);
+        pubSubConnection = mock(StatefulRedisPubSubConnection.class);
+        pubSubCommands = mock(RedisPubSubCommands.class);
+        when(connection.sync()).thenReturn(commands);
+        when(connection.async()).thenReturn(mock(RedisAsyncCommands.class));
+        when(pubSubConnection.sync()).thenReturn(pubSubCommands);
+        backend = new RedisSharedCacheBackend(client, Duration.ofSeconds(10), now::get);
+    }
+
+    @Test
+    public void testStartup_doesNotConnect() {
+        backend.subscribe(CHANNEL, message -> { });
+
+        verifyNoInteractions(client);
+        assertFalse(backend.isConnected());
+    }
+
+    @Test
+    public void testUnavailableRedis_behavesAsEmptyCache() {
+        when(client.connectPubSub(any(RedisCodec.class))).thenThrow(new RedisConnectionException("Connection refused"));
+
+        assertNull(backend.get("a"));
+        assertEquals(Arrays.asList(null, null), backend.getAll(List.of("a", "b")));
+        assertDoesNotThrow(() -> backend.set("a", new byte[]{1}, Duration.ofMinutes(1)));
+        assertDoesNotThrow(() -> backend.publish(CHANNEL, new byte[]{1}));
+
+        // Kolejne zapytania przed upływem retryInterval nie próbują łączyć się ponownie
+        verify(client, times(1)).connectPubSub(any(RedisCodec.class));
+        assertFalse(backend.isConnected());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testUnavailableRedis_reconnectsAfterRetryIntervalAndSubscribes() {
+        backend.subscribe(CHANNEL, message -> { });
+        when(client.connectPubSub(any(RedisCodec.class)))
+                .thenThrow(new RedisConnectionException("Connection refused"))
+                .thenReturn(pubSubConnection);
+        when(client.connect(any(RedisCodec.class))).thenReturn(connection);
+        when(commands.get("a")).thenReturn(new byte[]{7});
+
+        assertNull(backend.get("a"));
+        now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+
+        assertArrayEquals(new byte[]{7}, backend.get("a"));
+        assertTrue(backend.isConnected());
+        verify(pubSubCommands).subscribe(CHANNEL);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFailedCommandConnection_closesPubSubAndRetries() {
+        when(client.connectPubSub(any(RedisCodec.class))).thenReturn(pubSubConnection);
+        when(client.connect(any(RedisCodec.class)))
+                .thenThrow(new RedisConnectionException("Connection refused"))
+                .thenReturn(connection);
+
+        assertNull(backend.get("a"));
+        verify(pubSubConnection).close();
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        backend.get("a");
+        assertTrue(backend.isConnected());
+    }
+}
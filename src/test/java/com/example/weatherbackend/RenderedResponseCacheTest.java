@@ -0,0 +1,101 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.controller.RenderedResponseCache;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RenderedResponseCacheTest {
+
+    private static final ForecastKey CELL = new ForecastKey(52.23, 21.01, "weather_code", "surface_pressure", "auto");
+
+    private RenderedResponseCache renderedResponses;
+    private AtomicInteger renders;
+    private Supplier<Object> body;
+
+    @BeforeEach
+    void setUp() {
+        renderedResponses = new RenderedResponseCache(new ObjectMapper(), DataSize.ofMegabytes(1));
+        renders = new AtomicInteger();
+        body = () -> {
+            renders.incrementAndGet();
+            return Map.of("days", 7);
+        };
+    }
+
+    @Test
+    void render_sameFetch_serializesOnce() {
+        WeatherSnapshot data = response(Instant.parse("2024-11-20T10:00:00Z"));
+
+        RenderedResponseCache.Rendered first = renderedResponses.render("forecast", CELL, data, body);
+        RenderedResponseCache.Rendered second = renderedResponses.render("forecast", CELL, data, body);
+
+        assertEquals(1, renders.get());
+        assertSame(first, second);
+        assertEquals("{\"days\":7}", new String(first.json(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void render_newFetchOrOtherView_serializesAgain() {
+        renderedResponses.render("forecast", CELL, response(Instant.parse("2024-11-20T10:00:00Z")), body);
+        renderedResponses.render("summary", CELL, response(Instant.parse("2024-11-20T10:00:00Z")), body);
+        renderedResponses.render("forecast", CELL, response(Instant.parse("2024-11-20T10:30:00Z")), body);
+
+        assertEquals(3, renders.get());
+        assertEquals(2, renderedResponses.size());
+    }
+
+    @Test
+    void render_withoutFetchTime_isNotCached() {
+        renderedResponses.render("forecast", CELL, response(null), body);
+        renderedResponses.render("forecast", CELL, response(null), body);
+
+        assertEquals(2, renders.get());
+        assertEquals(0, renderedResponses.size());
+    }
+
+    @Test
+    void render_gzipVariantMatchesJson() throws Exception {
+        RenderedResponseCache.Rendered rendered = renderedResponses.render("forecast", CELL, response(Instant.now()), body);
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(rendered.gzip()))) {
+            assertArrayEquals(rendered.json(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    void acceptsGzip_negotiatesAcceptEncoding() {
+        assertTrue(RenderedResponseCache.acceptsGzip(acceptEncoding("gzip, deflate, br")));
+        assertTrue(RenderedResponseCache.acceptsGzip(acceptEncoding("br;q=1.0, GZIP;q=0.5")));
+        assertTrue(RenderedResponseCache.acceptsGzip(acceptEncoding("*")));
+        assertFalse(RenderedResponseCache.acceptsGzip(acceptEncoding("gzip;q=0")));
+        assertFalse(RenderedResponseCache.acceptsGzip(acceptEncoding("*, gzip;q=0.000")));
+        assertFalse(RenderedResponseCache.acceptsGzip(acceptEncoding("identity")));
+        assertFalse(RenderedResponseCache.acceptsGzip(new HttpHeaders()));
+    }
+
+    private static HttpHeaders acceptEncoding(String value) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, value);
+        return headers;
+    }
+
+    private static WeatherSnapshot response(Instant fetchedAt) {
+        return new WeatherSnapshot(new WeatherResponse(null, null), fetchedAt);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.CachingWeatherApiClient;
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
+import com.example.weatherbackend.client.InMemorySharedCacheBackend;
+import com.example.weatherbackend.client.SharedCacheBackend;
+import com.example.weatherbackend.client.SharedCacheWeatherApiClient;
+import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class SharedCacheWeatherApiClientTest {
+
+    private static final String DAILY = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
+    private static final String HOURLY = "surface_pressure";
+    private static final String CHANNEL = "forecast-refreshed";
+    private static final Duration SOFT_TTL = Duration.ofMinutes(30);
+
+    // ForecastCache liczy wygasanie od bieżącego czasu, a L2 przechowuje czas z dokładnością do milisekund
+    private final AtomicReference<Instant> now = new AtomicReference<>(Instant.now().truncatedTo(ChronoUnit.MILLIS));
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now.get();
+        }
+    };
+
+    private InMemorySharedCacheBackend backend;
+    private WeatherResponse weatherResponse;
+
+    @BeforeEach
+    public void setUp() {
+        backend = new InMemorySharedCacheBackend(clock);
+        weatherResponse = new WeatherResponse(
+                new WeatherResponse.Daily(
+                        new String[]{"2024-11-20"},
+                        new int[]{1},
+                        new double[]{5.0},
+                        new double[]{15.0},
+                        new double[]{36000.0},
+                        new double[]{0.0}
+                ),
+                new WeatherResponse.Hourly(new double[]{1013.0})
+        );
+    }
+
+    @Test
+    public void testSecondReplicaReadsSharedEntryInsteadOfUpstream() {
+        Replica first = new Replica(backend);
+        Replica second = new Replica(backend);
+
+        WeatherSnapshot fetched = first.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        WeatherSnapshot shared = second.client.getWeatherData(52.2301, 21.0121, DAILY, HOURLY, "auto");
+
+        verify(first.upstream, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+        verify(second.upstream, never()).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+        // Ten sam czas pobrania na obu replikach - wiek i ETag są zgodne
+        assertEquals(fetched.fetchedAt(), shared.fetchedAt());
+        assertArrayEquals(fetched.response().hourly().surface_pressure(), shared.response().hourly().surface_pressure());
+    }
+
+    @Test
+    public void testRefreshOnOneReplicaInvalidatesOlderLocalCopies() {
+        Replica first = new Replica(backend);
+        Replica second = new Replica(backend);
+        first.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        second.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        ForecastKey key = second.localCache.keyFor(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        assertNotNull(second.localCache.peek(key));
+
+        now.set(now.get().plus(SOFT_TTL).plusSeconds(1));
+        first.caching.refresh(key);
+
+        assertNull(second.localCache.peek(key));
+        WeatherSnapshot refreshed = second.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+        assertEquals(now.get(), refreshed.fetchedAt());
+        verify(second.upstream, never()).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testStaleSharedEntryIsServedWhenUpstreamFails() {
+        Replica first = new Replica(backend);
+        first.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        now.set(now.get().plus(SOFT_TTL).plusSeconds(1));
+        Replica second = new Replica(backend);
+        when(second.upstream.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new UpstreamUnavailableException("Open-Meteo jest chwilowo niedostępne.", Duration.ofSeconds(30)));
+
+        WeatherSnapshot response = second.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        // Wpis po soft TTL - wiek przekracza max-age, co klient widzi w nagłówku Age
+        assertTrue(response.fetchedAt().plus(SOFT_TTL).isBefore(now.get()));
+        assertEquals(1013.0, response.response().hourly().surface_pressure()[0]);
+    }
+
+    @Test
+    public void testBatchFetchesOnlyCellsMissingFromSharedCache() {
+        Replica first = new Replica(backend);
+        Replica second = new Replica(backend);
+        first.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        List<WeatherSnapshot> responses = second.client.getWeatherDataBatch(
+                List.of(new Coordinates(52.2298, 21.0118), new Coordinates(50.0614, 19.9366)), DAILY, HOURLY, "auto");
+
+        assertEquals(2, responses.size());
+        verify(second.upstream).getWeatherDataBatch(sized(1), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testInMemoryBackendDropsExpiredEntriesThatAreNeverReadAgain() {
+        for (int i = 0; i < 100; i++) {
+            backend.set("cell-" + i, new byte[]{1}, Duration.ofMinutes(10));
+        }
+        backend.set("long-lived", new byte[]{2}, Duration.ofHours(1));
+        assertEquals(101, backend.size());
+
+        now.set(now.get().plus(Duration.ofMinutes(11)));
+
+        assertEquals(1, backend.size());
+        assertNull(backend.get("cell-0"));
+        assertArrayEquals(new byte[]{2}, backend.get("long-lived"));
+    }
+
+    @Test
+    public void testBackendFailureFallsBackToUpstream() {
+        SharedCacheBackend failing = mock(SharedCacheBackend.class);
+        when(failing.get(anyString())).thenThrow(new IllegalStateException("Redis niedostępny"));
+        doThrow(new IllegalStateException("Redis niedostępny")).when(failing).set(anyString(), any(), any());
+        Replica replica = new Replica(failing);
+
+        WeatherSnapshot response = replica.client.getWeatherData(52.2298, 21.0118, DAILY, HOURLY, "auto");
+
+        assertNotNull(response.fetchedAt());
+        verify(replica.upstream, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    private static List<Coordinates> sized(int size) {
+        return argThat(locations -> locations != null && locations.size() == size);
+    }
+
+    // Jedna replika: własny L1 i upstream, wspólny backend L2
+    private class Replica {
+        final WeatherApiClient upstream = mock(WeatherApiClient.class);
+        final ForecastCache localCache = new ForecastCache(0.01, Duration.ofHours(6), 100, 0);
+        final CachingWeatherApiClient caching;
+        final WeatherApiClient client;
+
+        Replica(SharedCacheBackend backend) {
+            when(upstream.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                    .thenAnswer(invocation -> new WeatherSnapshot(weatherResponse));
+            when(upstream.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                    .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(weatherResponse)));
+            SharedCacheWeatherApiClient shared = new SharedCacheWeatherApiClient(upstream, backend, localCache, CHANNEL, SOFT_TTL,
+                    clock, new SimpleMeterRegistry());
+            caching = new CachingWeatherApiClient(shared, localCache, SOFT_TTL, Runnable::run, clock);
+            client = caching;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.SingleFlightWeatherApiClient;
+import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightWeatherApiClientTest {
+
+    private static final int CALLERS = 8;
+
+    private final WeatherSnapshot weatherResponse = new WeatherSnapshot(new WeatherResponse(
+            new WeatherResponse.Daily(
+                    new String[]{"2024-11-20"},
+                    new int[]{1},
+                    new double[]{5.0},
+                    new double[]{15.0},
+                    new double[]{36000.0},
+                    new double[]{0.0}
+            ),
+            new WeatherResponse.Hourly(new double[]{1013.0})
+    ));
+
+    @Test
+    public void testConcurrentIdenticalCalls_shareOneUpstreamCall() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        WeatherApiClient delegate = (lat, lon, daily, hourly, timezone) -> {
+            upstreamCalls.incrementAndGet();
+            awaitQuietly(release);
+            return weatherResponse;
+        };
+        SingleFlightWeatherApiClient client = new SingleFlightWeatherApiClient(delegate);
+
+        List<Future<WeatherSnapshot>> results = runConcurrently(client, release);
+
+        for (Future<WeatherSnapshot> result : results) {
+            assertSame(weatherResponse, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, upstreamCalls.get());
+        assertEquals(0, client.inFlightCount());
+    }
+
+    @Test
+    public void testConcurrentIdenticalCalls_shareException() throws Exception {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        WeatherApiClient delegate = (lat, lon, daily, hourly, timezone) -> {
+            upstreamCalls.incrementAndGet();
+            awaitQuietly(release);
+            throw new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo");
+        };
+        SingleFlightWeatherApiClient client = new SingleFlightWeatherApiClient(delegate);
+
+        List<Future<WeatherSnapshot>> results = runConcurrently(client, release);
+
+        for (Future<WeatherSnapshot> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(WeatherDataNotFoundException.class, e.getCause());
+        }
+        assertEquals(1, upstreamCalls.get());
+    }
+
+    @Test
+    public void testLeaderError_isSharedAndReleasesKey() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WeatherApiClient delegate = (lat, lon, daily, hourly, timezone) -> {
+            awaitQuietly(release);
+            throw new StackOverflowError();
+        };
+        SingleFlightWeatherApiClient client = new SingleFlightWeatherApiClient(delegate);
+
+        List<Future<WeatherSnapshot>> results = runConcurrently(client, release);
+
+        for (Future<WeatherSnapshot> result : results) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+        }
+        assertEquals(0, client.inFlightCount());
+    }
+
+    @Test
+    public void testSequentialCalls_areNotCoalesced() {
+        AtomicInteger upstreamCalls = new AtomicInteger();
+        WeatherApiClient delegate = (lat, lon, daily, hourly, timezone) -> {
+            upstreamCalls.incrementAndGet();
+            return weatherResponse;
+        };
+        SingleFlightWeatherApiClient client = new SingleFlightWeatherApiClient(delegate);
+
+        client.getWeatherData(52.23, 21.01, "weather_code", "", "auto");
+        client.getWeatherData(52.23, 21.01, "weather_code", "", "auto");
+
+        assertEquals(2, upstreamCalls.get());
+    }
+
+    private List<Future<WeatherSnapshot>> runConcurrently(SingleFlightWeatherApiClient client, CountDownLatch release) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<WeatherSnapshot>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> client.getWeatherData(52.23, 21.01, "weather_code", "surface_pressure", "auto")));
+            }
+            // Czekamy, aż wszyscy oprócz lidera będą czekać na wspólne wywołanie
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (client.inFlightCount() == 0 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            Thread.sleep(100);
+            release.countDown();
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.service.SolarYieldEngine;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class SolarYieldEngineTest {
+
+    // Północ czasu lokalnego w Warszawie (UTC+2) w dniu przesilenia letniego
+    private static final Instant SUMMER_START = Instant.parse("2024-06-20T22:00:00Z");
+
+    private final SolarYieldEngine scalar = new SolarYieldEngine(false);
+
+    @Test
+    public void testVectorKernelMatchesScalar() {
+        SolarYieldEngine vector = new SolarYieldEngine(true);
+        assumeTrue(vector.kernel().startsWith("vector"), "Vector API niedostępne - tylko wersja skalarna");
+
+        Random random = new Random(42);
+        for (int i = 0; i < 50; i++) {
+            int days = 1 + random.nextInt(16);
+            SolarYieldEngine.Site site = new SolarYieldEngine.Site(-60 + random.nextDouble() * 120, -180 + random.nextDouble() * 360,
+                    new PanelParameters(1 + random.nextDouble() * 9, random.nextDouble() * 90, random.nextDouble() * 360, 0.8, -0.004),
+                    randomHourly(random, days, Instant.parse("2024-01-01T00:00:00Z").plusSeconds(random.nextInt(365) * 86_400L)));
+
+            double[] expected = scalar.dailyEnergy(site);
+            double[] actual = vector.dailyEnergy(site);
+            for (int day = 0; day < days; day++) {
+                assertEquals(expected[day], actual[day], 1e-9 * Math.max(1, expected[day]));
+            }
+        }
+    }
+
+    @Test
+    public void testSouthFacingPanelsInSummerYieldRealisticEnergy() {
+        WeatherResponse.Hourly hourly = clearSky(SUMMER_START, 20.0);
+
+        double south = scalar.dailyEnergy(site(52.23, 21.01, PanelParameters.DEFAULT, hourly))[0];
+        double north = scalar.dailyEnergy(site(52.23, 21.01, new PanelParameters(2.5, 35, 0, 0.85, -0.004), hourly))[0];
+
+        // Pogodny dzień czerwcowy: kilka kWh na kWp, moduły od północy słabsze mimo słońca na północy rano i wieczorem
+        assertTrue(south / 2.5 > 3.0 && south / 2.5 < 8.0, "uzysk " + south);
+        assertTrue(north < south * 0.9, "północ " + north + ", południe " + south);
+    }
+
+    @Test
+    public void testDefaultPanelsFaceTheEquator() {
+        WeatherResponse.Hourly hourly = clearSky(-33.87, 151.21, Instant.parse("2024-12-20T13:00:00Z"), 20.0);
+
+        // Półkula południowa: domyślnie moduły skierowane na północ
+        double defaults = scalar.dailyEnergy(site(-33.87, 151.21, PanelParameters.DEFAULT, hourly))[0];
+        double north = scalar.dailyEnergy(site(-33.87, 151.21, new PanelParameters(2.5, 35, 0, 0.85, -0.004), hourly))[0];
+
+        assertEquals(north, defaults, 1e-12);
+    }
+
+    @Test
+    public void testNightAndZeroIrradianceYieldNothing() {
+        int hours = 48;
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly(new double[hours], new double[hours], new double[hours],
+                filled(hours, 15.0), SUMMER_START);
+
+        assertArrayEquals(new double[]{0.0, 0.0}, scalar.dailyEnergy(site(52.23, 21.01, PanelParameters.DEFAULT, hourly)));
+    }
+
+    @Test
+    public void testHotCellsAreDerated() {
+        double cool = scalar.dailyEnergy(site(52.23, 21.01, PanelParameters.DEFAULT, clearSky(SUMMER_START, 5.0)))[0];
+        double hot = scalar.dailyEnergy(site(52.23, 21.01, PanelParameters.DEFAULT, clearSky(SUMMER_START, 35.0)))[0];
+
+        // -0.4%/°C powyżej 25°C; ogrzanie ogniw przez promieniowanie zmienia stosunek tylko nieznacznie
+        assertEquals((1 - 0.004 * (35 - 25)) / (1 - 0.004 * (5 - 25)), hot / cool, 0.02);
+    }
+
+    @Test
+    public void testEnergyScalesWithPeakPowerAndEfficiency() {
+        WeatherResponse.Hourly hourly = clearSky(SUMMER_START, 20.0);
+
+        double base = scalar.dailyEnergy(site(52.23, 21.01, new PanelParameters(1.0, 35, 180, 0.5, -0.004), hourly))[0];
+        double larger = scalar.dailyEnergy(site(52.23, 21.01, new PanelParameters(4.0, 35, 180, 1.0, -0.004), hourly))[0];
+
+        assertEquals(8.0, larger / base, 1e-9);
+    }
+
+    @Test
+    public void testBatchMatchesSingleSites() {
+        Random random = new Random(7);
+        List<SolarYieldEngine.Site> sites = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            sites.add(site(49 + random.nextDouble() * 6, 14 + random.nextDouble() * 10,
+                    new PanelParameters(1 + random.nextInt(10), random.nextInt(60), 90 + random.nextInt(180), 0.85, -0.004),
+                    randomHourly(random, 7, SUMMER_START)));
+        }
+
+        List<double[]> batch = scalar.dailyEnergy(sites);
+
+        assertEquals(sites.size(), batch.size());
+        for (int i = 0; i < sites.size(); i++) {
+            assertArrayEquals(scalar.dailyEnergy(sites.get(i)), batch.get(i));
+        }
+    }
+
+    @Test
+    public void testSupportsOnlyFullDaysOfIrradiance() {
+        WeatherResponse.Daily daily = new WeatherResponse.Daily(new String[]{"2024-06-21"}, new int[]{1},
+                new double[]{10}, new double[]{20}, new double[]{36000}, new double[]{0});
+
+        assertTrue(SolarYieldEngine.supports(new WeatherResponse(daily, clearSky(SUMMER_START, 20.0))));
+        assertFalse(SolarYieldEngine.supports(new WeatherResponse(daily, new WeatherResponse.Hourly(new double[24]))));
+        assertFalse(SolarYieldEngine.supports(new WeatherResponse(daily, clearSky(SUMMER_START, 20.0).withStart(null))));
+    }
+
+    private static SolarYieldEngine.Site site(double latitude, double longitude, PanelParameters panel, WeatherResponse.Hourly hourly) {
+        return new SolarYieldEngine.Site(latitude, longitude, panel, hourly);
+    }
+
+    // Jedna doba bezchmurnego nieba nad Warszawą (model Haurwitza), 15% promieniowania rozproszonego
+    private static WeatherResponse.Hourly clearSky(Instant start, double temperature) {
+        return clearSky(52.23, 21.01, start, temperature);
+    }
+
+    private static WeatherResponse.Hourly clearSky(double latitude, double longitude, Instant start, double temperature) {
+        double[] shortwave = new double[24];
+        double[] diffuse = new double[24];
+        int dayOfYear = start.plusSeconds(12 * 3600).atZone(ZoneOffset.UTC).getDayOfYear();
+        double declination = Math.toRadians(23.44 * Math.sin(2 * Math.PI * (284 + dayOfYear) / 365));
+        double phi = Math.toRadians(latitude);
+        for (int hour = 0; hour < 24; hour++) {
+            // Środek godziny poprzedzającej znacznik, w przybliżonym czasie słonecznym
+            double utcHours = start.plusSeconds(hour * 3600L - 1800L).getEpochSecond() % 86_400 / 3600.0;
+            double hourAngle = Math.toRadians(15 * (utcHours + longitude / 15 - 12));
+            double sinElevation = Math.sin(phi) * Math.sin(declination) + Math.cos(phi) * Math.cos(declination) * Math.cos(hourAngle);
+            if (sinElevation > 0.01) {
+                shortwave[hour] = 1098 * sinElevation * Math.exp(-0.057 / sinElevation);
+                diffuse[hour] = shortwave[hour] * 0.15;
+            }
+        }
+        return new WeatherResponse.Hourly(filled(24, 1013.0), shortwave, diffuse, filled(24, temperature), start);
+    }
+
+    private static WeatherResponse.Hourly randomHourly(Random random, int days, Instant start) {
+        int hours = days * 24;
+        double[] shortwave = new double[hours];
+        double[] diffuse = new double[hours];
+        double[] temperature = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            shortwave[i] = random.nextDouble() < 0.4 ? 0 : random.nextDouble() * 900;
+            diffuse[i] = shortwave[i] * random.nextDouble();
+            temperature[i] = -10 + random.nextDouble() * 45;
+        }
+        return new WeatherResponse.Hourly(filled(hours, 1013.0), shortwave, diffuse, temperature, start);
+    }
+
+    private static double[] filled(int length, double value) {
+        double[] values = new double[length];
+        Arrays.fill(values, value);
+        return values;
+    }
+}
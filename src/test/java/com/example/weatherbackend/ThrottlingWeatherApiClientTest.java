@@ -0,0 +1,266 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.client.AdaptiveConcurrencyLimiter;
+import com.example.weatherbackend.client.ThrottlingWeatherApiClient;
+import com.example.weatherbackend.client.TokenBucketRateLimiter;
+import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
+import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class ThrottlingWeatherApiClientTest {
+
+    private static final WeatherSnapshot RESPONSE = new WeatherSnapshot(new WeatherResponse(null, null));
+
+    @Test
+    public void testTokenBucket_allowsBurstThenFailsFast() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 3);
+
+        assertTrue(limiter.tryAcquire(1, Duration.ZERO));
+        assertTrue(limiter.tryAcquire(1, Duration.ZERO));
+        assertTrue(limiter.tryAcquire(1, Duration.ZERO));
+        assertFalse(limiter.tryAcquire(1, Duration.ZERO));
+        assertTrue(limiter.timeToNextPermit().toMillis() > 900);
+    }
+
+    @Test
+    public void testTokenBucket_waitsForTokenWithinMaxWait() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(20, 1);
+        assertTrue(limiter.tryAcquire(1, Duration.ZERO));
+
+        long start = System.nanoTime();
+        assertTrue(limiter.tryAcquire(1, Duration.ofMillis(200)));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMillis >= 30, "czekano " + waitedMillis + " ms");
+    }
+
+    @Test
+    public void testTokenBucket_batchLargerThanBurstTakesWholeBurst() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 5);
+
+        assertTrue(limiter.tryAcquire(50, Duration.ZERO));
+        assertFalse(limiter.tryAcquire(1, Duration.ZERO));
+    }
+
+    @Test
+    public void testTokenBucket_retryAfterCoversAllRequestedPermits() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 50);
+        assertTrue(limiter.tryAcquire(50, Duration.ZERO));
+
+        assertFalse(limiter.tryAcquire(50, Duration.ZERO));
+        assertTrue(limiter.timeToNextPermit().toMillis() <= 100);
+        // 50 żetonów przy 10/s
+        assertTrue(limiter.timeToPermits(50).toMillis() > 4800, "czas " + limiter.timeToPermits(50));
+    }
+
+    @Test
+    public void testConcurrencyLimiter_multiplicativeDecreaseOnFailureAndSlowCalls() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, Duration.ofSeconds(1), 0.5);
+
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(10), false);
+        assertEquals(5, limiter.limit());
+
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        limiter.release(TimeUnit.SECONDS.toNanos(2), true);
+        assertEquals(2, limiter.limit());
+
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+        limiter.release(TimeUnit.SECONDS.toNanos(2), true);
+        assertEquals(2, limiter.limit()); // nie schodzi poniżej min-limit
+    }
+
+    @Test
+    public void testConcurrencyLimiter_additiveIncreaseWhenSaturated() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, Duration.ofSeconds(1), 0.5);
+
+        // Pełne wykorzystanie limitu przez kilka tur szybkich zapytań
+        for (int round = 0; round < 10; round++) {
+            int limit = limiter.limit();
+            for (int i = 0; i < limit; i++) {
+                assertTrue(limiter.tryAcquire(Duration.ZERO));
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(10), true);
+            }
+        }
+
+        assertTrue(limiter.limit() > 2);
+        assertTrue(limiter.limit() <= 10);
+    }
+
+    @Test
+    public void testConcurrencyLimiter_rejectsWhenFullAfterMaxWait() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, Duration.ofSeconds(1), 0.5);
+        assertTrue(limiter.tryAcquire(Duration.ZERO));
+
+        assertFalse(limiter.tryAcquire(Duration.ofMillis(20)));
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    public void testClient_rateLimitedCallThrowsUpstreamUnavailable() {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString())).thenReturn(RESPONSE);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ThrottlingWeatherApiClient client = new ThrottlingWeatherApiClient(delegate, new TokenBucketRateLimiter(1, 1),
+                new AdaptiveConcurrencyLimiter(5, 1, 10, Duration.ofSeconds(1), 0.9), Duration.ZERO, registry);
+
+        assertSame(RESPONSE, client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+        UpstreamUnavailableException e = assertThrows(UpstreamUnavailableException.class,
+                () -> client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+
+        assertTrue(e.getRetryAfter().toMillis() > 0);
+        verify(delegate, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+        assertEquals(1.0, registry.counter("open-meteo.api.throttled", "reason", "rate_limit").count());
+    }
+
+    @Test
+    public void testClient_concurrencyRejectionReturnsRatePermits() {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(1, 1);
+        AdaptiveConcurrencyLimiter concurrencyLimiter = new AdaptiveConcurrencyLimiter(1, 1, 1, Duration.ofSeconds(1), 0.9);
+        assertTrue(concurrencyLimiter.tryAcquire(Duration.ZERO)); // jedyne miejsce zajęte
+        ThrottlingWeatherApiClient client = new ThrottlingWeatherApiClient(delegate, rateLimiter, concurrencyLimiter,
+                Duration.ZERO, new SimpleMeterRegistry());
+
+        assertThrows(UpstreamUnavailableException.class, () -> client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+
+        // Żeton odrzuconego zapytania wrócił do puli
+        assertTrue(rateLimiter.tryAcquire(1, Duration.ZERO));
+        verifyNoInteractions(delegate);
+    }
+
+    @Test
+    public void testClient_batchChunksAtProductionDefaultsWaitForRefill() throws Exception {
+        // Wartości z application.properties: 10 zapytań/s, burst 50, batch-size 50, max-wait 500ms, batch-max-wait 30s
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        when(delegate.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), RESPONSE));
+        ThrottlingWeatherApiClient client = new ThrottlingWeatherApiClient(delegate, new TokenBucketRateLimiter(10, 50),
+                new AdaptiveConcurrencyLimiter(20, 2, 50, Duration.ofSeconds(2), 0.9),
+                Duration.ofMillis(500), Duration.ofSeconds(30), new SimpleMeterRegistry());
+        List<Coordinates> chunk = Collections.nCopies(50, new Coordinates(52.23, 21.01));
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Dwie równoległe paczki jednego zapytania zbiorczego: druga czeka na uzupełnienie 50 żetonów
+            Future<List<WeatherSnapshot>> first = executor.submit(() -> client.getWeatherDataBatch(chunk, "daily", "", "auto"));
+            Future<List<WeatherSnapshot>> second = executor.submit(() -> client.getWeatherDataBatch(chunk, "daily", "", "auto"));
+
+            assertEquals(50, first.get(30, TimeUnit.SECONDS).size());
+            assertEquals(50, second.get(30, TimeUnit.SECONDS).size());
+        } finally {
+            executor.shutdownNow();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis >= 4500, "czas " + elapsedMillis + " ms");
+    }
+
+    @Test
+    public void testClient_longRangeAtProductionDefaultsWaitsForRefill() throws Exception {
+        // Wartości z application.properties: 10 zapytań/s, burst 50, range-chunk-days 92, range-parallelism 4,
+        // max-wait 500ms, batch-max-wait 30s. 3660 dni to 40 paczek po 7 żetonów - ok. 23 s uzupełniania ponad burst
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), any(ForecastWindow.class), anyString(), anyString(), anyString()))
+                .thenReturn(RESPONSE.response());
+        ThrottlingWeatherApiClient client = new ThrottlingWeatherApiClient(delegate, new TokenBucketRateLimiter(10, 50),
+                new AdaptiveConcurrencyLimiter(20, 2, 50, Duration.ofSeconds(2), 0.9),
+                Duration.ofMillis(500), Duration.ofSeconds(30), new SimpleMeterRegistry());
+        LocalDate start = LocalDate.of(2014, 1, 1);
+        LocalDate end = start.plusDays(3659);
+        List<ForecastWindow> chunks = new ArrayList<>();
+        for (LocalDate from = start; !from.isAfter(end); from = from.plusDays(92)) {
+            LocalDate to = from.plusDays(91).isAfter(end) ? end : from.plusDays(91);
+            chunks.add(ForecastWindow.range(from, to));
+        }
+
+        // Jak WeatherService.forEachDay: najwyżej 4 paczki w locie, wyniki odbierane w kolejności
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Deque<Future<WeatherResponse>> inFlight = new ArrayDeque<>();
+            int next = 0;
+            int completed = 0;
+            while (next < chunks.size() || !inFlight.isEmpty()) {
+                while (next < chunks.size() && inFlight.size() < 4) {
+                    ForecastWindow chunk = chunks.get(next++);
+                    inFlight.add(executor.submit(() -> client.getWeatherData(52.23, 21.01, chunk, "daily", "", "auto")));
+                }
+                assertNotNull(inFlight.poll().get(30, TimeUnit.SECONDS));
+                completed++;
+            }
+            assertEquals(40, completed);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testClient_forecastDaysWindowKeepsSingleRequestMaxWait() {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        ThrottlingWeatherApiClient client = new ThrottlingWeatherApiClient(delegate, new TokenBucketRateLimiter(1, 2),
+                new AdaptiveConcurrencyLimiter(5, 1, 10, Duration.ofSeconds(1), 0.9),
+                Duration.ZERO, Duration.ofSeconds(30), new SimpleMeterRegistry());
+
+        client.getWeatherData(52.23, 21.01, ForecastWindow.days(16), "daily", "", "auto");
+
+        assertThrows(UpstreamUnavailableException.class,
+                () -> client.getWeatherData(52.23, 21.01, ForecastWindow.days(16), "daily", "", "auto"));
+    }
+
+    @Test
+    public void testClient_concurrencyLimitFailsFastAndReleasesOnError() throws Exception {
+        WeatherApiClient delegate = mock(WeatherApiClient.class);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        when(delegate.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString())).thenAnswer(invocation -> {
+            entered.countDown();
+            proceed.await();
+            throw new WeatherDataNotFoundException("Błąd");
+        });
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, Duration.ofSeconds(1), 0.9);
+        ThrottlingWeatherApiClient client = new ThrottlingWeatherApiClient(delegate, new TokenBucketRateLimiter(100, 10),
+                limiter, Duration.ZERO, new SimpleMeterRegistry());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> blocked = executor.submit(() -> client.getWeatherData(52.23, 21.01, "daily", "", "auto"));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+            assertThrows(UpstreamUnavailableException.class, () -> client.getWeatherData(50.06, 19.94, "daily", "", "auto"));
+
+            proceed.countDown();
+            assertThrows(Exception.class, blocked::get);
+            assertEquals(0, limiter.inFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.OpenMeteoStubServer.Behaviour;
+import com.example.weatherbackend.OpenMeteoStubServer.LatencyDistribution;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Blokujący klient HttpClient5 z prawdziwą pulą połączeń na wątkach wirtualnych przeciwko lokalnemu Open-Meteo.
+// Uruchamiany przez: mvn test -Pload
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.threads.virtual.enabled=true",
+        "server.tomcat.threads.max=200",
+        "open-meteo.store.enabled=false",
+        "open-meteo.prewarm.enabled=false",
+        // Pula połączeń większa niż pula wątków platformowych, ale mniejsza niż liczba żądań - reszta czeka na
+        // połączenie z puli. Limity zapytań, bezpiecznik i bulkheady są badane osobno (EndToEndLoadTest)
+        "open-meteo.http.max-connections-total=300",
+        "open-meteo.http.max-connections-per-route=300",
+        "open-meteo.http.connection-request-timeout=10s",
+        "open-meteo.http.response-timeout=10s",
+        "open-meteo.throttling.enabled=false",
+        "open-meteo.circuit-breaker.enabled=false"
+})
+public class VirtualThreadLoadTest {
+
+    private static final int CONCURRENT_REQUESTS = 500;
+    private static final long UPSTREAM_LATENCY_MS = 200;
+    private static final int PLATFORM_THREAD_CEILING = 200;
+    private static final Duration PINNING_THRESHOLD = Duration.ofMillis(20);
+
+    private static final OpenMeteoStubServer upstream =
+            OpenMeteoStubServer.start(Behaviour.healthy().withLatency(LatencyDistribution.fixed(UPSTREAM_LATENCY_MS)));
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) {
+        registry.add("open-meteo.api.base-url", upstream::forecastUrl);
+        registry.add("open-meteo.api.archive-url", upstream::archiveUrl);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void blockingUpstreamCalls_exceedPlatformThreadCeilingWithoutPinning() throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        upstream.resetPeakInFlight();
+
+        long start;
+        long elapsedMs;
+        List<RecordedEvent> pinned;
+        try (Recording recording = new Recording()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(PINNING_THRESHOLD).withStackTrace();
+            recording.start();
+
+            start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient httpClient = HttpClient.newBuilder()
+                         .executor(executor)
+                         .connectTimeout(Duration.ofSeconds(10))
+                         .build()) {
+                List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+                for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+                    // Każde żądanie to inna komórka siatki, więc każde trafia do Open-Meteo
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(String.format(Locale.ROOT,
+                                    "http://localhost:%d/api/weather/7-day-forecast?latitude=%.2f&longitude=21.01",
+                                    port, 10 + i * 0.05)))
+                            .timeout(Duration.ofSeconds(30))
+                            .build();
+                    responses.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+                }
+                for (CompletableFuture<HttpResponse<Void>> response : responses) {
+                    assertEquals(200, response.join().statusCode());
+                }
+            }
+            elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+            recording.stop();
+            Path dump = Files.createTempFile("virtual-thread-pinning", ".jfr");
+            try {
+                recording.dump(dump);
+                pinned = RecordingFile.readAllEvents(dump);
+            } finally {
+                Files.deleteIfExists(dump);
+            }
+        }
+
+        double throughput = CONCURRENT_REQUESTS * 1000.0 / elapsedMs;
+        System.out.printf(Locale.ROOT, "Żądania: %d, czas: %d ms (%.0f req/s), szczytowa współbieżność upstream: %d, "
+                        + "szczytowa liczba wątków platformowych: %d, przypięcia wątków wirtualnych > %d ms: %d%n",
+                CONCURRENT_REQUESTS, elapsedMs, throughput, upstream.peakInFlight(), threads.getPeakThreadCount(),
+                PINNING_THRESHOLD.toMillis(), pinned.size());
+
+        // Wątki wirtualne czekają na upstream w większej liczbie niż pula wątków platformowych
+        assertTrue(upstream.peakInFlight() > PLATFORM_THREAD_CEILING,
+                "Szczytowa współbieżność " + upstream.peakInFlight() + " nie przekroczyła " + PLATFORM_THREAD_CEILING);
+        assertTrue(threads.getPeakThreadCount() < PLATFORM_THREAD_CEILING,
+                "Liczba wątków platformowych " + threads.getPeakThreadCount() + " nie powinna rosnąć z obciążeniem");
+        // 500 żądań przez pulę 300 połączeń to 2 rundy po 200 ms - z dużym zapasem na rozgrzewkę JIT i jeden rdzeń
+        assertTrue(throughput > 50, "Przepustowość " + throughput + " req/s");
+        // Blokowanie w puli połączeń lub synchronized nie może przypinać wątków nośnych
+        assertTrue(pinned.isEmpty(), () -> "Przypięte wątki wirtualne:\n" + pinned.get(0));
+    }
+}
@@ -1,10 +1,17 @@
 package com.example.weatherbackend;
 
+import com.example.weatherbackend.client.ForecastCache;
+import com.example.weatherbackend.client.ForecastKey;
 import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.controller.ForecastCacheHeaders;
+import com.example.weatherbackend.exceptions.UpstreamUnavailableException;
 import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
 import com.example.weatherbackend.model.DailyForecast;
+import com.example.weatherbackend.model.ForecastWindow;
 import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
 import com.example.weatherbackend.model.WeatherSummary;
+import com.example.weatherbackend.service.WeatherService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,17 +20,39 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
-import java.util.Arrays;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.zip.GZIPInputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
@@ -39,46 +68,48 @@ public class WeatherControllerIntegrationTest {
     @MockBean
     private WeatherApiClient weatherApiClient; // Mockujemy klienta zewnętrznego API
 
+    @Autowired
+    private ForecastCache forecastCache;
+
+    @Autowired
+    private ForecastCacheHeaders cacheHeaders;
+
+    @Autowired
+    private WeatherService weatherService;
+
     private WeatherResponse mockWeatherResponse;
 
     // Poprawna wartość dailyParameters z application.properties
     private static final String DAILY_PARAMETERS_CONFIG = "weather_code,temperature_2m_min,temperature_2m_max,sunshine_duration,rain_sum";
     // Poprawna wartość hourlyParameters z application.properties
-    private static final String HOURLY_PARAMETERS_CONFIG = "surface_pressure";
+    private static final String HOURLY_PARAMETERS_CONFIG = "surface_pressure,shortwave_radiation,diffuse_radiation,temperature_2m";
     // Poprawna wartość timezone z application.properties
     private static final String TIMEZONE_CONFIG = "auto";
     @BeforeEach
     void setUp() {
+        forecastCache.invalidateAll();
         // Przygotowujemy mockowaną odpowiedź z API Open-Meteo
         mockWeatherResponse = new WeatherResponse(
                 new WeatherResponse.Daily(
-                        Arrays.asList("2024-11-20", "2024-11-21", "2024-11-22"),
-                        Arrays.asList(1, 2, 1), // weather_code
-                        Arrays.asList(5.0, 6.0, 7.0), // temp_min
-                        Arrays.asList(15.0, 16.0, 17.0), // temp_max
-                        Arrays.asList(36000.0, 30000.0, 42000.0), // sunshine_duration (in seconds)
-                        Arrays.asList(0.0, 1.0, 0.0) // rain_sum
+                        new String[]{"2024-11-20", "2024-11-21", "2024-11-22"},
+                        new int[]{1, 2, 1}, // weather_code
+                        new double[]{5.0, 6.0, 7.0}, // temp_min
+                        new double[]{15.0, 16.0, 17.0}, // temp_max
+                        new double[]{36000.0, 30000.0, 42000.0}, // sunshine_duration (in seconds)
+                        new double[]{0.0, 1.0, 0.0} // rain_sum
                 ),
                 new WeatherResponse.Hourly(
-                        Arrays.asList(1013.0, 1015.0, 1017.0) // surface_pressure
+                        new double[]{1013.0, 1015.0, 1017.0} // surface_pressure
                 )
         );
 
-        // Ustawiamy oczekiwane zachowanie mocka WeatherApiClient dla get7DayForecast
-        when(weatherApiClient.getWeatherData(
-                anyDouble(), anyDouble(),
-                eq(DAILY_PARAMETERS_CONFIG), // Używamy stałej z poprawną kolejnością
-                eq(""), // Empty for 7-day forecast
-                eq(TIMEZONE_CONFIG))) // Używamy stałej
-                .thenReturn(mockWeatherResponse);
-
-        // Ustawiamy oczekiwane zachowanie mocka WeatherApiClient dla getWeekSummary
+        // Ustawiamy oczekiwane zachowanie mocka WeatherApiClient - prognoza i podsumowanie korzystają z jednego zapytania
         when(weatherApiClient.getWeatherData(
                 anyDouble(), anyDouble(),
                 eq(DAILY_PARAMETERS_CONFIG), // Używamy stałej z poprawną kolejnością
                 eq(HOURLY_PARAMETERS_CONFIG), // Używamy stałej
                 eq(TIMEZONE_CONFIG))) // Używamy stałej
-                .thenReturn(mockWeatherResponse);
+                .thenReturn(new WeatherSnapshot(mockWeatherResponse));
     }
 
     @Test
@@ -130,7 +161,7 @@ public class WeatherControllerIntegrationTest {
         when(weatherApiClient.getWeatherData(
                 eq(0.0), eq(0.0), // Zmiana: jawne określenie 0.0 dla latitude i longitude
                 eq(DAILY_PARAMETERS_CONFIG),
-                eq(""),
+                eq(HOURLY_PARAMETERS_CONFIG),
                 eq(TIMEZONE_CONFIG)))
                 .thenThrow(new WeatherDataNotFoundException("Nie udało się pobrać danych pogodowych z zewnętrznego API (odpowiedź jest pusta)."));
 
@@ -159,6 +190,227 @@ public class WeatherControllerIntegrationTest {
                 .andExpect(jsonPath("$.weekly_summary_units.averageSurfacePressure", is("hPa")));
     }
 
+    @Test
+    void getOverview_validCoordinates_returnsForecastAndSummaryFromOneCall() throws Exception {
+        mockMvc.perform(get("/api/weather/overview")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", hasSize(3)))
+                .andExpect(jsonPath("$.days[0].estimatedEnergy", closeTo(5.0, 0.01)))
+                .andExpect(jsonPath("$.daily_units.date", is("YYYY-MM-DD")))
+                .andExpect(jsonPath("$.weekly_summary.averageSurfacePressure", closeTo(1015.0, 0.01)))
+                .andExpect(jsonPath("$.weekly_summary.weatherSummary", is("Not rainy")))
+                .andExpect(jsonPath("$.weekly_summary_units.averageSurfacePressure", is("hPa")));
+
+        verify(weatherApiClient, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void getBatchForecast_validCoordinates_streamsForecastsInOrder() throws Exception {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), eq(DAILY_PARAMETERS_CONFIG), eq(HOURLY_PARAMETERS_CONFIG), eq(TIMEZONE_CONFIG)))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(mockWeatherResponse)));
+
+        MvcResult result = mockMvc.perform(post("/api/weather/batch-forecast")
+                        .content("[{\"latitude\": 52.2298, \"longitude\": 21.0118}, {\"latitude\": 50.0614, \"longitude\": 19.9366}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].latitude", closeTo(52.2298, 0.0001)))
+                .andExpect(jsonPath("$[0].days", hasSize(3)))
+                .andExpect(jsonPath("$[0].days[0].estimatedEnergy", closeTo(5.0, 0.01)))
+                .andExpect(jsonPath("$[1].longitude", closeTo(19.9366, 0.0001)))
+                .andExpect(jsonPath("$[1].error").doesNotExist());
+    }
+
+    @Test
+    void getBatchForecast_invalidCoordinate_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/weather/batch-forecast")
+                        .content("[{\"latitude\": 52.2298, \"longitude\": 21.0118}, {\"latitude\": 95.0, \"longitude\": 19.9366}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("Szerokość geograficzna musi być w przedziale [-90.0, 90.0].")));
+    }
+
+    @Test
+    void getBatchForecast_missingOrUnknownField_returnsBadRequest() throws Exception {
+        // Bez odrzucenia każda z tych lokalizacji zamieniłaby się po cichu w (0.0, 0.0)
+        for (String content : new String[]{
+                "[{\"lat\": 52.2, \"lon\": 21.0}]",
+                "[{}]",
+                "[{\"latitude\": null, \"longitude\": 21.0}]",
+                "[{\"latitude\": 52.2, \"longitude\": 21.0, \"altitude\": 100}]"}) {
+            mockMvc.perform(post("/api/weather/batch-forecast")
+                            .content(content)
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(jsonPath("$.message", containsString("latitude i longitude")));
+        }
+
+        verifyNoInteractions(weatherApiClient);
+    }
+
+    @Test
+    void getBatchForecast_malformedJson_returnsBadRequestWithoutDetails() throws Exception {
+        mockMvc.perform(post("/api/weather/batch-forecast")
+                        .content("[{\"latitude\": 52.2,")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").doesNotExist());
+    }
+
+    @Test
+    void streamForecasts_jsonLocations_writesNdjsonLines() throws Exception {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), eq(DAILY_PARAMETERS_CONFIG), eq(HOURLY_PARAMETERS_CONFIG), eq(TIMEZONE_CONFIG)))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(mockWeatherResponse)));
+
+        MvcResult result = mockMvc.perform(post("/api/weather/stream")
+                        .content("[{\"latitude\": 52.2298, \"longitude\": 21.0118}, {\"latitude\": 50.0614, \"longitude\": 19.9366}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(52.2298, objectMapper.readTree(lines[0]).get("latitude").asDouble(), 0.0001);
+        assertEquals(3, objectMapper.readTree(lines[1]).get("days").size());
+    }
+
+    @Test
+    void streamForecasts_csvWithHeader_writesServerSentEvents() throws Exception {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), eq(DAILY_PARAMETERS_CONFIG), eq(HOURLY_PARAMETERS_CONFIG), eq(TIMEZONE_CONFIG)))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(mockWeatherResponse)));
+
+        MvcResult result = mockMvc.perform(post("/api/weather/stream")
+                        .content("site;lon;lat\nPV-1;21.0118;52.2298\n\nPV-2;19.9366;50.0614\n")
+                        .contentType("text/csv")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] events = body.split("\n\n");
+        assertEquals(3, events.length);
+        assertEquals("event: forecast\nid: 1", events[1].substring(0, events[1].indexOf("\ndata: ")));
+        assertEquals(50.0614, objectMapper.readTree(events[1].substring(events[1].indexOf("data: ") + 6)).get("latitude").asDouble(), 0.0001);
+        assertEquals("event: end\nid: 2\ndata: {\"count\":2}", events[2]);
+    }
+
+    @Test
+    void streamForecasts_uploadedCsvFile() throws Exception {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), eq(DAILY_PARAMETERS_CONFIG), eq(HOURLY_PARAMETERS_CONFIG), eq(TIMEZONE_CONFIG)))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(mockWeatherResponse)));
+
+        MvcResult result = mockMvc.perform(multipart("/api/weather/stream")
+                        .file(new MockMultipartFile("file", "sites.csv", "text/csv", "52.2298,21.0118\n".getBytes())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", hasSize(3)));
+    }
+
+    @Test
+    void streamForecasts_invalidFirstRow_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/weather/stream")
+                        .content("95.0,21.0118\n52.2298,21.0118\n")
+                        .contentType("text/csv"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Wiersz 1: Szerokość geograficzna musi być w przedziale [-90.0, 90.0].")));
+        verify(weatherApiClient, never()).getWeatherDataBatch(anyList(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void streamForecasts_invalidLaterRow_endsStreamWithError() throws Exception {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), eq(DAILY_PARAMETERS_CONFIG), eq(HOURLY_PARAMETERS_CONFIG), eq(TIMEZONE_CONFIG)))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(mockWeatherResponse)));
+
+        MvcResult result = mockMvc.perform(post("/api/weather/stream")
+                        .content("52.2298,21.0118\nabc,21.0118\n")
+                        .contentType("text/csv"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(3, objectMapper.readTree(lines[0]).get("days").size());
+        assertEquals("Wiersz 2: Szerokość geograficzna musi być liczbą zmiennoprzecinkową.", objectMapper.readTree(lines[1]).get("error").asText());
+    }
+
+    @Test
+    void streamForecasts_truncatedJsonArray_endsStreamWithError() throws Exception {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), eq(DAILY_PARAMETERS_CONFIG), eq(HOURLY_PARAMETERS_CONFIG), eq(TIMEZONE_CONFIG)))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(mockWeatherResponse)));
+
+        MvcResult result = mockMvc.perform(post("/api/weather/stream")
+                        .content("[{\"latitude\": 52.2298, \"longitude\": 21.0118}")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Element 1: niekompletna tablica JSON lokalizacji.", objectMapper.readTree(lines[1]).get("error").asText());
+    }
+
+    @Test
+    void streamForecasts_nullOrIncompleteFirstJsonElement_returnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/weather/stream")
+                        .content("[null]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Element 0: oczekiwano obiektu z polami latitude i longitude.")));
+        mockMvc.perform(post("/api/weather/stream")
+                        .content("[{\"lat\": 52.2298, \"lon\": 21.0118}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Element 0: lokalizacja musi mieć liczbowe pola latitude i longitude.")));
+        verify(weatherApiClient, never()).getWeatherDataBatch(anyList(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void streamForecasts_nullLaterJsonElement_endsStreamWithError() throws Exception {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), eq(DAILY_PARAMETERS_CONFIG), eq(HOURLY_PARAMETERS_CONFIG), eq(TIMEZONE_CONFIG)))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(mockWeatherResponse)));
+
+        MvcResult result = mockMvc.perform(post("/api/weather/stream")
+                        .content("[{\"latitude\": 52.2298, \"longitude\": 21.0118}, null, {\"latitude\": 50.0614}]")
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("Element 1: oczekiwano obiektu z polami latitude i longitude.", objectMapper.readTree(lines[1]).get("error").asText());
+    }
+
     @Test
     void getWeekSummary_invalidLongitudeRange_returnsBadRequest() throws Exception {
         mockMvc.perform(get("/api/weather/weekly-summary")
@@ -169,4 +421,240 @@ public class WeatherControllerIntegrationTest {
                 .andExpect(jsonPath("$.error", is("Bad Request")))
                 .andExpect(jsonPath("$.message", containsString("Długość geograficzna musi być w przedziale [-180.0, 180.0].")));
     }
-}
\ No newline at end of file
+
+    @Test
+    void get7DayForecast_staleCacheEntry_returnsOkWithAgeAboveMaxAge() throws Exception {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenReturn(new WeatherSnapshot(mockWeatherResponse, Instant.now().minusSeconds(3600)));
+
+        mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", hasSize(3)))
+                // Nieaktualność wynika z Age większego niż max-age, bez przestarzałego nagłówka Warning
+                .andExpect(header().string("Age", matchesPattern("36[0-9][0-9]")))
+                .andExpect(header().string("Cache-Control", containsString("max-age=1800")))
+                .andExpect(header().doesNotExist("Warning"));
+    }
+
+    @Test
+    void get7DayForecast_responseWithoutFetchTime_hasNoAgeOrWarning() throws Exception {
+        mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Age"))
+                .andExpect(header().doesNotExist("Warning"));
+    }
+
+    @Test
+    void get7DayForecast_upstreamUnavailable_returnsServiceUnavailableWithRetryAfter() throws Exception {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenThrow(new UpstreamUnavailableException("Przekroczono limit zapytań do API Open-Meteo.", Duration.ofMillis(1500)));
+
+        mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.error", is("Service Unavailable")))
+                .andExpect(jsonPath("$.message", is("Przekroczono limit zapytań do API Open-Meteo.")));
+    }
+
+    @Test
+    void get7DayForecast_cachedResponse_hasValidatorsAndCacheControl() throws Exception {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenReturn(new WeatherSnapshot(mockWeatherResponse, Instant.now().minusSeconds(60)));
+
+        mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/\"forecast-")))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "max-age=1800, public, stale-while-revalidate=19800"));
+    }
+
+    @Test
+    void get7DayForecast_ifNoneMatchFreshInCache_returnsNotModifiedWithoutService() throws Exception {
+        WeatherSnapshot cached = new WeatherSnapshot(mockWeatherResponse, Instant.now().minusSeconds(60));
+        ForecastKey cell = weatherService.cellFor(52.2298, 21.0118);
+        forecastCache.put(cell, cached);
+        String etag = cacheHeaders.etag("forecast", cell, cached);
+
+        mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2301") // Ta sama komórka siatki
+                        .param("longitude", "21.0120")
+                        .header("If-None-Match", "\"other\", " + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues("ETag", etag))
+                .andExpect(header().string("Cache-Control", containsString("max-age=1800")))
+                .andExpect(content().string(""));
+
+        verify(weatherApiClient, never()).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void getWeekSummary_etagOfOtherView_returnsOk() throws Exception {
+        WeatherSnapshot cached = new WeatherSnapshot(mockWeatherResponse, Instant.now().minusSeconds(60));
+        ForecastKey cell = weatherService.cellFor(52.2298, 21.0118);
+        forecastCache.put(cell, cached);
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString())).thenReturn(cached);
+
+        mockMvc.perform(get("/api/weather/weekly-summary")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .header("If-None-Match", cacheHeaders.etag("forecast", cell, cached)))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", cacheHeaders.etag("summary", cell, cached)))
+                .andExpect(jsonPath("$.weekly_summary").exists());
+    }
+
+    @Test
+    void get7DayForecast_ifNoneMatchStaleInCache_goesThroughServiceAndReturnsNotModified() throws Exception {
+        // Po soft TTL zapytanie musi dotrzeć do serwisu (odświeżenie w tle), ale klient z aktualną wersją dostaje 304
+        WeatherSnapshot stale = new WeatherSnapshot(mockWeatherResponse, Instant.now().minus(Duration.ofHours(1)));
+        ForecastKey cell = weatherService.cellFor(52.2298, 21.0118);
+        forecastCache.put(cell, stale);
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString())).thenReturn(stale);
+
+        mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .header("If-None-Match", cacheHeaders.etag("forecast", cell, stale)))
+                .andExpect(status().isNotModified());
+
+        verify(weatherApiClient, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void get7DayForecast_ifModifiedSince_returnsNotModified() throws Exception {
+        WeatherSnapshot cached = new WeatherSnapshot(mockWeatherResponse, Instant.now().minusSeconds(60));
+        forecastCache.put(weatherService.cellFor(52.2298, 21.0118), cached);
+
+        mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .header("If-Modified-Since", DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC))))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void get7DayForecast_acceptsGzip_returnsPrecompressedBody() throws Exception {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString()))
+                .thenReturn(new WeatherSnapshot(mockWeatherResponse, Instant.now()));
+
+        MvcResult result = mockMvc.perform(get("/api/weather/7-day-forecast")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .header("Accept-Encoding", "gzip, deflate, br"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().stringValues("Vary", hasItem(containsString("Accept-Encoding"))))
+                .andReturn();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()))) {
+            Map<?, ?> body = objectMapper.readValue(in.readAllBytes(), Map.class);
+            assertEquals(3, ((List<?>) body.get("days")).size());
+        }
+    }
+
+    @Test
+    void getRangeForecast_forecastDays_streamsDaysAndSummary() throws Exception {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), eq(ForecastWindow.days(16)), anyString(), anyString(), anyString()))
+                .thenReturn(mockWeatherResponse);
+
+        MvcResult result = mockMvc.perform(get("/api/weather/range")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .param("forecast_days", "16"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", hasSize(3)))
+                .andExpect(jsonPath("$.daily_units.estimatedEnergy", is("kWh")))
+                .andExpect(jsonPath("$.summary.days", is(3)))
+                .andExpect(jsonPath("$.summary.minTemperature", closeTo(5.0, 0.01)))
+                .andExpect(jsonPath("$.summary.maxTemperature", closeTo(17.0, 0.01)))
+                .andExpect(jsonPath("$.summary.rainyDays", is(1)))
+                .andExpect(jsonPath("$.summary.totalEstimatedEnergy", closeTo(15.001, 0.01)));
+    }
+
+    @Test
+    void getRangeForecast_upstreamErrorBeforeFirstChunk_returnsNotFound() throws Exception {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), any(ForecastWindow.class), anyString(), anyString(), anyString()))
+                .thenThrow(new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo: timeout"));
+
+        MvcResult result = mockMvc.perform(get("/api/weather/range")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .param("start_date", "2023-01-01")
+                        .param("end_date", "2023-12-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message", containsString("timeout")));
+    }
+
+    @Test
+    void getRangeForecast_processingErrorAfterFirstChunk_closesJsonWithError() throws Exception {
+        // Pierwsza paczka (92 dni) wystarcza, żeby dni trafiły do odpowiedzi, druga nie ma danych dziennych
+        String[] time = new String[92];
+        for (int i = 0; i < time.length; i++) {
+            time[i] = LocalDate.of(2023, 1, 1).plusDays(i).toString();
+        }
+        double[] values = new double[time.length];
+        WeatherResponse firstChunk = new WeatherResponse(
+                new WeatherResponse.Daily(time, new int[time.length], values, values, values, values),
+                new WeatherResponse.Hourly(new double[]{1013.0}));
+        // Paczki są pobierane równolegle, więc odpowiedź zależy od okna, a nie od kolejności wywołań
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), any(ForecastWindow.class), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.<ForecastWindow>getArgument(2).startDate().equals(LocalDate.of(2023, 1, 1))
+                        ? firstChunk
+                        : new WeatherResponse(null, firstChunk.hourly()));
+
+        MvcResult result = mockMvc.perform(get("/api/weather/range")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .param("start_date", "2023-01-01")
+                        .param("end_date", "2023-06-30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.days", hasSize(92)))
+                .andExpect(jsonPath("$.error", is("Nie udało się przetworzyć danych pogodowych dla lokalizacji.")))
+                .andExpect(jsonPath("$.summary").doesNotExist());
+    }
+
+    @Test
+    void getRangeForecast_invalidWindow_returnsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/weather/range")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .param("forecast_days", "17"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("forecast_days musi być liczbą całkowitą w przedziale [1, 16].")));
+
+        mockMvc.perform(get("/api/weather/range")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .param("start_date", "2024-02-01")
+                        .param("end_date", "2024-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("end_date nie może być wcześniejsza niż start_date.")));
+
+        mockMvc.perform(get("/api/weather/range")
+                        .param("latitude", "52.2298")
+                        .param("longitude", "21.0118")
+                        .param("start_date", "2024-01-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Podaj forecast_days albo oba parametry start_date i end_date.")));
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.weatherbackend;
+
+import com.example.weatherbackend.config.WeatherRuntimeHints;
+import com.example.weatherbackend.model.Coordinates;
+import com.example.weatherbackend.model.DailyForecast;
+import com.example.weatherbackend.model.LocationForecast;
+import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    public void testRecordsWrittenByJacksonAreRegisteredForBinding() throws Exception {
+        new WeatherRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        for (Class<?> type : new Class<?>[]{WeatherResponse.class, WeatherResponse.Daily.class, WeatherResponse.Hourly.class,
+                DailyForecast.class, WeatherSummary.class, LocationForecast.class, Coordinates.class}) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(type).test(hints), type.getName());
+        }
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(DailyForecast.class.getMethod("estimatedEnergy")).test(hints));
+        // Odczyt przez konstruktor rekordu (Coordinates z treści zapytania)
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onConstructor(Coordinates.class.getDeclaredConstructor(double.class, double.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(Coordinates.class.getDeclaredMethod("unknownProperty", String.class, Object.class)).test(hints));
+    }
+}
@@ -1,19 +1,35 @@
 package com.example.weatherbackend;
 
 import com.example.weatherbackend.client.WeatherApiClient;
+import com.example.weatherbackend.exceptions.InvalidInputException;
 import com.example.weatherbackend.exceptions.WeatherDataNotFoundException;
+import com.example.weatherbackend.model.Coordinates;
 import com.example.weatherbackend.model.DailyForecast;
+import com.example.weatherbackend.model.ForecastWindow;
+import com.example.weatherbackend.model.LocationForecast;
+import com.example.weatherbackend.model.PanelParameters;
+import com.example.weatherbackend.model.RangeSummary;
 import com.example.weatherbackend.model.WeatherResponse;
+import com.example.weatherbackend.model.WeatherSnapshot;
 import com.example.weatherbackend.model.WeatherSummary;
+import com.example.weatherbackend.service.NearbyForecastResolver;
+import com.example.weatherbackend.service.SolarYieldEngine;
 import com.example.weatherbackend.service.WeatherService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.Arrays;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -23,6 +39,9 @@ public class WeatherServiceTest {
     @Mock
     private WeatherApiClient weatherApiClient;
 
+    @Mock
+    private NearbyForecastResolver nearbyForecastResolver;
+
     @InjectMocks
     private WeatherService weatherService;
 
@@ -44,32 +63,46 @@ public class WeatherServiceTest {
             java.lang.reflect.Field timezoneField = WeatherService.class.getDeclaredField("timezone");
             timezoneField.setAccessible(true);
             timezoneField.set(weatherService, "auto"); // lub inna domyślna wartość
+
+            java.lang.reflect.Field batchSizeField = WeatherService.class.getDeclaredField("batchSize");
+            batchSizeField.setAccessible(true);
+            batchSizeField.set(weatherService, 2);
+
+            setField("rangeChunkDays", 10);
+            setField("batchParallelism", 2);
+            setField("rangeParallelism", 2);
+            setField("archiveDelayDays", 5);
+
+            java.lang.reflect.Field executorField = WeatherService.class.getDeclaredField("applicationTaskExecutor");
+            executorField.setAccessible(true);
+            executorField.set(weatherService, new SimpleAsyncTaskExecutor());
         } catch (NoSuchFieldException | IllegalAccessException e) {
             e.printStackTrace();
         }
 
         weatherResponse = new WeatherResponse(
                 new WeatherResponse.Daily(
-                        Arrays.asList("2024-11-20", "2024-11-21", "2024-11-22"),
-                        Arrays.asList(1, 2, 1),
-                        Arrays.asList(5.0, 6.0, 7.0),
-                        Arrays.asList(15.0, 16.0, 17.0),
-                        Arrays.asList(36000.0, 30000.0, 42000.0),
-                        Arrays.asList(0.0, 1.0, 0.0)
+                        new String[]{"2024-11-20", "2024-11-21", "2024-11-22"},
+                        new int[]{1, 2, 1},
+                        new double[]{5.0, 6.0, 7.0},
+                        new double[]{15.0, 16.0, 17.0},
+                        new double[]{36000.0, 30000.0, 42000.0},
+                        new double[]{0.0, 1.0, 0.0}
                 ),
                 new WeatherResponse.Hourly(
-                        Arrays.asList(1013.0, 1015.0, 1017.0)
+                        new double[]{1013.0, 1015.0, 1017.0}
                 )
         );
     }
 
     @Test
-    public void testGet7DayForecast_validResponse() {
+    public void testGetWeatherData_forecastFromCell() {
         when(weatherApiClient.getWeatherData(
-                anyDouble(), anyDouble(), eq("weather_code,temperature_2m_max,temperature_2m_min,sunshine_duration,rain_sum"), eq(""), eq("auto")))
-                .thenReturn(weatherResponse);
+                anyDouble(), anyDouble(), eq("weather_code,temperature_2m_max,temperature_2m_min,sunshine_duration,rain_sum"), eq("surface_pressure"), eq("auto")))
+                .thenReturn(new WeatherSnapshot(weatherResponse));
 
-        List<DailyForecast> forecasts = weatherService.get7DayForecast(52.2298, 21.0118);
+        WeatherSnapshot data = weatherService.getWeatherData(52.2298, 21.0118);
+        List<DailyForecast> forecasts = weatherService.processWeatherData(data.response(), 52.2298, 21.0118, PanelParameters.DEFAULT);
 
         assertNotNull(forecasts);
         assertEquals(3, forecasts.size());
@@ -93,24 +126,24 @@ public class WeatherServiceTest {
     }
 
     @Test
-    public void testGet7DayForecast_apiReturnsNull() {
+    public void testGetWeatherData_apiReturnsNull() {
         // Zmieniamy z .thenReturn(null) na .thenThrow()
         when(weatherApiClient.getWeatherData(
-                anyDouble(), anyDouble(), eq("weather_code,temperature_2m_max,temperature_2m_min,sunshine_duration,rain_sum"), eq(""), eq("auto")))
+                anyDouble(), anyDouble(), eq("weather_code,temperature_2m_max,temperature_2m_min,sunshine_duration,rain_sum"), eq("surface_pressure"), eq("auto")))
                 .thenThrow(new WeatherDataNotFoundException("Nie udało się pobrać danych pogodowych z zewnętrznego API."));
 
         // Sprawdzenie, czy rzucany jest wyjątek
-        assertThrows(WeatherDataNotFoundException.class, () -> weatherService.get7DayForecast(52.2298, 21.0118));
+        assertThrows(WeatherDataNotFoundException.class, () -> weatherService.getWeatherData(52.2298, 21.0118));
     }
 
     @Test
-    public void testGetWeekSummary_validResponse() {
+    public void testWeeklySummary_validResponse() {
         // Ustawienie zachowania mocka dla nowej metody getWeatherData
         when(weatherApiClient.getWeatherData(
                 anyDouble(), anyDouble(), eq("weather_code,temperature_2m_max,temperature_2m_min,sunshine_duration,rain_sum"), eq("surface_pressure"), eq("auto")))
-                .thenReturn(weatherResponse);
+                .thenReturn(new WeatherSnapshot(weatherResponse));
 
-        WeatherSummary summary = weatherService.getWeekSummary(52.2298, 21.0118);
+        WeatherSummary summary = weatherService.processWeeklyData(weatherService.getWeatherData(52.2298, 21.0118).response());
 
         assertNotNull(summary);
         assertEquals(1015.0, summary.averageSurfacePressure());
@@ -120,6 +153,147 @@ public class WeatherServiceTest {
         assertEquals("Not rainy", summary.weatherSummary());
     }
 
+    @Test
+    public void testOverview_bothViewsFromSingleUpstreamCall() {
+        when(weatherApiClient.getWeatherData(
+                anyDouble(), anyDouble(), eq("weather_code,temperature_2m_max,temperature_2m_min,sunshine_duration,rain_sum"), eq("surface_pressure"), eq("auto")))
+                .thenReturn(new WeatherSnapshot(weatherResponse));
+
+        // /overview składa prognozę i podsumowanie z jednej odpowiedzi komórki
+        WeatherSnapshot data = weatherService.getWeatherData(52.2298, 21.0118);
+        List<DailyForecast> days = weatherService.processWeatherData(data.response(), 52.2298, 21.0118, PanelParameters.DEFAULT);
+        WeatherSummary weeklySummary = weatherService.processWeeklyData(data.response());
+
+        assertEquals(3, days.size());
+        assertEquals(5.0, days.get(0).estimatedEnergy(), 0.01);
+        assertEquals(1015.0, weeklySummary.averageSurfacePressure());
+        assertEquals("Not rainy", weeklySummary.weatherSummary());
+        verify(weatherApiClient, times(1)).getWeatherData(anyDouble(), anyDouble(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testForEachForecast_chunksLocationsAndKeepsOrder() {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(weatherResponse)));
+        List<Coordinates> locations = List.of(
+                new Coordinates(52.2298, 21.0118),
+                new Coordinates(50.0614, 19.9366),
+                new Coordinates(54.3520, 18.6466));
+
+        List<LocationForecast> results = new ArrayList<>();
+        weatherService.forEachForecast(locations, results::add);
+
+        assertEquals(3, results.size());
+        for (int i = 0; i < locations.size(); i++) {
+            assertEquals(locations.get(i).latitude(), results.get(i).latitude());
+            assertEquals(3, results.get(i).days().size());
+        }
+        // batch-size = 2, więc dwie paczki: 2 + 1 lokalizacje
+        verify(weatherApiClient, times(2)).getWeatherDataBatch(anyList(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void testForEachForecast_failedChunkReportsError() {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenThrow(new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo"));
+
+        List<LocationForecast> results = new ArrayList<>();
+        weatherService.forEachForecast(List.of(new Coordinates(52.2298, 21.0118)), results::add);
+
+        assertEquals(1, results.size());
+        assertNull(results.get(0).days());
+        assertEquals("Błąd połączenia z zewnętrznym API Open-Meteo", results.get(0).error());
+    }
+
+    @Test
+    public void testForEachForecast_brokenLocationReportsErrorAndKeepsOthers() {
+        WeatherResponse withoutDaily = new WeatherResponse(null, weatherResponse.hourly());
+        when(weatherApiClient.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenReturn(List.of(new WeatherSnapshot(weatherResponse), new WeatherSnapshot(withoutDaily)));
+
+        List<LocationForecast> results = new ArrayList<>();
+        weatherService.forEachForecast(List.of(new Coordinates(52.2298, 21.0118), new Coordinates(50.0614, 19.9366)), results::add);
+
+        assertEquals(2, results.size());
+        assertEquals(3, results.get(0).days().size());
+        assertNull(results.get(0).error());
+        assertNull(results.get(1).days());
+        // Szczegóły wyjątku programistycznego nie trafiają do klienta
+        assertEquals("Nie udało się przetworzyć danych pogodowych dla lokalizacji.", results.get(1).error());
+    }
+
+    @Test
+    public void testForEachForecast_responseCountMismatchReportsErrorForChunk() {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenReturn(List.of(new WeatherSnapshot(weatherResponse)));
+
+        List<LocationForecast> results = new ArrayList<>();
+        weatherService.forEachForecast(List.of(new Coordinates(52.2298, 21.0118), new Coordinates(50.0614, 19.9366)), results::add);
+
+        assertEquals(2, results.size());
+        for (LocationForecast result : results) {
+            assertNull(result.days());
+            assertEquals("Liczba odpowiedzi z API Open-Meteo nie zgadza się z liczbą lokalizacji.", result.error());
+        }
+    }
+
+    @Test
+    public void testForEachForecast_readsInputOnlyAsFastAsItIsConsumed() {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(weatherResponse)));
+        int[] read = {0};
+        Iterator<Coordinates> locations = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return read[0] < 1000;
+            }
+
+            @Override
+            public Coordinates next() {
+                read[0]++;
+                return new Coordinates(50.0, 20.0);
+            }
+        };
+
+        List<Integer> readAhead = new ArrayList<>();
+        weatherService.forEachForecast(locations, forecast -> readAhead.add(read[0]));
+
+        assertEquals(1000, readAhead.size());
+        // batch-size = 2 i batch-parallelism = 2: przed oddaniem wyniku przeczytane są najwyżej dwie paczki
+        for (int i = 0; i < readAhead.size(); i++) {
+            assertTrue(readAhead.get(i) <= i + 4, "przeczytano " + readAhead.get(i) + " lokalizacji przed oddaniem " + i);
+        }
+    }
+
+    @Test
+    public void testForEachForecast_inputErrorAfterEarlierLocations() {
+        when(weatherApiClient.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> Collections.nCopies(invocation.<List<?>>getArgument(0).size(), new WeatherSnapshot(weatherResponse)));
+        Iterator<Coordinates> locations = List.of(new Coordinates(50.0, 20.0), new Coordinates(51.0, 21.0), new Coordinates(52.0, 22.0))
+                .iterator();
+        Iterator<Coordinates> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Coordinates next() {
+                if (!locations.hasNext()) {
+                    throw new InvalidInputException("Wiersz 4: Szerokość geograficzna musi być liczbą zmiennoprzecinkową.");
+                }
+                return locations.next();
+            }
+        };
+
+        List<LocationForecast> results = new ArrayList<>();
+        InvalidInputException e = assertThrows(InvalidInputException.class, () -> weatherService.forEachForecast(failing, results::add));
+
+        assertEquals(3, results.size());
+        assertEquals(52.0, results.get(2).latitude());
+        assertTrue(e.getMessage().startsWith("Wiersz 4"));
+    }
+
     @Test
     public void testRound() {
         double result = WeatherService.round(2.5555, 2);
@@ -149,4 +323,111 @@ public class WeatherServiceTest {
         assertEquals("°C", units.minTemperature());
         assertEquals("°C", units.maxTemperature());
     }
+
+    @Test
+    public void testForEachDay_longRangeFetchedInChunksAndStreamedInOrder() {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), any(ForecastWindow.class), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> responseFor(invocation.getArgument(2)));
+        List<DailyForecast> days = new ArrayList<>();
+
+        RangeSummary summary = weatherService.forEachDay(52.2298, 21.0118,
+                ForecastWindow.range(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 25)), days::add);
+
+        ArgumentCaptor<ForecastWindow> windows = ArgumentCaptor.forClass(ForecastWindow.class);
+        verify(weatherApiClient, times(3)).getWeatherData(anyDouble(), anyDouble(), windows.capture(), anyString(), anyString(), anyString());
+        assertTrue(windows.getAllValues().contains(ForecastWindow.range(LocalDate.of(2024, 1, 11), LocalDate.of(2024, 1, 20))));
+        assertTrue(windows.getAllValues().contains(ForecastWindow.range(LocalDate.of(2024, 1, 21), LocalDate.of(2024, 1, 25))));
+
+        assertEquals(25, days.size());
+        for (int i = 0; i < days.size(); i++) {
+            assertEquals(LocalDate.of(2024, 1, 1).plusDays(i).toString(), days.get(i).date());
+        }
+        assertEquals(25, summary.days());
+        assertEquals(0.0, summary.minTemperature());
+        assertEquals(34.0, summary.maxTemperature());
+        assertEquals(1013.0, summary.averageSurfacePressure());
+        assertEquals(12, summary.rainyDays()); // co drugi dzień, licząc od 2 stycznia
+        assertEquals(25 * 5.0, summary.totalEstimatedEnergy(), 0.001);
+    }
+
+    @Test
+    public void testForEachDay_chunksSplitAtArchiveBoundary() {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), any(ForecastWindow.class), anyString(), anyString(), anyString()))
+                .thenAnswer(invocation -> responseFor(invocation.getArgument(2)));
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        weatherService.forEachDay(52.2298, 21.0118, ForecastWindow.range(today.minusDays(8), today.plusDays(3)), day -> {
+        });
+
+        ArgumentCaptor<ForecastWindow> windows = ArgumentCaptor.forClass(ForecastWindow.class);
+        verify(weatherApiClient, times(2)).getWeatherData(anyDouble(), anyDouble(), windows.capture(), anyString(), anyString(), anyString());
+        assertTrue(windows.getAllValues().contains(ForecastWindow.range(today.minusDays(8), today.minusDays(5))));
+        assertTrue(windows.getAllValues().contains(ForecastWindow.range(today.minusDays(4), today.plusDays(3))));
+    }
+
+    @Test
+    public void testForEachDay_chunkErrorPropagates() {
+        when(weatherApiClient.getWeatherData(anyDouble(), anyDouble(), any(ForecastWindow.class), anyString(), anyString(), anyString()))
+                .thenThrow(new WeatherDataNotFoundException("Błąd połączenia z zewnętrznym API Open-Meteo: timeout"));
+
+        assertThrows(WeatherDataNotFoundException.class, () -> weatherService.forEachDay(52.2298, 21.0118,
+                ForecastWindow.range(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 3, 1)), day -> {
+                }));
+    }
+
+    // Odpowiedź z jednym wpisem na każdy dzień okna: temperatury rosnące od 0, deszcz co drugi dzień
+    private static WeatherResponse responseFor(ForecastWindow window) {
+        int days = window.length();
+        String[] time = new String[days];
+        int[] codes = new int[days];
+        double[] min = new double[days];
+        double[] max = new double[days];
+        double[] sunshine = new double[days];
+        double[] rain = new double[days];
+        for (int i = 0; i < days; i++) {
+            LocalDate date = window.startDate().plusDays(i);
+            time[i] = date.toString();
+            min[i] = date.getDayOfMonth() - 1;
+            max[i] = date.getDayOfMonth() + 9;
+            sunshine[i] = 36000.0;
+            rain[i] = date.getDayOfMonth() % 2 == 0 ? 1.0 : 0.0;
+        }
+        double[] pressure = new double[days * 24];
+        java.util.Arrays.fill(pressure, 1013.0);
+        return new WeatherResponse(new WeatherResponse.Daily(time, codes, min, max, sunshine, rain), new WeatherResponse.Hourly(pressure));
+    }
+
+    @Test
+    public void testHourlyIrradianceReplacesSunshineEstimate() throws Exception {
+        SolarYieldEngine engine = new SolarYieldEngine(false);
+        setField("solarYieldEngine", engine);
+        double[] shortwave = new double[24];
+        double[] diffuse = new double[24];
+        for (int hour = 6; hour <= 16; hour++) {
+            shortwave[hour] = 300;
+            diffuse[hour] = 150;
+        }
+        WeatherResponse.Hourly hourly = new WeatherResponse.Hourly(new double[24], shortwave, diffuse, new double[24],
+                Instant.parse("2024-11-19T23:00:00Z"));
+        WeatherResponse response = new WeatherResponse(new WeatherResponse.Daily(new String[]{"2024-11-20"}, new int[]{1},
+                new double[]{5.0}, new double[]{15.0}, new double[]{36000.0}, new double[]{0.0}), hourly);
+        PanelParameters panel = new PanelParameters(4.0, 30, 180, 0.9, -0.004);
+        when(weatherApiClient.getWeatherDataBatch(anyList(), anyString(), anyString(), anyString())).thenReturn(List.of(new WeatherSnapshot(response)));
+
+        double single = weatherService.processWeatherData(response, 52.23, 21.01, panel).get(0).estimatedEnergy();
+        List<LocationForecast> results = new ArrayList<>();
+        weatherService.forEachForecast(List.of(new Coordinates(52.23, 21.01)), panel, results::add);
+
+        double expected = WeatherService.round(engine.dailyEnergy(new SolarYieldEngine.Site(52.23, 21.01, panel, hourly))[0], 3);
+        assertEquals(expected, single);
+        assertEquals(expected, results.get(0).days().get(0).estimatedEnergy());
+        // Bez danych godzinowych - dotychczasowe przybliżenie z usłonecznienia, skalowane mocą paneli
+        assertEquals(4.0 * 10 * 0.2, weatherService.processWeatherData(weatherResponse, 52.23, 21.01, panel).get(0).estimatedEnergy());
+    }
+
+    private void setField(String name, Object value) throws NoSuchFieldException, IllegalAccessException {
+        java.lang.reflect.Field field = WeatherService.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(weatherService, value);
+    }
 }